@@ -38,4 +38,21 @@ public @interface CacheNamespace {
   int size() default 1000;
 
   boolean readWrite() default true;
+
+  boolean blocking() default false;
+
+  /**
+   * Milliseconds each entry lives after it is put, 0 for no limit.
+   */
+  long timeToLive() default 0;
+
+  /**
+   * Milliseconds before an entry expires during which its first reader reloads it.
+   */
+  long refreshAhead() default 0;
+
+  /**
+   * Bound of the estimated size of the cached values in bytes, 0 for no bound.
+   */
+  long maxWeight() default 0;
 }
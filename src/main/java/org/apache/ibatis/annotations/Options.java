@@ -46,4 +46,8 @@ public @interface Options {
   String keyProperty() default "id";
 
   String keyColumn() default "";
+
+  boolean parallelMapping() default false;
+
+  String keyset() default "";
 }
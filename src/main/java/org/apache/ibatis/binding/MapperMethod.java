@@ -17,17 +17,26 @@ package org.apache.ibatis.binding;
 
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetPage;
+import org.apache.ibatis.session.KeysetToken;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionManager;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * 代理类中真正执行数据库操作的类
@@ -53,6 +62,14 @@ public class MapperMethod {
     }
 
     public Object execute(SqlSession sqlSession, Object[] args) {
+        //返回Future的方法 后台执行
+        if (method.returnsFuture()) {
+            return executeForFuture(sqlSession, args);
+        }
+        return executeNow(sqlSession, args);
+    }
+
+    private Object executeNow(SqlSession sqlSession, Object[] args) {
         Object result;
         //根据初始化时确定的命令类型，选择对应的操作
         if (SqlCommandType.INSERT == command.getType()) {
@@ -79,6 +96,12 @@ public class MapperMethod {
             } else if (method.returnsMap()) {
                 //如果返回类型是MAP 则调用executeForMap方法
                 result = executeForMap(sqlSession, args);
+            } else if (method.returnsCursor()) {
+                //如果返回类型是Cursor 则调用executeForCursor方法，逐行获取结果
+                result = executeForCursor(sqlSession, args);
+            } else if (method.returnsKeysetPage()) {
+                //如果返回类型是KeysetPage 则按参数中的KeysetToken查询一页
+                result = executeForKeysetPage(sqlSession, args);
             } else {
                 //否则就是查询单个对象
                 Object param = method.convertArgsToSqlCommandParam(args);
@@ -96,6 +119,32 @@ public class MapperMethod {
         return result;
     }
 
+    /**
+     * 返回Future 没有托管会话的SqlSessionManager每次调用都打开自己的会话，线程安全，在异步语句队列中执行
+     * 其他SqlSession不是线程安全的，在当前线程执行，返回已完成的Future
+     *
+     * @param sqlSession
+     * @param args
+     * @return
+     */
+    private Future<Object> executeForFuture(final SqlSession sqlSession, final Object[] args) {
+        final Callable<Object> statement = new Callable<Object>() {
+            public Object call() {
+                return executeNow(sqlSession, args);
+            }
+        };
+        if (sqlSession instanceof SqlSessionManager && !((SqlSessionManager) sqlSession).isManagedSessionStarted()) {
+            //每次调用的会话在Future完成前就关闭了 游标无法读取
+            if (method.returnsCursor()) {
+                throw new BindingException("Mapper method '" + command.getName() + "' cannot return a Future of a Cursor without a managed session.");
+            }
+            return sqlSession.getConfiguration().getAsyncStatementQueue().submit(statement);
+        }
+        final FutureTask<Object> future = new FutureTask<Object>(statement);
+        future.run();
+        return future;
+    }
+
     private Object rowCountResult(int rowCount) {
         final Object result;
         if (method.returnsVoid()) {
@@ -158,6 +207,27 @@ public class MapperMethod {
         return result;
     }
 
+    private <T> Cursor<T> executeForCursor(SqlSession sqlSession, Object[] args) {
+        Cursor<T> result;
+        Object param = method.convertArgsToSqlCommandParam(args);
+        if (method.hasRowBounds()) {
+            RowBounds rowBounds = method.extractRowBounds(args);
+            result = sqlSession.<T>selectCursor(command.getName(), param, rowBounds);
+        } else {
+            result = sqlSession.<T>selectCursor(command.getName(), param);
+        }
+        return result;
+    }
+
+    private <E> KeysetPage<E> executeForKeysetPage(SqlSession sqlSession, Object[] args) {
+        Object param = method.convertArgsToSqlCommandParam(args);
+        RowBounds rowBounds = method.extractRowBounds(args);
+        if (!(rowBounds instanceof KeysetToken)) {
+            throw new BindingException("Mapper method '" + command.getName() + "' returns a KeysetPage and needs a non null KeysetToken parameter");
+        }
+        return sqlSession.<E>selectPage(command.getName(), param, (KeysetToken) rowBounds);
+    }
+
     private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
         Object collection = config.getObjectFactory().create(method.getReturnType());
         MetaObject metaObject = config.newMetaObject(collection);
@@ -254,6 +324,18 @@ public class MapperMethod {
          * 返回值是否是MAP
          */
         private final boolean returnsMap;
+        /**
+         * 返回值是否是Cursor
+         */
+        private final boolean returnsCursor;
+        /**
+         * 返回值是否是KeysetPage
+         */
+        private final boolean returnsKeysetPage;
+        /**
+         * 返回值是否是Future，是时其余的返回值信息都是Future的类型参数的
+         */
+        private final boolean returnsFuture;
         /**
          * 返回值是否是VOID
          */
@@ -284,10 +366,13 @@ public class MapperMethod {
         private final boolean hasNamedParameters;
 
         public MethodSignature(Configuration configuration, Method method) throws BindingException {
-            this.returnType = method.getReturnType();
-            this.returnsVoid = void.class.equals(this.returnType);
+            this.returnsFuture = Future.class.equals(method.getReturnType());
+            this.returnType = returnsFuture ? getFutureResultType(method) : method.getReturnType();
+            this.returnsVoid = void.class.equals(this.returnType) || Void.class.equals(this.returnType);
             this.returnsMany = (configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray());
-            this.mapKey = getMapKey(method);
+            this.returnsCursor = Cursor.class.equals(this.returnType);
+            this.returnsKeysetPage = KeysetPage.class.equals(this.returnType);
+            this.mapKey = getMapKey(method, this.returnType);
             this.returnsMap = (this.mapKey != null);
             this.hasNamedParameters = hasNamedParams(method);
             this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
@@ -358,6 +443,34 @@ public class MapperMethod {
             return returnsVoid;
         }
 
+        public boolean returnsCursor() {
+            return returnsCursor;
+        }
+
+        public boolean returnsKeysetPage() {
+            return returnsKeysetPage;
+        }
+
+        public boolean returnsFuture() {
+            return returnsFuture;
+        }
+
+        /**
+         * 获取Future的类型参数，未指定时为Object
+         */
+        private Class<?> getFutureResultType(Method method) {
+            final Type returnType = method.getGenericReturnType();
+            if (returnType instanceof ParameterizedType) {
+                final Type resultType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+                if (resultType instanceof Class) {
+                    return (Class<?>) resultType;
+                } else if (resultType instanceof ParameterizedType) {
+                    return (Class<?>) ((ParameterizedType) resultType).getRawType();
+                }
+            }
+            return Object.class;
+        }
+
         /**
          * 获取唯一参数索引
          *
@@ -380,9 +493,9 @@ public class MapperMethod {
             return index;
         }
 
-        private String getMapKey(Method method) {
+        private String getMapKey(Method method, Class<?> returnType) {
             String mapKey = null;
-            if (Map.class.isAssignableFrom(method.getReturnType())) {
+            if (Map.class.isAssignableFrom(returnType)) {
                 final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
                 if (mapKeyAnnotation != null) {
                     mapKey = mapKeyAnnotation.value();
@@ -119,6 +119,19 @@ public class MapperBuilderAssistant extends BaseBuilder {
       Integer size,
       boolean readWrite,
       Properties props) {
+    return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, false, null, null, null, props);
+  }
+
+  public Cache useNewCache(Class<? extends Cache> typeClass,
+      Class<? extends Cache> evictionClass,
+      Long flushInterval,
+      Integer size,
+      boolean readWrite,
+      boolean blocking,
+      Long timeToLive,
+      Long refreshAhead,
+      Long maxWeight,
+      Properties props) {
     typeClass = valueOrDefault(typeClass, PerpetualCache.class);
     evictionClass = valueOrDefault(evictionClass, LruCache.class);
     Cache cache = new CacheBuilder(currentNamespace)
@@ -127,6 +140,11 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .clearInterval(flushInterval)
         .size(size)
         .readWrite(readWrite)
+        .blocking(blocking)
+        .timeToLive(timeToLive)
+        .refreshAhead(refreshAhead)
+        .maxWeight(maxWeight)
+        .serializer(configuration.getSerializer())
         .properties(props)
         .build();
     configuration.addCache(cache);
@@ -261,6 +279,36 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String databaseId,
       LanguageDriver lang,
       String resultSets) {
+    return addMappedStatement(
+      id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+      parameterMap, parameterType, resultMap, resultType, resultSetType,
+      flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+      keyColumn, databaseId, lang, resultSets, false, null);
+  }
+
+  public MappedStatement addMappedStatement(
+      String id,
+      SqlSource sqlSource,
+      StatementType statementType,
+      SqlCommandType sqlCommandType,
+      Integer fetchSize,
+      Integer timeout,
+      String parameterMap,
+      Class<?> parameterType,
+      String resultMap,
+      Class<?> resultType,
+      ResultSetType resultSetType,
+      boolean flushCache,
+      boolean useCache,
+      boolean resultOrdered,
+      KeyGenerator keyGenerator,
+      String keyProperty,
+      String keyColumn,
+      String databaseId,
+      LanguageDriver lang,
+      String resultSets,
+      boolean parallelMapping,
+      String keyset) {
     
     if (unresolvedCacheRef) throw new IncompleteElementException("Cache-ref not yet resolved");
     
@@ -277,6 +325,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
     statementBuilder.databaseId(databaseId);
     statementBuilder.lang(lang);
     statementBuilder.resultOrdered(resultOrdered);
+    statementBuilder.parallelMapping(parallelMapping);
+    statementBuilder.keyset(keyset);
     statementBuilder.resulSets(resultSets);
     setStatementTimeout(timeout, statementBuilder);
 
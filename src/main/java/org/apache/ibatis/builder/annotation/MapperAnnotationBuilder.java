@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -61,6 +62,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -77,6 +79,7 @@ import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetPage;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.JdbcType;
@@ -206,7 +209,8 @@ public class MapperAnnotationBuilder {
         // 如果存在该注解，则调用构建助手创建缓存对象
         if (cacheDomain != null) {
             assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), cacheDomain.flushInterval(), cacheDomain.size(),
-                    cacheDomain.readWrite(), null);
+                    cacheDomain.readWrite(), cacheDomain.blocking(), cacheDomain.timeToLive(), cacheDomain.refreshAhead(),
+                    cacheDomain.maxWeight(), null);
         }
     }
 
@@ -312,6 +316,8 @@ public class MapperAnnotationBuilder {
             boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
             boolean flushCache = !isSelect;
             boolean useCache = isSelect;
+            boolean parallelMapping = false;
+            String keyset = null;
 
             KeyGenerator keyGenerator;
             String keyProperty = "id";
@@ -347,6 +353,8 @@ public class MapperAnnotationBuilder {
                 timeout = options.timeout() > -1 ? options.timeout() : null;
                 statementType = options.statementType();
                 resultSetType = options.resultSetType();
+                parallelMapping = options.parallelMapping();
+                keyset = options.keyset();
             }
 
             // 处理方法上的@ResultMap注解
@@ -378,7 +386,7 @@ public class MapperAnnotationBuilder {
                     // ParameterMapID
                     parameterTypeClass, resultMapId,    // ResultMapID
                     getReturnType(method), resultSetType, flushCache, useCache, false, // TODO issue #577
-                    keyGenerator, keyProperty, keyColumn, null, languageDriver, null);
+                    keyGenerator, keyProperty, keyColumn, null, languageDriver, null, parallelMapping, keyset);
         }
     }
 
@@ -408,13 +416,26 @@ public class MapperAnnotationBuilder {
 
     private Class<?> getReturnType(Method method) {
         Class<?> returnType = method.getReturnType();
-        if (void.class.equals(returnType)) { // issue #508
+        Type genericReturnType = method.getGenericReturnType();
+        if (Future.class.equals(returnType)) {
+            // 返回Future的方法 结果类型是Future的类型参数
+            returnType = Object.class;
+            if (genericReturnType instanceof ParameterizedType) {
+                genericReturnType = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+                if (genericReturnType instanceof Class) {
+                    returnType = (Class<?>) genericReturnType;
+                } else if (genericReturnType instanceof ParameterizedType) {
+                    returnType = (Class<?>) ((ParameterizedType) genericReturnType).getRawType();
+                }
+            }
+        }
+        if (void.class.equals(returnType) || Void.class.equals(returnType)) { // issue #508
             ResultType rt = method.getAnnotation(ResultType.class);
             if (rt != null) {
                 returnType = rt.value();
             }
-        } else if (Collection.class.isAssignableFrom(returnType)) {
-            Type returnTypeParameter = method.getGenericReturnType();
+        } else if (Collection.class.isAssignableFrom(returnType) || Cursor.class.isAssignableFrom(returnType) || KeysetPage.class.isAssignableFrom(returnType)) {
+            Type returnTypeParameter = genericReturnType;
             if (returnTypeParameter instanceof ParameterizedType) {
                 Type[] actualTypeArguments = ((ParameterizedType) returnTypeParameter).getActualTypeArguments();
                 if (actualTypeArguments != null && actualTypeArguments.length == 1) {
@@ -431,7 +452,7 @@ public class MapperAnnotationBuilder {
             }
         } else if (method.isAnnotationPresent(MapKey.class) && Map.class.isAssignableFrom(returnType)) {
             // (issue 504) Do not look into Maps if there is not MapKey annotation
-            Type returnTypeParameter = method.getGenericReturnType();
+            Type returnTypeParameter = genericReturnType;
             if (returnTypeParameter instanceof ParameterizedType) {
                 Type[] actualTypeArguments = ((ParameterizedType) returnTypeParameter).getActualTypeArguments();
                 if (actualTypeArguments != null && actualTypeArguments.length == 2) {
@@ -27,6 +27,7 @@ import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.parsing.XNode;
@@ -205,6 +206,7 @@ public class XMLConfigBuilder extends BaseBuilder {
             configuration.setAutoMappingBehavior(AutoMappingBehavior.valueOf(props.getProperty("autoMappingBehavior", "PARTIAL")));
             configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
             configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
+            configuration.setSerializer((Serializer) createInstance(props.getProperty("serializer")));
             configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
             configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), true));
             configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
@@ -220,6 +222,10 @@ public class XMLConfigBuilder extends BaseBuilder {
             configuration.setSafeResultHandlerEnabled(booleanValueOf(props.getProperty("safeResultHandlerEnabled"), true));
             configuration.setDefaultScriptingLanguage(resolveClass(props.getProperty("defaultScriptingLanguage")));
             configuration.setCallSettersOnNulls(booleanValueOf(props.getProperty("callSettersOnNulls"), false));
+            configuration.setUseBytecodeAccessors(booleanValueOf(props.getProperty("useBytecodeAccessors"), false));
+            configuration.setUseDialectPaging(booleanValueOf(props.getProperty("useDialectPaging"), false));
+            configuration.setUseCompactMapRows(booleanValueOf(props.getProperty("useCompactMapRows"), false));
+            configuration.setAsyncConcurrency(integerValueOf(props.getProperty("asyncConcurrency"), 10));
             configuration.setLogPrefix(props.getProperty("logPrefix"));
             configuration.setLogImpl(resolveClass(props.getProperty("logImpl")));
             configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
@@ -228,8 +228,13 @@ public class XMLMapperBuilder extends BaseBuilder {
             Long flushInterval = context.getLongAttribute("flushInterval");
             Integer size = context.getIntAttribute("size");
             boolean readWrite = !context.getBooleanAttribute("readOnly", false);
+            boolean blocking = context.getBooleanAttribute("blocking", false);
+            Long timeToLive = context.getLongAttribute("timeToLive");
+            Long refreshAhead = context.getLongAttribute("refreshAhead");
+            Long maxWeight = context.getLongAttribute("maxWeight");
             Properties props = context.getChildrenAsProperties();
-            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, props);
+            builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking,
+                    timeToLive, refreshAhead, maxWeight, props);
         }
     }
 
@@ -93,6 +93,10 @@ public class XMLStatementBuilder extends BaseBuilder {
         boolean useCache = context.getBooleanAttribute("useCache", isSelect);
         // 根嵌套结果相关
         boolean resultOrdered = context.getBooleanAttribute("resultOrdered", false);
+        // 是否并行映射结果对象
+        boolean parallelMapping = context.getBooleanAttribute("parallelMapping", false);
+        // 键集分页的排序列
+        String keyset = context.getStringAttribute("keyset");
 
         // Include Fragments before parsing 引入SQL片段
         XMLIncludeTransformer includeParser = new XMLIncludeTransformer(configuration, builderAssistant);
@@ -122,7 +126,7 @@ public class XMLStatementBuilder extends BaseBuilder {
         //通过buildAssistant将解析得到的参数设置构造成MappedStatement对象
         builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType, fetchSize, timeout, parameterMap, parameterTypeClass,
                 resultMap, resultTypeClass, resultSetTypeEnum, flushCache, useCache, resultOrdered, keyGenerator, keyProperty, keyColumn,
-                databaseId, langDriver, resultSets);
+                databaseId, langDriver, resultSets, parallelMapping, keyset);
     }
 
     private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
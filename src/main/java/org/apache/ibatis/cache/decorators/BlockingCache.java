@@ -0,0 +1,194 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Simple blocking decorator
+ * 缓存未命中时只让一个线程去数据库加载，其他查询同一个key的线程等待它的结果
+ * <p>
+ * A miss locks the key for its owner, until the owner puts the value, removes the key or releases the lock.
+ * Other threads that read the key meanwhile wait for it and then get the value it loaded,
+ * so an expired or flushed entry is loaded from the database once instead of once per thread.
+ * The owner of the {@link Cache} methods is the calling thread. A {@link TransactionalCache} owns the keys it missed,
+ * puts the loaded values at commit and then releases all of them, so a key stays locked until the transaction
+ * that loads it ends, whichever thread ends it. A thread never waits for a key it locked itself.
+ * <p>
+ * A thread that waits for longer than the timeout gets a {@link CacheException}.
+ * The timeout also resolves two transactions that wait for the keys the other one locked.
+ */
+public class BlockingCache implements Cache {
+
+    private final Cache delegate;
+    /**
+     * 正在加载的key，值为加载者持有的锁
+     */
+    private final ConcurrentMap<Object, KeyLock> locks = new ConcurrentHashMap<Object, KeyLock>();
+    /**
+     * 等待其他线程加载的最长时间，单位毫秒，0表示一直等待
+     */
+    private long timeout;
+
+    public BlockingCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        try {
+            delegate.putObject(key, value);
+        } finally {
+            releaseLock(key, Thread.currentThread());
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        return getObject(key, Thread.currentThread());
+    }
+
+    /**
+     * 未命中时key被owner锁住，直到owner放入值或者释放锁
+     */
+    public Object getObject(Object key, Object owner) {
+        // 命中时不加锁
+        Object value = delegate.getObject(key);
+        if (value != null) {
+            return value;
+        }
+        if (acquireLock(key, owner)) {
+            value = delegate.getObject(key);
+            if (value != null) {
+                releaseLock(key, owner);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 同时释放当前线程在这个key上持有的锁
+     */
+    @Override
+    public Object removeObject(Object key) {
+        try {
+            return delegate.removeObject(key);
+        } finally {
+            releaseLock(key, Thread.currentThread());
+        }
+    }
+
+    /**
+     * 释放owner在这个key上持有的锁，不改变缓存的值，等待的线程会重新读取
+     */
+    public void releaseLock(Object key, Object owner) {
+        final KeyLock lock = locks.get(key);
+        if (lock != null && lock.owner == owner && locks.remove(key, lock)) {
+            lock.loaded.countDown();
+        }
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return delegate.equals(obj);
+    }
+
+    /**
+     * @return false 如果key被当前线程的另一个owner锁住，不等待也不加锁
+     */
+    private boolean acquireLock(Object key, Object owner) {
+        final KeyLock newLock = new KeyLock(owner);
+        for (;;) {
+            final KeyLock lock = locks.putIfAbsent(key, newLock);
+            if (lock == null || lock.owner == owner) {
+                // 加载者再次读取同一个key时不等待自己
+                return true;
+            }
+            if (lock.thread == Thread.currentThread()) {
+                // 同一个线程里的另一个事务，等待会永远阻塞
+                return false;
+            }
+            try {
+                if (timeout > 0) {
+                    if (!lock.loaded.await(timeout, TimeUnit.MILLISECONDS)) {
+                        throw new CacheException("Couldn't get a lock in " + timeout + " for the key " + key + " at the cache " + delegate.getId());
+                    }
+                } else {
+                    lock.loaded.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheException("Interrupted while waiting for the key " + key + " at the cache " + delegate.getId(), e);
+            }
+        }
+    }
+
+    private static final class KeyLock {
+
+        private final Object owner;
+        /**
+         * 加锁的线程
+         */
+        private final Thread thread = Thread.currentThread();
+        private final CountDownLatch loaded = new CountDownLatch(1);
+
+        private KeyLock(Object owner) {
+            this.owner = owner;
+        }
+
+    }
+
+}
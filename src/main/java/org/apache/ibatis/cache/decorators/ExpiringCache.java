@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Expires each entry on its own, timeToLive milliseconds after it was put.
+ * 每个条目单独过期，不像ScheduledCache那样一次清空整个缓存
+ * <p>
+ * With refreshAhead, the first thread that reads an entry during the last refreshAhead milliseconds of its life
+ * gets a miss and reloads it, while the other threads keep getting the cached value until the new one is put.
+ * <p>
+ * The expiry times are stored with the value, so a cache below that serializes its values, like OffHeapCache,
+ * keeps them too.
+ */
+public class ExpiringCache implements Cache {
+
+    private final Cache delegate;
+    /**
+     * 条目的存活时间，单位毫秒，默认1小时
+     */
+    private long timeToLive = 60 * 60 * 1000;
+    /**
+     * 过期前多少毫秒开始提前刷新，0表示不提前刷新
+     */
+    private long refreshAhead;
+    /**
+     * 负责提前刷新的线程，它再次读取时也得到未命中，比如BlockingCache加锁后的第二次读取。
+     * 不保存在条目中，因为下层缓存可能每次返回条目的一个新副本
+     */
+    private final ConcurrentMap<Object, Thread> refreshers = new ConcurrentHashMap<Object, Thread>();
+
+    public ExpiringCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public void setRefreshAhead(long refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    /**
+     * 包括已经过期但还没有被读取的条目
+     */
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        if (value == null) {
+            delegate.putObject(key, null);
+        } else {
+            final long now = System.currentTimeMillis();
+            final long refreshAt = refreshAhead > 0 ? now + timeToLive - refreshAhead : Long.MAX_VALUE;
+            delegate.putObject(key, new Entry(value, now + timeToLive, refreshAt));
+        }
+        refreshers.remove(key);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        final Object stored = delegate.getObject(key);
+        if (!(stored instanceof Entry)) {
+            return stored;
+        }
+        final Entry entry = (Entry) stored;
+        final long now = System.currentTimeMillis();
+        if (now >= entry.expiresAt) {
+            delegate.removeObject(key);
+            refreshers.remove(key);
+            return null;
+        }
+        if (now >= entry.refreshAt && claimRefresh(key)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        final Object stored = delegate.removeObject(key);
+        refreshers.remove(key);
+        return stored instanceof Entry ? ((Entry) stored).value : stored;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        refreshers.clear();
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return delegate.equals(obj);
+    }
+
+    private boolean claimRefresh(Object key) {
+        final Thread current = Thread.currentThread();
+        final Thread refresher = refreshers.putIfAbsent(key, current);
+        return refresher == null || refresher == current;
+    }
+
+    private static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = -5393296316470285813L;
+
+        private final Object value;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        Entry(Object value, long expiresAt, long refreshAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+    }
+
+}
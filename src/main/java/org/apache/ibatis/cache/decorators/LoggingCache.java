@@ -37,11 +37,11 @@ public class LoggingCache implements Cache {
      */
     private Cache delegate;
     /**
-     * 每次调用getObject(key)查询时，此值+1
+     * 开启debug日志时，每次调用getObject(key)查询时，此值+1
      */
     protected int requests = 0;
     /**
-     * 每次调用getObject(key)获取到的value不为null时，此值+1
+     * 开启debug日志时，每次调用getObject(key)获取到的value不为null时，此值+1
      */
     protected int hits = 0;
 
@@ -67,14 +67,14 @@ public class LoggingCache implements Cache {
 
     @Override
     public Object getObject(Object key) {
-        requests++;
         final Object value = delegate.getObject(key);
-        if (value != null) {
-            hits++;
-        }
 
-        // 打印当前缓存对象的命中率
+        // 打印当前缓存对象的命中率，只在打印时计数，避免并发缓存的读线程争用这两个计数器
         if (log.isDebugEnabled()) {
+            requests++;
+            if (value != null) {
+                hits++;
+            }
             log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
         }
         return value;
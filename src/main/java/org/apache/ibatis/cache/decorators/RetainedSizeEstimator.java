@@ -0,0 +1,193 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates the heap retained by a cached value, assuming a 64-bit JVM with compressed references:
+ * 12 byte object headers, 4 byte references and sizes rounded up to 8 bytes.
+ * 估算缓存值占用的堆内存，结果是近似值
+ * <p>
+ * Fields of result objects are walked by reflection. Collections and maps are walked through their elements,
+ * other JDK objects only count their own fields. Classes, enums and the fields added by lazy loading proxies
+ * are shared and not counted.
+ */
+final class RetainedSizeEstimator {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    /**
+     * 最多遍历的对象数，避免估算超大的对象图花费太多时间
+     */
+    private static final int MAX_OBJECTS = 1 << 20;
+
+    private static final ConcurrentMap<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<Class<?>, ClassLayout>();
+
+    private RetainedSizeEstimator() {
+        // Prevent Instantiation
+    }
+
+    static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        final Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+        final List<Object> pending = new ArrayList<Object>();
+        pending.add(value);
+        long size = 0;
+        while (!pending.isEmpty() && visited.size() < MAX_OBJECTS) {
+            final Object object = pending.remove(pending.size() - 1);
+            if (visited.put(object, object) != null) {
+                continue;
+            }
+            final Class<?> type = object.getClass();
+            if (type.isArray()) {
+                size += sizeOfArray(object, pending);
+            } else if (object instanceof String) {
+                size += align(HEADER + 12) + align(ARRAY_HEADER + 2L * ((String) object).length());
+            } else {
+                final ClassLayout layout = getLayout(type);
+                size += layout.shallowSize;
+                if (object instanceof Collection) {
+                    final Collection<?> collection = (Collection<?>) object;
+                    size += align(ARRAY_HEADER + (long) REFERENCE * collection.size());
+                    for (Object element : collection) {
+                        push(element, pending);
+                    }
+                } else if (object instanceof Map) {
+                    final Map<?, ?> map = (Map<?, ?>) object;
+                    // the table and one entry object per mapping
+                    size += align(ARRAY_HEADER + (long) REFERENCE * map.size()) + (long) map.size() * align(HEADER + 3 * REFERENCE + 4);
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        push(entry.getKey(), pending);
+                        push(entry.getValue(), pending);
+                    }
+                } else {
+                    for (Field field : layout.referenceFields) {
+                        try {
+                            push(field.get(object), pending);
+                        } catch (IllegalAccessException e) {
+                            // not counted
+                        }
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long sizeOfArray(Object array, List<Object> pending) {
+        final Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            final int length = Array.getLength(array);
+            return align(ARRAY_HEADER + (long) length * sizeOf(componentType));
+        }
+        final Object[] elements = (Object[]) array;
+        for (Object element : elements) {
+            push(element, pending);
+        }
+        return align(ARRAY_HEADER + (long) REFERENCE * elements.length);
+    }
+
+    private static void push(Object object, List<Object> pending) {
+        if (object != null && !(object instanceof Class) && !(object instanceof Enum) && !(object instanceof ClassLoader)
+                && !(object instanceof Thread)) {
+            pending.add(object);
+        }
+    }
+
+    private static ClassLayout getLayout(Class<?> type) {
+        ClassLayout layout = layouts.get(type);
+        if (layout == null) {
+            layout = new ClassLayout(type);
+            layouts.putIfAbsent(type, layout);
+        }
+        return layout;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static int sizeOf(Class<?> primitiveType) {
+        if (primitiveType == long.class || primitiveType == double.class) {
+            return 8;
+        } else if (primitiveType == int.class || primitiveType == float.class) {
+            return 4;
+        } else if (primitiveType == short.class || primitiveType == char.class) {
+            return 2;
+        } else {
+            return 1;
+        }
+    }
+
+    private static final class ClassLayout {
+
+        private final long shallowSize;
+        private final List<Field> referenceFields = new ArrayList<Field>();
+
+        ClassLayout(Class<?> type) {
+            final boolean walkFields = !isJdkClass(type);
+            long size = HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                // 延迟加载代理类自己的字段引用的是Configuration等共享对象
+                final boolean proxy = c.getName().indexOf("$$") >= 0;
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        size += sizeOf(field.getType());
+                    } else {
+                        size += REFERENCE;
+                        if (walkFields && !proxy && makeAccessible(field)) {
+                            referenceFields.add(field);
+                        }
+                    }
+                }
+            }
+            this.shallowSize = align(size);
+        }
+
+        private static boolean isJdkClass(Class<?> type) {
+            final String name = type.getName();
+            return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.");
+        }
+
+        private static boolean makeAccessible(Field field) {
+            try {
+                field.setAccessible(true);
+                return true;
+            } catch (RuntimeException e) {
+                // a security manager or a module that is not open
+                return false;
+            }
+        }
+
+    }
+
+}
@@ -34,7 +34,7 @@ public class ScheduledCache implements Cache {
     /**
      * 最后一次清空缓存的时间，单位毫秒
      */
-    protected long lastClear;
+    protected volatile long lastClear;
 
     public ScheduledCache(Cache delegate) {
         this.delegate = delegate;
@@ -15,12 +15,9 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -28,18 +25,28 @@ import java.util.concurrent.locks.ReadWriteLock;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.io.Serializer;
+import org.apache.ibatis.io.Serializers;
 
 /**
  * 缓存序列化和反序列化存储
+ * <p>
+ * Values are copied with the serializer set in {@link Serializers} when the cache is built.
  *
  * @author Clinton Begin
  */
 public class SerializedCache implements Cache {
 
     private Cache delegate;
+    private final Serializer serializer;
 
     public SerializedCache(Cache delegate) {
+        this(delegate, Serializers.getDefault());
+    }
+
+    public SerializedCache(Cache delegate, Serializer serializer) {
         this.delegate = delegate;
+        this.serializer = serializer;
     }
 
     @Override
@@ -100,28 +107,18 @@ public class SerializedCache implements Cache {
 
     private byte[] serialize(Serializable value) {
         try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(bos);
-            oos.writeObject(value);
-            oos.flush();
-            oos.close();
-            return bos.toByteArray();
+            return serializer.serialize(value);
         } catch (Exception e) {
             throw new CacheException("Error serializing object.  Cause: " + e, e);
         }
     }
 
     private Serializable deserialize(byte[] value) {
-        Serializable result;
         try {
-            ByteArrayInputStream bis = new ByteArrayInputStream(value);
-            ObjectInputStream ois = new CustomObjectInputStream(bis);
-            result = (Serializable) ois.readObject();
-            ois.close();
+            return (Serializable) serializer.deserialize(value);
         } catch (Exception e) {
             throw new CacheException("Error deserializing object.  Cause: " + e, e);
         }
-        return result;
     }
 
     public static class CustomObjectInputStream extends ObjectInputStream {
@@ -16,7 +16,9 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.ibatis.cache.Cache;
@@ -45,12 +47,22 @@ public class TransactionalCache implements Cache {
      * 在commit时需要进行的移除操作，调用removeObject时添加到这里
      */
     private Map<Object, RemoveEntry> entriesToRemoveOnCommit;
+    /**
+     * delegate是BlockingCache时不为null，当前事务未命中的key由它锁住，锁的持有者是这个TransactionalCache
+     */
+    private final BlockingCache blockingCache;
+    /**
+     * BlockingCache锁住了当前事务未命中的key，事务结束时全部释放
+     */
+    private final Set<Object> entriesMissedInCache;
 
     public TransactionalCache(Cache delegate) {
         this.delegate = delegate;
         this.clearOnCommit = false;
         this.entriesToAddOnCommit = new HashMap<Object, AddEntry>();
         this.entriesToRemoveOnCommit = new HashMap<Object, RemoveEntry>();
+        this.blockingCache = delegate instanceof BlockingCache ? (BlockingCache) delegate : null;
+        this.entriesMissedInCache = blockingCache != null ? new HashSet<Object>() : null;
     }
 
     @Override
@@ -66,7 +78,18 @@ public class TransactionalCache implements Cache {
     @Override
     public Object getObject(Object key) {
         if (clearOnCommit) return null; // issue #146
-        return delegate.getObject(key);
+        return getFromDelegate(key);
+    }
+
+    private Object getFromDelegate(Object key) {
+        if (blockingCache == null) {
+            return delegate.getObject(key);
+        }
+        final Object value = blockingCache.getObject(key, this);
+        if (value == null) {
+            entriesMissedInCache.add(key);
+        }
+        return value;
     }
 
     @Override
@@ -84,7 +107,7 @@ public class TransactionalCache implements Cache {
     public Object removeObject(Object key) {
         entriesToAddOnCommit.remove(key);
         entriesToRemoveOnCommit.put(key, new RemoveEntry(delegate, key));
-        return delegate.getObject(key);
+        return getFromDelegate(key);
     }
 
     @Override
@@ -104,13 +127,28 @@ public class TransactionalCache implements Cache {
         for (AddEntry entry : entriesToAddOnCommit.values()) {
             entry.commit();
         }
+        unlockMissedEntries();
         reset();
     }
 
     public void rollback() {
+        unlockMissedEntries();
         reset();
     }
 
+    /**
+     * 释放未命中的key，提交时放入缓存的值已经可见，其他等待没有放入的key的线程会自己去数据库加载
+     */
+    private void unlockMissedEntries() {
+        if (entriesMissedInCache == null) {
+            return;
+        }
+        for (Object key : entriesMissedInCache) {
+            blockingCache.releaseLock(key, this);
+        }
+        entriesMissedInCache.clear();
+    }
+
     private void reset() {
         clearOnCommit = false;
         entriesToRemoveOnCommit.clear();
@@ -0,0 +1,258 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Bounds the estimated retained size of the cached values in bytes, evicting the entries that were not read recently first.
+ * 按估算的字节数而不是条目数限制缓存大小，它本身就是近似LRU的回收策略，不需要再叠加LruCache
+ * <p>
+ * The size of a value is estimated when it is put, by walking the result objects it references.
+ * Below a SerializedCache the values are the serialized bytes, whose size is exact.
+ * A value larger than maxWeight is not cached. The number of entries can be bounded too with setSize.
+ * <p>
+ * Entries are evicted with the CLOCK algorithm like the {@link org.apache.ibatis.cache.impl.ConcurrentCache}:
+ * a hit only marks its entry as referenced without a lock, so reads are not serialized.
+ * Writes, misses and evictions take a lock.
+ */
+public class WeightedCache implements Cache {
+
+    private final Cache delegate;
+    /**
+     * 每个key的估算大小
+     */
+    private final ConcurrentMap<Object, Weight> weights = new ConcurrentHashMap<Object, Weight>();
+    /**
+     * 按加入顺序排列的时钟，被访问过的条目会重新排到队尾
+     */
+    private final Queue<Weight> clock = new ConcurrentLinkedQueue<Weight>();
+    /**
+     * 写入、未命中和回收时加锁，命中不加锁
+     */
+    private final Lock lock = new ReentrantLock();
+    private volatile long totalWeight;
+    /**
+     * 上次清理时钟后移除的条目数
+     */
+    private int removalsSinceSweep;
+    /**
+     * 最大字节数，默认64MB
+     */
+    private long maxWeight = 64 * 1024 * 1024;
+    /**
+     * 最大条目数，默认不限制
+     */
+    private int size = Integer.MAX_VALUE;
+
+    public WeightedCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        lock.lock();
+        try {
+            this.maxWeight = maxWeight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setSize(int size) {
+        lock.lock();
+        try {
+            this.size = size;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        // 在锁外估算大小
+        final long weight = RetainedSizeEstimator.estimate(value);
+        lock.lock();
+        try {
+            removeWeight(key);
+            if (weight > maxWeight) {
+                delegate.removeObject(key);
+                return;
+            }
+            delegate.putObject(key, value);
+            final Weight entry = new Weight(key, weight);
+            weights.put(key, entry);
+            clock.add(entry);
+            totalWeight += weight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        final Object value = delegate.getObject(key);
+        if (value != null) {
+            final Weight entry = weights.get(key);
+            // 已经标记过的热点条目不再写入，避免多个CPU争用同一缓存行
+            if (entry != null && !entry.referenced) {
+                entry.referenced = true;
+            }
+            return value;
+        }
+        if (weights.containsKey(key)) {
+            lock.lock();
+            try {
+                // 下层过期或回收的条目不再占用大小，同时放入的值要保留它的大小
+                if (delegate.getObject(key) == null) {
+                    removeWeight(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        lock.lock();
+        try {
+            removeWeight(key);
+            return delegate.removeObject(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            weights.clear();
+            clock.clear();
+            removalsSinceSweep = 0;
+            totalWeight = 0;
+            delegate.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return delegate.equals(obj);
+    }
+
+    /**
+     * 持有锁时调用，移除的条目只做标记，时钟指针经过时跳过
+     */
+    private void removeWeight(Object key) {
+        final Weight previous = weights.remove(key);
+        if (previous != null) {
+            previous.removed = true;
+            totalWeight -= previous.weight;
+            if (++removalsSinceSweep > weights.size()) {
+                sweep();
+            }
+        }
+    }
+
+    private void sweep() {
+        removalsSinceSweep = 0;
+        for (Iterator<Weight> iterator = clock.iterator(); iterator.hasNext();) {
+            if (iterator.next().removed) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 持有锁时调用
+     */
+    private void evict() {
+        // 最多转一圈，即使读线程不断标记条目也能结束
+        int secondChances = weights.size();
+        while (totalWeight > maxWeight || weights.size() > size) {
+            final Weight entry = clock.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.removed) {
+                continue;
+            }
+            if (entry.referenced && secondChances-- > 0) {
+                // second chance
+                entry.referenced = false;
+                clock.add(entry);
+            } else if (weights.remove(entry.key, entry)) {
+                entry.removed = true;
+                totalWeight -= entry.weight;
+                delegate.removeObject(entry.key);
+            }
+        }
+    }
+
+    private static final class Weight {
+
+        private final Object key;
+        private final long weight;
+        private volatile boolean referenced;
+        private volatile boolean removed;
+
+        Weight(Object key, long weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+
+    }
+
+}
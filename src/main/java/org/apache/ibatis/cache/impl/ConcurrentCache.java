@@ -0,0 +1,237 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A cache that many threads can read at the same time, for namespaces that are read much more than written.
+ * 支持并发读取的缓存，不需要SynchronizedCache加锁，自己按近似LRU回收
+ * <p>
+ * Reads are lock free. Entries are evicted with the CLOCK algorithm, an approximation of LRU:
+ * a read only marks the entry as referenced, and the writer that exceeds the size walks the entries
+ * in insertion order, giving referenced entries a second chance and evicting the first one that was not read
+ * since it was last visited. A removed entry is only marked, the hand skips it and a sweep unlinks it
+ * once as many entries were removed as the cache holds.
+ * CacheBuilder does not wrap this cache in SynchronizedCache nor in the eviction decorator.
+ */
+public class ConcurrentCache implements Cache {
+
+    private final String id;
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+    /**
+     * 按加入顺序排列的时钟，被访问过的条目会重新排到队尾
+     */
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger count = new AtomicInteger();
+    /**
+     * 上次清理时钟后移除的条目数，移除的条目只做标记，时钟指针经过时跳过
+     */
+    private final AtomicInteger removalsSinceSweep = new AtomicInteger();
+    /**
+     * 只有回收和清空时加锁，读写不加锁
+     */
+    private final Lock evictionLock = new ReentrantLock();
+    private volatile int size = 1024;
+
+    public ConcurrentCache(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+        evict();
+    }
+
+    @Override
+    public int getSize() {
+        return count.get();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.value = value;
+            entry.referenced = true;
+            return;
+        }
+        entry = new Entry(key, value);
+        final Entry previous = entries.putIfAbsent(key, entry);
+        if (previous != null) {
+            previous.value = value;
+            previous.referenced = true;
+            return;
+        }
+        count.incrementAndGet();
+        clock.add(entry);
+        if (count.get() > size) {
+            evict();
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        // 已经标记过的热点条目不再写入，避免多个CPU争用同一缓存行
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        final Entry entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        count.decrementAndGet();
+        entry.removed = true;
+        // 没有回收时指针不动，移除的条目由清理摘除，时钟不会无限增长
+        if (removalsSinceSweep.incrementAndGet() > size) {
+            sweep();
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for (Entry entry = clock.poll(); entry != null; entry = clock.poll()) {
+                if (entries.remove(entry.key, entry)) {
+                    count.decrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    /**
+     * 只有一个线程进行回收，其他写线程不等待
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            // 最多转一圈，即使读线程不断标记条目也能结束
+            int secondChances = count.get();
+            while (count.get() > size) {
+                final Entry entry = clock.poll();
+                if (entry == null) {
+                    return;
+                }
+                if (entry.removed) {
+                    continue;
+                }
+                if (entry.referenced && secondChances-- > 0) {
+                    // second chance
+                    entry.referenced = false;
+                    clock.add(entry);
+                } else if (entries.remove(entry.key, entry)) {
+                    count.decrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 从时钟中摘除已经移除的条目
+     */
+    private void sweep() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            removalsSinceSweep.set(0);
+            for (Iterator<Entry> iterator = clock.iterator(); iterator.hasNext();) {
+                if (iterator.next().removed) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (getId() == null) {
+            throw new CacheException("Cache instances require an ID.");
+        }
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cache)) {
+            return false;
+        }
+
+        Cache otherCache = (Cache) o;
+        return getId().equals(otherCache.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        if (getId() == null) {
+            throw new CacheException("Cache instances require an ID.");
+        }
+        return getId().hashCode();
+    }
+
+    private static final class Entry {
+
+        private final Object key;
+        private volatile Object value;
+        private volatile boolean referenced;
+        private volatile boolean removed;
+
+        Entry(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,504 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Serializer;
+import org.apache.ibatis.io.Serializers;
+
+/**
+ * A cache that keeps serialized values outside of the Java heap, for large caches that should not grow the old
+ * generation and the full GC pauses.
+ * 把序列化后的值保存在堆外内存中，只有索引留在堆上
+ * <p>
+ * Memory is allocated in slabs of {@code slabSize} bytes, either direct buffers or, when {@code directory} is set,
+ * regions of a temporary file mapped into memory, until {@code capacity} bytes are allocated. Each slab is cut
+ * into chunks of one size class, the classes grow from 64 bytes by a factor of 1.25 up to the slab size, and a value
+ * is stored in one chunk of the smallest class it fits in. When a class has no free chunk and no slab is left its
+ * least recently used entries are evicted. Slabs whose entries are all gone go back to the pool for any class.
+ * Values larger than a slab are not cached.
+ * <p>
+ * Values are stored with the serializer of the configuration, or the one set in {@link Serializers} when the cache
+ * is created outside of a configuration.
+ * Every read returns a new copy, so CacheBuilder does not wrap this cache in SerializedCache nor in SynchronizedCache.
+ * The memory is released when the cache is garbage collected.
+ */
+public class OffHeapCache implements Cache {
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+
+    private final String id;
+    private volatile Serializer serializer = Serializers.getDefault();
+    /**
+     * 只在操作索引和拷贝字节时加锁，序列化和反序列化在锁外进行
+     */
+    private final Lock lock = new ReentrantLock();
+    private final Map<Object, Entry> index = new HashMap<Object, Entry>();
+    private final List<Slab> slabs = new ArrayList<Slab>();
+    private final List<Slab> freeSlabs = new ArrayList<Slab>();
+    private SlabClass[] classes;
+    private RandomAccessFile file;
+
+    private long capacity = 64L * 1024 * 1024;
+    private int slabSize = 1024 * 1024;
+    private String directory;
+
+    public OffHeapCache(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 设置最多分配的堆外内存字节数，已缓存的条目会被清空
+     */
+    public void setCapacity(long capacity) {
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void setSlabSize(int slabSize) {
+        if (slabSize < MIN_CHUNK_SIZE) {
+            throw new CacheException("The slab size of cache " + id + " must be at least " + MIN_CHUNK_SIZE + " bytes.");
+        }
+        lock.lock();
+        try {
+            this.slabSize = slabSize;
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * 设置后从该目录下的临时文件映射内存，而不是分配直接缓冲区
+     */
+    public void setDirectory(String directory) {
+        lock.lock();
+        try {
+            this.directory = directory;
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 已保存的值是用原来的序列化器写入的，所以会被清空
+     */
+    public void setSerializer(Serializer serializer) {
+        lock.lock();
+        try {
+            this.serializer = serializer;
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Returns the number of bytes allocated off the heap so far.
+     */
+    public long getAllocatedBytes() {
+        lock.lock();
+        try {
+            return (long) slabs.size() * slabSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        final byte[] bytes = serialize(value);
+        lock.lock();
+        try {
+            remove(key);
+            final SlabClass slabClass = classFor(bytes.length);
+            if (slabClass == null) {
+                // 大于一个slab的值不缓存
+                return;
+            }
+            final Slab slab = allocate(slabClass);
+            if (slab == null) {
+                return;
+            }
+            final Entry entry = new Entry(slab, slab.take(), bytes.length);
+            final ByteBuffer buffer = slab.buffer.duplicate();
+            buffer.position(entry.chunk * slab.chunkSize);
+            buffer.put(bytes);
+            index.put(key, entry);
+            slabClass.entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        final byte[] bytes;
+        lock.lock();
+        try {
+            final Entry entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            // 更新所在尺寸级别的LRU顺序
+            entry.slab.owner.entries.get(key);
+            bytes = new byte[entry.length];
+            final ByteBuffer buffer = entry.slab.buffer.duplicate();
+            buffer.position(entry.chunk * entry.slab.chunkSize);
+            buffer.get(bytes);
+        } finally {
+            lock.unlock();
+        }
+        return deserialize(bytes);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        lock.lock();
+        try {
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+        // the core ignores the removed value, it is not worth deserializing
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            for (Entry entry : index.values()) {
+                entry.slab.release(entry.chunk);
+            }
+            index.clear();
+            if (classes != null) {
+                for (SlabClass slabClass : classes) {
+                    slabClass.entries.clear();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    private void remove(Object key) {
+        final Entry entry = index.remove(key);
+        if (entry != null) {
+            entry.slab.owner.entries.remove(key);
+            entry.slab.release(entry.chunk);
+        }
+    }
+
+    /**
+     * Returns a slab of the class with a free chunk, evicting entries if all memory is in use.
+     */
+    private Slab allocate(SlabClass slabClass) {
+        while (true) {
+            if (!slabClass.partialSlabs.isEmpty()) {
+                return slabClass.partialSlabs.get(slabClass.partialSlabs.size() - 1);
+            }
+            final Slab slab = newSlab();
+            if (slab != null) {
+                slab.assign(slabClass);
+                continue;
+            }
+            // 本级别没有条目时，从占用slab最多的级别回收，直到有slab被整个释放
+            final SlabClass victim = slabClass.entries.isEmpty() ? largestClass() : slabClass;
+            if (victim == null || victim.entries.isEmpty()) {
+                return null;
+            }
+            final Iterator<Map.Entry<Object, Entry>> eldest = victim.entries.entrySet().iterator();
+            final Map.Entry<Object, Entry> evicted = eldest.next();
+            eldest.remove();
+            index.remove(evicted.getKey());
+            evicted.getValue().slab.release(evicted.getValue().chunk);
+        }
+    }
+
+    private Slab newSlab() {
+        if (!freeSlabs.isEmpty()) {
+            return freeSlabs.remove(freeSlabs.size() - 1);
+        }
+        if (slabs.size() >= Math.max(1, capacity / slabSize)) {
+            return null;
+        }
+        final Slab slab = new Slab(allocateBuffer(slabs.size()));
+        slabs.add(slab);
+        return slab;
+    }
+
+    private ByteBuffer allocateBuffer(int slabIndex) {
+        if (directory == null) {
+            return ByteBuffer.allocateDirect(slabSize);
+        }
+        try {
+            if (file == null) {
+                final File mapped = File.createTempFile("mybatis-cache-", ".slabs", new File(directory));
+                mapped.deleteOnExit();
+                file = new RandomAccessFile(mapped, "rw");
+            }
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) slabIndex * slabSize, slabSize);
+        } catch (IOException e) {
+            throw new CacheException("Error mapping memory for cache " + id + " in " + directory + ".  Cause: " + e, e);
+        }
+    }
+
+    private SlabClass largestClass() {
+        SlabClass largest = null;
+        for (SlabClass slabClass : classes) {
+            if (largest == null || slabClass.slabCount > largest.slabCount) {
+                largest = slabClass;
+            }
+        }
+        return largest;
+    }
+
+    private SlabClass classFor(int length) {
+        if (classes == null) {
+            classes = createClasses();
+        }
+        if (length > slabSize) {
+            return null;
+        }
+        int low = 0;
+        int high = classes.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (classes[middle].chunkSize < length) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return classes[low];
+    }
+
+    private SlabClass[] createClasses() {
+        final List<SlabClass> created = new ArrayList<SlabClass>();
+        int chunkSize = MIN_CHUNK_SIZE;
+        while (chunkSize <= slabSize / 2) {
+            created.add(new SlabClass(chunkSize));
+            // 按8字节对齐
+            chunkSize = ((int) (chunkSize * GROWTH_FACTOR) + 7) & ~7;
+        }
+        created.add(new SlabClass(slabSize));
+        return created.toArray(new SlabClass[created.size()]);
+    }
+
+    /**
+     * 丢弃所有条目和已分配的内存，用于修改配置之后
+     */
+    private void reset() {
+        index.clear();
+        slabs.clear();
+        freeSlabs.clear();
+        classes = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            file = null;
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        if (value != null && !(value instanceof Serializable)) {
+            throw new CacheException("OffHeapCache failed to store a non-serializable object: " + value);
+        }
+        try {
+            return serializer.serialize(value);
+        } catch (Exception e) {
+            throw new CacheException("Error serializing object.  Cause: " + e, e);
+        }
+    }
+
+    private Object deserialize(byte[] value) {
+        try {
+            return serializer.deserialize(value);
+        } catch (Exception e) {
+            throw new CacheException("Error deserializing object.  Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (getId() == null) {
+            throw new CacheException("Cache instances require an ID.");
+        }
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cache)) {
+            return false;
+        }
+
+        Cache otherCache = (Cache) o;
+        return getId().equals(otherCache.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        if (getId() == null) {
+            throw new CacheException("Cache instances require an ID.");
+        }
+        return getId().hashCode();
+    }
+
+    /**
+     * 同一尺寸级别的slab和按访问顺序排列的条目
+     */
+    private static final class SlabClass {
+
+        private final int chunkSize;
+        private final List<Slab> partialSlabs = new ArrayList<Slab>();
+        private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+        private int slabCount;
+
+        SlabClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+    }
+
+    private final class Slab {
+
+        private final ByteBuffer buffer;
+        private SlabClass owner;
+        private int chunkSize;
+        private int chunkCount;
+        private int[] freeChunks;
+        private int freeCount;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void assign(SlabClass slabClass) {
+            owner = slabClass;
+            chunkSize = slabClass.chunkSize;
+            chunkCount = slabSize / chunkSize;
+            freeChunks = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                freeChunks[i] = chunkCount - 1 - i;
+            }
+            freeCount = chunkCount;
+            slabClass.slabCount++;
+            slabClass.partialSlabs.add(this);
+        }
+
+        int take() {
+            final int chunk = freeChunks[--freeCount];
+            if (freeCount == 0) {
+                // the partial slab in use is always the last one
+                owner.partialSlabs.remove(owner.partialSlabs.size() - 1);
+            }
+            return chunk;
+        }
+
+        void release(int chunk) {
+            freeChunks[freeCount++] = chunk;
+            if (freeCount == 1) {
+                owner.partialSlabs.add(this);
+            }
+            if (freeCount == chunkCount) {
+                // 整个slab空闲后交还给所有级别共用
+                owner.partialSlabs.remove(this);
+                owner.slabCount--;
+                owner = null;
+                freeSlabs.add(this);
+            }
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Slab slab;
+        private final int chunk;
+        private final int length;
+
+        Entry(Slab slab, int chunk, int length) {
+            this.slab = slab;
+            this.chunk = chunk;
+            this.length = length;
+        }
+
+    }
+
+}
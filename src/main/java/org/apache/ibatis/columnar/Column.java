@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+/**
+ * The values of one column of a {@link ColumnarResult}, in row order.
+ * Subclasses keep the values in a primitive array so numeric columns are not boxed.
+ */
+public abstract class Column {
+
+  protected static final int INITIAL_CAPACITY = 64;
+
+  private final String name;
+  private final BitSet nulls = new BitSet();
+  protected int size;
+
+  protected Column(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isNull(int row) {
+    checkRow(row);
+    return nulls.get(row);
+  }
+
+  /**
+   * @return the value of a row boxed or null if it is SQL NULL
+   */
+  public abstract Object getValue(int row);
+
+  /**
+   * Reads the value of this column in the current row of a result set and appends it.
+   */
+  abstract void read(ResultSet rs, int columnIndex) throws SQLException;
+
+  /**
+   * Shrinks the arrays to the number of rows once the whole result set has been read.
+   */
+  abstract void trim();
+
+  void setNull(int row) {
+    nulls.set(row);
+  }
+
+  protected void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of column " + name + " with " + size + " rows");
+    }
+  }
+
+  protected static int grow(int capacity) {
+    return capacity < INITIAL_CAPACITY ? INITIAL_CAPACITY : capacity + (capacity >> 1);
+  }
+
+}
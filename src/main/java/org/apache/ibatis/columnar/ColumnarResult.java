@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.columnar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of a select with resultType="columnar". Values are stored by column instead of by row:
+ * integer, bigint and floating point columns in primitive arrays and character columns dictionary encoded,
+ * so large numeric results take about the size of their raw data.
+ */
+public class ColumnarResult {
+
+  private final List<Column> columns;
+  private final int rowCount;
+
+  ColumnarResult(List<Column> columns, int rowCount) {
+    this.columns = Collections.unmodifiableList(new ArrayList<Column>(columns));
+    this.rowCount = rowCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getColumnCount() {
+    return columns.size();
+  }
+
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  public List<String> getColumnNames() {
+    final List<String> names = new ArrayList<String>(columns.size());
+    for (Column column : columns) {
+      names.add(column.getName());
+    }
+    return names;
+  }
+
+  /**
+   * @param index 0-based column index
+   */
+  public Column getColumn(int index) {
+    return columns.get(index);
+  }
+
+  /**
+   * @param name column name, not case sensitive
+   */
+  public Column getColumn(String name) {
+    for (Column column : columns) {
+      if (column.getName().equalsIgnoreCase(name)) {
+        return column;
+      }
+    }
+    throw new IllegalArgumentException("No column named " + name + " in " + getColumnNames());
+  }
+
+  public int[] getInts(String name) {
+    return getColumn(name, IntColumn.class).getValues();
+  }
+
+  public long[] getLongs(String name) {
+    return getColumn(name, LongColumn.class).getValues();
+  }
+
+  public double[] getDoubles(String name) {
+    return getColumn(name, DoubleColumn.class).getValues();
+  }
+
+  public StringColumn getStrings(String name) {
+    return getColumn(name, StringColumn.class);
+  }
+
+  private <T extends Column> T getColumn(String name, Class<T> type) {
+    final Column column = getColumn(name);
+    if (!type.isInstance(column)) {
+      throw new IllegalArgumentException("Column " + name + " is a " + column.getClass().getSimpleName() + ", not a "
+          + type.getSimpleName().toLowerCase(Locale.ENGLISH));
+    }
+    return type.cast(column);
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads rows of a result set into a {@link ColumnarResult}. The kind of each column is chosen from
+ * its JDBC type and values are read by index, without type handlers.
+ */
+public class ColumnarResultBuilder {
+
+  private final List<Column> columns = new ArrayList<Column>();
+  private int rowCount;
+
+  public ColumnarResultBuilder(List<String> columnNames, ResultSetMetaData metaData) throws SQLException {
+    for (int i = 0; i < columnNames.size(); i++) {
+      columns.add(newColumn(columnNames.get(i), metaData, i + 1));
+    }
+  }
+
+  /**
+   * Appends the current row of the result set.
+   */
+  public void addRow(ResultSet rs) throws SQLException {
+    for (int i = 0, n = columns.size(); i < n; i++) {
+      columns.get(i).read(rs, i + 1);
+    }
+    rowCount++;
+  }
+
+  public ColumnarResult build() {
+    for (Column column : columns) {
+      column.trim();
+    }
+    return new ColumnarResult(columns, rowCount);
+  }
+
+  private Column newColumn(String name, ResultSetMetaData metaData, int columnIndex) throws SQLException {
+    switch (metaData.getColumnType(columnIndex)) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return new IntColumn(name);
+      case Types.BIGINT:
+        return new LongColumn(name);
+      case Types.REAL:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return new DoubleColumn(name);
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        // exact decimals only become primitives when no digit is lost
+        if (metaData.getScale(columnIndex) == 0 && metaData.getPrecision(columnIndex) > 0 && metaData.getPrecision(columnIndex) <= 18) {
+          return new LongColumn(name);
+        }
+        return new ObjectColumn(name);
+      case Types.CHAR:
+      case Types.VARCHAR:
+      case Types.LONGVARCHAR:
+      case Types.NCHAR:
+      case Types.NVARCHAR:
+      case Types.LONGNVARCHAR:
+        return new StringColumn(name);
+      default:
+        return new ObjectColumn(name);
+    }
+  }
+
+}
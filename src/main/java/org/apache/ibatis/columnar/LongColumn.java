@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A column of long values kept in a long[]. Rows that are SQL NULL hold 0.
+ */
+public class LongColumn extends Column {
+
+  private long[] values = new long[INITIAL_CAPACITY];
+
+  LongColumn(String name) {
+    super(name);
+  }
+
+  public long getLong(int row) {
+    checkRow(row);
+    return values[row];
+  }
+
+  /**
+   * @return the values of all rows, the array is not copied
+   */
+  public long[] getValues() {
+    return values;
+  }
+
+  @Override
+  public Object getValue(int row) {
+    return isNull(row) ? null : values[row];
+  }
+
+  @Override
+  void read(ResultSet rs, int columnIndex) throws SQLException {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, grow(values.length));
+    }
+    values[size] = rs.getLong(columnIndex);
+    if (rs.wasNull()) {
+      setNull(size);
+    }
+    size++;
+  }
+
+  @Override
+  void trim() {
+    if (values.length != size) {
+      values = Arrays.copyOf(values, size);
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A column of values that have no primitive representation, like dates or LOBs, read with getObject.
+ */
+public class ObjectColumn extends Column {
+
+  private final ArrayList<Object> values = new ArrayList<Object>(INITIAL_CAPACITY);
+
+  ObjectColumn(String name) {
+    super(name);
+  }
+
+  public List<Object> getValues() {
+    return values;
+  }
+
+  @Override
+  public Object getValue(int row) {
+    checkRow(row);
+    return values.get(row);
+  }
+
+  @Override
+  void read(ResultSet rs, int columnIndex) throws SQLException {
+    final Object value = rs.getObject(columnIndex);
+    if (value == null) {
+      setNull(size);
+    }
+    values.add(value);
+    size++;
+  }
+
+  @Override
+  void trim() {
+    values.trimToSize();
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary encoded column of strings. Each distinct string is kept once in the dictionary
+ * and rows hold its code, -1 for SQL NULL.
+ */
+public class StringColumn extends Column {
+
+  private int[] codes = new int[INITIAL_CAPACITY];
+  private final List<String> dictionary = new ArrayList<String>();
+  private Map<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+
+  StringColumn(String name) {
+    super(name);
+  }
+
+  public String getString(int row) {
+    final int code = getCode(row);
+    return code < 0 ? null : dictionary.get(code);
+  }
+
+  public int getCode(int row) {
+    checkRow(row);
+    return codes[row];
+  }
+
+  /**
+   * @return the codes of all rows, the array is not copied
+   */
+  public int[] getCodes() {
+    return codes;
+  }
+
+  /**
+   * @return the distinct strings of the column, indexed by code
+   */
+  public List<String> getDictionary() {
+    return Collections.unmodifiableList(dictionary);
+  }
+
+  @Override
+  public Object getValue(int row) {
+    return getString(row);
+  }
+
+  @Override
+  void read(ResultSet rs, int columnIndex) throws SQLException {
+    if (size == codes.length) {
+      codes = Arrays.copyOf(codes, grow(codes.length));
+    }
+    final String value = rs.getString(columnIndex);
+    if (value == null) {
+      codes[size] = -1;
+      setNull(size);
+    } else {
+      Integer code = dictionaryCodes.get(value);
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.add(value);
+        dictionaryCodes.put(value, code);
+      }
+      codes[size] = code;
+    }
+    size++;
+  }
+
+  @Override
+  void trim() {
+    if (codes.length != size) {
+      codes = Arrays.copyOf(codes, size);
+    }
+    // the codes are only needed while reading
+    dictionaryCodes = null;
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.paging.PagedRowBounds;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetWrapper;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * This is the default implementation of a MyBatis Cursor.
+ * Rows are mapped one object at a time by the DefaultResultSetHandler that created the cursor.
+ * The cursor owns the result set and its statement and closes both once it is consumed or closed.
+ */
+public class DefaultCursor<T> implements Cursor<T> {
+
+  private final DefaultResultSetHandler resultSetHandler;
+  private final ResultMap resultMap;
+  private final ResultSetWrapper rsw;
+  private final RowBounds rowBounds;
+  private final int firstRowIndex;
+  private final ObjectWrapperResultHandler objectWrapperResultHandler = new ObjectWrapperResultHandler();
+
+  private final CursorIterator cursorIterator = new CursorIterator();
+  private boolean iteratorRetrieved;
+  private boolean rowsSkipped;
+  private int fetchedCount;
+
+  private CursorStatus status = CursorStatus.CREATED;
+
+  private enum CursorStatus {
+
+    /**
+     * A freshly created cursor, database ResultSet consuming has not started
+     */
+    CREATED,
+    /**
+     * A cursor currently in use, database ResultSet consuming has started
+     */
+    OPEN,
+    /**
+     * A closed cursor, not fully consumed
+     */
+    CLOSED,
+    /**
+     * A fully consumed cursor, a consumed cursor is always closed
+     */
+    CONSUMED
+  }
+
+  public DefaultCursor(DefaultResultSetHandler resultSetHandler, ResultMap resultMap, ResultSetWrapper rsw, RowBounds rowBounds) {
+    this.resultSetHandler = resultSetHandler;
+    this.resultMap = resultMap;
+    this.rsw = rsw;
+    this.rowBounds = rowBounds;
+    // rows of a page the database skipped to still count from the offset
+    this.firstRowIndex = rowBounds instanceof PagedRowBounds ? ((PagedRowBounds) rowBounds).getFirstRowIndex() : rowBounds.getOffset();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return status == CursorStatus.OPEN;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return status == CursorStatus.CONSUMED;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return cursorIterator.iteratorIndex < 0 ? -1 : firstRowIndex + cursorIterator.iteratorIndex;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    iteratorRetrieved = true;
+    return cursorIterator;
+  }
+
+  @Override
+  public void close() {
+    if (isClosed()) {
+      return;
+    }
+    closeResultSetAndStatement();
+    status = CursorStatus.CLOSED;
+  }
+
+  private boolean isClosed() {
+    return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
+  }
+
+  private boolean fetchNextObjectFromDatabase() {
+    if (isClosed()) {
+      return false;
+    }
+    if (rsw == null || fetchedCount >= rowBounds.getLimit()) {
+      markConsumed();
+      return false;
+    }
+    status = CursorStatus.OPEN;
+    objectWrapperResultHandler.reset();
+    try {
+      // the offset is applied by the result set handler on the very first fetch only
+      final RowBounds fetchRowBounds = rowsSkipped ? RowBounds.DEFAULT : new RowBounds(rowBounds.getOffset(), RowBounds.NO_ROW_LIMIT);
+      rowsSkipped = true;
+      resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, fetchRowBounds, null);
+    } catch (SQLException e) {
+      closeResultSetAndStatement();
+      status = CursorStatus.CLOSED;
+      throw ExceptionFactory.wrapException("Error fetching next object from cursor.  Cause: " + e, e);
+    }
+    if (!objectWrapperResultHandler.fetched) {
+      markConsumed();
+      return false;
+    }
+    fetchedCount++;
+    return true;
+  }
+
+  private void markConsumed() {
+    closeResultSetAndStatement();
+    status = CursorStatus.CONSUMED;
+  }
+
+  private void closeResultSetAndStatement() {
+    if (rsw == null) {
+      return;
+    }
+    final ResultSet rs = rsw.getResultSet();
+    try {
+      final Statement statement = rs.getStatement();
+      rs.close();
+      if (statement != null) {
+        statement.close();
+      }
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  private static class ObjectWrapperResultHandler implements ResultHandler {
+
+    private Object result;
+    private boolean fetched;
+
+    public void handleResult(ResultContext context) {
+      this.result = context.getResultObject();
+      this.fetched = true;
+      context.stop();
+    }
+
+    void reset() {
+      this.result = null;
+      this.fetched = false;
+    }
+
+  }
+
+  private class CursorIterator implements Iterator<T> {
+
+    /**
+     * Holder for the next object to be returned
+     */
+    private T object;
+    private boolean hasObject;
+
+    /**
+     * Index of objects returned using next(), and as such, visible to users.
+     */
+    private int iteratorIndex = -1;
+
+    @Override
+    public boolean hasNext() {
+      if (!hasObject && fetchNextObjectFromDatabase()) {
+        @SuppressWarnings("unchecked")
+        final T fetched = (T) objectWrapperResultHandler.result;
+        object = fetched;
+        hasObject = true;
+      }
+      return hasObject;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final T next = object;
+      object = null;
+      hasObject = false;
+      iteratorIndex++;
+      return next;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+
+  }
+
+}
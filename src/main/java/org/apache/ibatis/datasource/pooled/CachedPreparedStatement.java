@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A PreparedStatement of the {@link PreparedStatementCache} while it is in use.
+ * Closing it resets the statement and gives it back to its {@link PooledConnection} instead of closing it.
+ */
+class CachedPreparedStatement implements InvocationHandler {
+
+  private static final Class<?>[] IFACES = new Class<?>[] { PreparedStatement.class };
+
+  private final PooledConnection connection;
+  private final String key;
+  private final PreparedStatement statement;
+  private boolean closed;
+  private boolean batched;
+  // the settings before this user changed them, restored when the statement goes back to the cache
+  private Integer queryTimeout;
+  private Integer fetchSize;
+  private Integer maxRows;
+
+  private CachedPreparedStatement(PooledConnection connection, String key, PreparedStatement statement) {
+    this.connection = connection;
+    this.key = key;
+    this.statement = statement;
+  }
+
+  static PreparedStatement newInstance(PooledConnection connection, String key, PreparedStatement statement) {
+    InvocationHandler handler = new CachedPreparedStatement(connection, key, statement);
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES, handler);
+  }
+
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    final String methodName = method.getName();
+    if (Object.class.equals(method.getDeclaringClass())) {
+      return method.invoke(this, args);
+    }
+    if ("close".equals(methodName)) {
+      if (!closed) {
+        closed = true;
+        connection.returnStatement(key, statement, reset());
+      }
+      return null;
+    }
+    if ("isClosed".equals(methodName)) {
+      return closed;
+    }
+    if (closed) {
+      throw new SQLException("Error accessing PreparedStatement. Statement is closed.");
+    }
+    if ("setQueryTimeout".equals(methodName) && queryTimeout == null) {
+      queryTimeout = statement.getQueryTimeout();
+    } else if ("setFetchSize".equals(methodName) && fetchSize == null) {
+      fetchSize = statement.getFetchSize();
+    } else if ("setMaxRows".equals(methodName) && maxRows == null) {
+      maxRows = statement.getMaxRows();
+    } else if ("addBatch".equals(methodName)) {
+      batched = true;
+    }
+    try {
+      return method.invoke(statement, args);
+    } catch (Throwable t) {
+      throw ExceptionUtil.unwrapThrowable(t);
+    }
+  }
+
+  /*
+   * Prepares the statement for its next user
+   *
+   * @return false if the statement cannot be reused, e.g. because it was closed through its result set
+   */
+  private boolean reset() {
+    try {
+      statement.clearParameters();
+      if (batched) {
+        statement.clearBatch();
+      }
+      if (queryTimeout != null) {
+        statement.setQueryTimeout(queryTimeout);
+      }
+      if (fetchSize != null) {
+        statement.setFetchSize(fetchSize);
+      }
+      if (maxRows != null) {
+        statement.setMaxRows(maxRows);
+      }
+      statement.clearWarnings();
+      return true;
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+}
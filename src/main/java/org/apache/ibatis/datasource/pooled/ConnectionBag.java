@@ -0,0 +1,270 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the idle and active connections of a {@link PooledDataSource} without a global lock.
+ * <p>
+ * A checkout first tries the connection the calling thread returned last, then the shared queue of idle
+ * connections. Each connection is claimed with a compare and set of its state, so a connection that is
+ * remembered by one thread and taken from the queue by another is still handed out once. Only threads that
+ * find neither an idle connection nor room for a new one take the lock, to wait for a connection to come back.
+ */
+public class ConnectionBag {
+
+  private final ConcurrentLinkedQueue<PooledConnection> idleConnections = new ConcurrentLinkedQueue<PooledConnection>();
+  private final ConcurrentLinkedQueue<PooledConnection> activeConnections = new ConcurrentLinkedQueue<PooledConnection>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicInteger activeCount = new AtomicInteger();
+  private final ThreadLocal<WeakReference<PooledConnection>> lastReturned = new ThreadLocal<WeakReference<PooledConnection>>();
+
+  // changes whenever a connection or room for one becomes available, see awaitConnection
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition connectionAvailable = lock.newCondition();
+
+  public int getIdleCount() {
+    return idleCount.get();
+  }
+
+  /*
+   * Connections handed out plus the ones being opened
+   */
+  public int getActiveCount() {
+    return activeCount.get();
+  }
+
+  /*
+   * Takes an idle connection, preferring the one this thread returned last
+   *
+   * @return the connection, now in use, or null if there is no idle connection
+   */
+  PooledConnection takeIdle() {
+    final WeakReference<PooledConnection> reference = lastReturned.get();
+    if (reference != null) {
+      lastReturned.set(null);
+      final PooledConnection candidate = reference.get();
+      if (candidate != null && candidate.markInUse()) {
+        idleConnections.remove(candidate);
+        return taken(candidate);
+      }
+    }
+    PooledConnection conn;
+    while ((conn = idleConnections.poll()) != null) {
+      // connections claimed through the thread affinity are left behind in the queue
+      if (conn.markInUse()) {
+        return taken(conn);
+      }
+    }
+    return null;
+  }
+
+  private PooledConnection taken(PooledConnection conn) {
+    idleCount.decrementAndGet();
+    activeCount.incrementAndGet();
+    return conn;
+  }
+
+  /*
+   * Makes room for a connection about to be opened, unless maximumActive connections are already active
+   */
+  boolean reserveActive(int maximumActive) {
+    for (;;) {
+      final int count = activeCount.get();
+      if (count >= maximumActive) {
+        return false;
+      }
+      if (activeCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /*
+   * Registers a connection taken by takeIdle or opened after reserveActive
+   */
+  void addActive(PooledConnection conn) {
+    // fresh connections start idle
+    conn.markInUse();
+    activeConnections.add(conn);
+  }
+
+  /*
+   * Gives up the active slot of a connection that was removed, discarded or never opened
+   */
+  void freeActive() {
+    activeCount.decrementAndGet();
+    signalConnectionAvailable();
+  }
+
+  /*
+   * Removes a connection from the active ones. Its owner returning it and the pool reclaiming it may race,
+   * only one of them gets true and must then call freeActive or hand the slot over.
+   */
+  boolean removeActive(PooledConnection conn) {
+    if (!conn.markReturned()) {
+      return false;
+    }
+    activeConnections.remove(conn);
+    return true;
+  }
+
+  /*
+   * The connection that has been checked out for the longest time, or null
+   */
+  PooledConnection peekOldestActive() {
+    return activeConnections.peek();
+  }
+
+  /*
+   * Removes the next active connection for closing, or returns null when there are none left
+   */
+  PooledConnection pollActive() {
+    PooledConnection conn;
+    while ((conn = activeConnections.poll()) != null) {
+      if (conn.markReturned()) {
+        activeCount.decrementAndGet();
+        return conn;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Removes the next idle connection for closing, or returns null when there are none left
+   */
+  PooledConnection pollIdle() {
+    PooledConnection conn;
+    while ((conn = idleConnections.poll()) != null) {
+      if (conn.markInUse()) {
+        idleCount.decrementAndGet();
+        return conn;
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Claims a connection found by getIdleSnapshot, unless it was checked out in the meantime
+   */
+  boolean claimIdle(PooledConnection conn) {
+    if (!conn.markInUse()) {
+      return false;
+    }
+    idleConnections.remove(conn);
+    idleCount.decrementAndGet();
+    return true;
+  }
+
+  List<PooledConnection> getIdleSnapshot() {
+    return new ArrayList<PooledConnection>(idleConnections);
+  }
+
+  List<PooledConnection> getActiveSnapshot() {
+    return new ArrayList<PooledConnection>(activeConnections);
+  }
+
+  /*
+   * Makes room for a returned connection, unless maximumIdle connections are already idle
+   */
+  boolean reserveIdle(int maximumIdle) {
+    for (;;) {
+      final int count = idleCount.get();
+      if (count >= maximumIdle) {
+        return false;
+      }
+      if (idleCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /*
+   * Adds a returned connection after reserveIdle and remembers it for the calling thread
+   */
+  void addIdle(PooledConnection conn) {
+    idleConnections.add(conn);
+    lastReturned.set(new WeakReference<PooledConnection>(conn));
+    signalConnectionAvailable();
+  }
+
+  /*
+   * Read before looking for a connection and passed to awaitConnection
+   */
+  long getSequence() {
+    return sequence.get();
+  }
+
+  /*
+   * Waits until a connection or room for one becomes available, unless that already happened since
+   * the sequence was read.
+   *
+   * @param millis the maximum time to wait, 0 or less to wait without a timeout
+   */
+  void awaitConnection(long sequenceRead, long millis) throws InterruptedException {
+    lock.lock();
+    try {
+      waiters.incrementAndGet();
+      try {
+        if (sequence.get() == sequenceRead) {
+          if (millis > 0) {
+            connectionAvailable.await(millis, TimeUnit.MILLISECONDS);
+          } else {
+            connectionAvailable.await();
+          }
+        }
+      } finally {
+        waiters.decrementAndGet();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void signalAllWaiters() {
+    sequence.incrementAndGet();
+    lock.lock();
+    try {
+      connectionAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void signalConnectionAvailable() {
+    sequence.incrementAndGet();
+    if (waiters.get() > 0) {
+      lock.lock();
+      try {
+        connectionAvailable.signal();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Periodically runs {@link PooledDataSource#housekeep()} on a daemon thread shared by all pools.
+ * The task only holds a weak reference to its pool and cancels itself once the pool is garbage collected.
+ */
+final class PoolHousekeeper implements Runnable {
+
+  private static final Log log = LogFactory.getLog(PoolHousekeeper.class);
+
+  private static ScheduledExecutorService scheduler;
+
+  private final WeakReference<PooledDataSource> dataSource;
+  private volatile ScheduledFuture<?> future;
+
+  private PoolHousekeeper(PooledDataSource dataSource) {
+    this.dataSource = new WeakReference<PooledDataSource>(dataSource);
+  }
+
+  static synchronized ScheduledFuture<?> schedule(PooledDataSource dataSource, long interval) {
+    if (scheduler == null) {
+      scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    final PoolHousekeeper housekeeper = new PoolHousekeeper(dataSource);
+    housekeeper.future = scheduler.scheduleWithFixedDelay(housekeeper, interval, interval, TimeUnit.MILLISECONDS);
+    return housekeeper.future;
+  }
+
+  public void run() {
+    final PooledDataSource pool = dataSource.get();
+    if (pool == null) {
+      if (future != null) {
+        future.cancel(false);
+      }
+      return;
+    }
+    try {
+      pool.housekeep();
+    } catch (RuntimeException e) {
+      // an exception would cancel all further runs
+      log.error("Housekeeping of the connection pool failed. Cause: " + e, e);
+    }
+  }
+
+}
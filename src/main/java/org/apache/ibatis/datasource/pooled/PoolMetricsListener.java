@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives the latencies measured by a {@link PooledDataSource}, e.g. to feed them to a metrics library.
+ * Methods are called on the thread that did the measured work and should return quickly.
+ */
+public interface PoolMetricsListener {
+
+  /*
+   * A getConnection call returned a connection after this many nanoseconds
+   */
+  void connectionAcquired(long waitNanos);
+
+  /*
+   * A connection was given back after being checked out for this many nanoseconds
+   */
+  void connectionReturned(long checkoutNanos);
+
+  /*
+   * The ping query took this many nanoseconds
+   */
+  void connectionPinged(long pingNanos, boolean success);
+
+  /*
+   * The database took this many nanoseconds to open a physical connection
+   */
+  void connectionCreated(long creationNanos);
+
+}
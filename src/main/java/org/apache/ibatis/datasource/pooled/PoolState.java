@@ -15,8 +15,7 @@
  */
 package org.apache.ibatis.datasource.pooled;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Clinton Begin
@@ -25,64 +24,139 @@ public class PoolState {
 
   protected PooledDataSource dataSource;
 
-  protected final List<PooledConnection> idleConnections = new ArrayList<PooledConnection>();
-  protected final List<PooledConnection> activeConnections = new ArrayList<PooledConnection>();
-  protected long requestCount = 0;
-  protected long accumulatedRequestTime = 0;
-  protected long accumulatedCheckoutTime = 0;
-  protected long claimedOverdueConnectionCount = 0;
-  protected long accumulatedCheckoutTimeOfOverdueConnections = 0;
-  protected long accumulatedWaitTime = 0;
-  protected long hadToWaitCount = 0;
-  protected long badConnectionCount = 0;
+  /*
+   * The idle and active connections. Checkouts and returns do not lock the pool,
+   * and the counters below are atomic so reading them does not slow the pool down either.
+   */
+  protected final ConnectionBag connections = new ConnectionBag();
+  protected final AtomicLong requestCount = new AtomicLong();
+  protected final AtomicLong accumulatedRequestTime = new AtomicLong();
+  protected final AtomicLong accumulatedCheckoutTime = new AtomicLong();
+  protected final AtomicLong claimedOverdueConnectionCount = new AtomicLong();
+  protected final AtomicLong accumulatedCheckoutTimeOfOverdueConnections = new AtomicLong();
+  protected final AtomicLong accumulatedWaitTime = new AtomicLong();
+  protected final AtomicLong hadToWaitCount = new AtomicLong();
+  protected final AtomicLong badConnectionCount = new AtomicLong();
+
+  /*
+   * Latencies in microseconds
+   */
+  protected final LatencyHistogram waitTime = new LatencyHistogram();
+  protected final LatencyHistogram checkoutTime = new LatencyHistogram();
+  protected final LatencyHistogram pingTime = new LatencyHistogram();
+  protected final LatencyHistogram creationTime = new LatencyHistogram();
+  protected volatile PoolMetricsListener metricsListener;
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
   }
 
-  public synchronized long getRequestCount() {
-    return requestCount;
+  public long getRequestCount() {
+    return requestCount.get();
   }
 
-  public synchronized long getAverageRequestTime() {
-    return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+  public long getAverageRequestTime() {
+    final long requests = requestCount.get();
+    return requests == 0 ? 0 : accumulatedRequestTime.get() / requests;
   }
 
-  public synchronized long getAverageWaitTime() {
-    return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+  public long getAverageWaitTime() {
+    final long waits = hadToWaitCount.get();
+    return waits == 0 ? 0 : accumulatedWaitTime.get() / waits;
+  }
 
+  public long getHadToWaitCount() {
+    return hadToWaitCount.get();
   }
 
-  public synchronized long getHadToWaitCount() {
-    return hadToWaitCount;
+  public long getBadConnectionCount() {
+    return badConnectionCount.get();
   }
 
-  public synchronized long getBadConnectionCount() {
-    return badConnectionCount;
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCount.get();
   }
 
-  public synchronized long getClaimedOverdueConnectionCount() {
-    return claimedOverdueConnectionCount;
+  public long getAverageOverdueCheckoutTime() {
+    final long claimed = claimedOverdueConnectionCount.get();
+    return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.get() / claimed;
   }
 
-  public synchronized long getAverageOverdueCheckoutTime() {
-    return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+  public long getAverageCheckoutTime() {
+    final long requests = requestCount.get();
+    return requests == 0 ? 0 : accumulatedCheckoutTime.get() / requests;
   }
 
-  public synchronized long getAverageCheckoutTime() {
-    return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+
+  /*
+   * How long getConnection took, in microseconds
+   */
+  public LatencyHistogram getWaitTimeHistogram() {
+    return waitTime;
   }
 
+  /*
+   * How long connections were checked out, in microseconds
+   */
+  public LatencyHistogram getCheckoutTimeHistogram() {
+    return checkoutTime;
+  }
+
+  /*
+   * How long ping queries took, in microseconds
+   */
+  public LatencyHistogram getPingTimeHistogram() {
+    return pingTime;
+  }
+
+  /*
+   * How long opening a physical connection took, in microseconds
+   */
+  public LatencyHistogram getCreationTimeHistogram() {
+    return creationTime;
+  }
+
+  void recordWait(long nanos) {
+    waitTime.recordValue(nanos / 1000);
+    final PoolMetricsListener listener = metricsListener;
+    if (listener != null) {
+      listener.connectionAcquired(nanos);
+    }
+  }
 
-  public synchronized int getIdleConnectionCount() {
-    return idleConnections.size();
+  void recordCheckout(long nanos) {
+    checkoutTime.recordValue(nanos / 1000);
+    final PoolMetricsListener listener = metricsListener;
+    if (listener != null) {
+      listener.connectionReturned(nanos);
+    }
   }
 
-  public synchronized int getActiveConnectionCount() {
-    return activeConnections.size();
+  void recordPing(long nanos, boolean success) {
+    pingTime.recordValue(nanos / 1000);
+    final PoolMetricsListener listener = metricsListener;
+    if (listener != null) {
+      listener.connectionPinged(nanos, success);
+    }
   }
 
-  public synchronized String toString() {
+  void recordCreation(long nanos) {
+    creationTime.recordValue(nanos / 1000);
+    final PoolMetricsListener listener = metricsListener;
+    if (listener != null) {
+      listener.connectionCreated(nanos);
+    }
+  }
+
+  public int getIdleConnectionCount() {
+    return connections.getIdleCount();
+  }
+
+  public int getActiveConnectionCount() {
+    return connections.getActiveCount();
+  }
+
+  public String toString() {
     StringBuffer buffer = new StringBuffer();
     buffer.append("\n===CONFINGURATION==============================================");
     buffer.append("\n jdbcDriver                     ").append(dataSource.getDriver());
@@ -107,8 +181,16 @@ public class PoolState {
     buffer.append("\n hadToWait                      ").append(getHadToWaitCount());
     buffer.append("\n averageWaitTime                ").append(getAverageWaitTime());
     buffer.append("\n badConnectionCount             ").append(getBadConnectionCount());
+    buffer.append("\n waitTime p50/p99/max (us)      ").append(percentiles(waitTime));
+    buffer.append("\n checkoutTime p50/p99/max (us)  ").append(percentiles(checkoutTime));
+    buffer.append("\n pingTime p50/p99/max (us)      ").append(percentiles(pingTime));
+    buffer.append("\n creationTime p50/p99/max (us)  ").append(percentiles(creationTime));
     buffer.append("\n===============================================================");
     return buffer.toString();
   }
 
+  private String percentiles(LatencyHistogram histogram) {
+    return histogram.getValueAtPercentile(50) + "/" + histogram.getValueAtPercentile(99) + "/" + histogram.getMaxValue();
+  }
+
 }
@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Exposes the {@link PoolState} of a pool as a standard MBean.
+ */
+public class PoolStatistics implements PoolStatisticsMBean {
+
+  private final PoolState state;
+
+  public PoolStatistics(PoolState state) {
+    this.state = state;
+  }
+
+  public int getActiveConnectionCount() {
+    return state.getActiveConnectionCount();
+  }
+
+  public int getIdleConnectionCount() {
+    return state.getIdleConnectionCount();
+  }
+
+  public long getRequestCount() {
+    return state.getRequestCount();
+  }
+
+  public long getHadToWaitCount() {
+    return state.getHadToWaitCount();
+  }
+
+  public long getBadConnectionCount() {
+    return state.getBadConnectionCount();
+  }
+
+  public long getClaimedOverdueConnectionCount() {
+    return state.getClaimedOverdueConnectionCount();
+  }
+
+  public long getWaitTime50thPercentile() {
+    return state.getWaitTimeHistogram().getValueAtPercentile(50);
+  }
+
+  public long getWaitTime99thPercentile() {
+    return state.getWaitTimeHistogram().getValueAtPercentile(99);
+  }
+
+  public long getWaitTimeMax() {
+    return state.getWaitTimeHistogram().getMaxValue();
+  }
+
+  public long getCheckoutTime50thPercentile() {
+    return state.getCheckoutTimeHistogram().getValueAtPercentile(50);
+  }
+
+  public long getCheckoutTime99thPercentile() {
+    return state.getCheckoutTimeHistogram().getValueAtPercentile(99);
+  }
+
+  public long getCheckoutTimeMax() {
+    return state.getCheckoutTimeHistogram().getMaxValue();
+  }
+
+  public long getPingTime99thPercentile() {
+    return state.getPingTimeHistogram().getValueAtPercentile(99);
+  }
+
+  public long getCreationTime99thPercentile() {
+    return state.getCreationTimeHistogram().getValueAtPercentile(99);
+  }
+
+  public void resetHistograms() {
+    state.getWaitTimeHistogram().reset();
+    state.getCheckoutTimeHistogram().reset();
+    state.getPingTimeHistogram().reset();
+    state.getCreationTimeHistogram().reset();
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * The JMX view of a {@link PooledDataSource}, registered when its poolJmxName is set.
+ * Latencies are in microseconds.
+ */
+public interface PoolStatisticsMBean {
+
+  int getActiveConnectionCount();
+
+  int getIdleConnectionCount();
+
+  long getRequestCount();
+
+  long getHadToWaitCount();
+
+  long getBadConnectionCount();
+
+  long getClaimedOverdueConnectionCount();
+
+  long getWaitTime50thPercentile();
+
+  long getWaitTime99thPercentile();
+
+  long getWaitTimeMax();
+
+  long getCheckoutTime50thPercentile();
+
+  long getCheckoutTime99thPercentile();
+
+  long getCheckoutTimeMax();
+
+  long getPingTime99thPercentile();
+
+  long getCreationTime99thPercentile();
+
+  void resetHistograms();
+
+}
@@ -19,7 +19,10 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -29,17 +32,25 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int RETURNED = 2;
+
   private int hashCode = 0;
   private PooledDataSource dataSource;
   private Connection realConnection;
   private Connection proxyConnection;
   private long checkoutTimestamp;
+  private long checkoutNanoTime;
   private long createdTimestamp;
   private long lastUsedTimestamp;
   private int connectionTypeCode;
-  private boolean valid;
+  private volatile boolean valid;
+  private PreparedStatementCache statementCache;
+  private final AtomicInteger poolState = new AtomicInteger(IDLE);
 
   /*
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in
@@ -57,6 +68,21 @@ class PooledConnection implements InvocationHandler {
     this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
   }
 
+  /*
+   * Claims an idle connection for a checkout. Only the first caller gets true.
+   */
+  boolean markInUse() {
+    return poolState.compareAndSet(IDLE, IN_USE);
+  }
+
+  /*
+   * Claims a connection in use for its return to the pool, by its owner or by the pool reclaiming it.
+   * Only the first caller gets true.
+   */
+  boolean markReturned() {
+    return poolState.compareAndSet(IN_USE, RETURNED);
+  }
+
   /*
    * Invalidates the connection
    */
@@ -73,6 +99,34 @@ class PooledConnection implements InvocationHandler {
     return valid && realConnection != null && dataSource.pingConnection(this);
   }
 
+  /*
+   * Like isValid, without pinging the database. Used when the housekeeper validates the idle connections.
+   *
+   * @return True if the connection has not been invalidated
+   */
+  boolean isUsable() {
+    return valid && realConnection != null;
+  }
+
+  /*
+   * Getter for the cache of prepared statements of the real connection
+   *
+   * @return The cache, or null if statements are not cached
+   */
+  PreparedStatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  /*
+   * Setter for the cache of prepared statements of the real connection, which follows it to every
+   * PooledConnection that wraps it
+   *
+   * @param statementCache - the cache, or null to not cache statements
+   */
+  void setStatementCache(PreparedStatementCache statementCache) {
+    this.statementCache = statementCache;
+  }
+
   /*
    * Getter for the *real* connection that this wraps
    *
@@ -194,6 +248,24 @@ class PooledConnection implements InvocationHandler {
     this.checkoutTimestamp = timestamp;
   }
 
+  /*
+   * Setter for the System.nanoTime() of the checkout, which measures the checkout duration more precisely
+   *
+   * @param nanoTime the value of System.nanoTime()
+   */
+  void setCheckoutNanoTime(long nanoTime) {
+    this.checkoutNanoTime = nanoTime;
+  }
+
+  /*
+   * Getter for the time that this connection has been checked out, in nanoseconds
+   *
+   * @return the time
+   */
+  long getCheckoutNanos() {
+    return System.nanoTime() - checkoutNanoTime;
+  }
+
   /*
    * Getter for the time that this connection has been checked out
    *
@@ -236,6 +308,9 @@ class PooledConnection implements InvocationHandler {
     if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
       dataSource.pushConnection(this);
       return null;
+    } else if (statementCache != null && PREPARE_STATEMENT.equals(methodName)) {
+      checkConnection();
+      return prepareStatement(method, args);
     } else {
       try {
         if (!Object.class.equals(method.getDeclaringClass())) {
@@ -250,6 +325,56 @@ class PooledConnection implements InvocationHandler {
     }
   }
 
+  private PreparedStatement prepareStatement(Method method, Object[] args) throws Throwable {
+    final String key = statementKey(args);
+    PreparedStatement statement = statementCache.take(key);
+    if (statement == null) {
+      try {
+        statement = (PreparedStatement) method.invoke(realConnection, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+    return CachedPreparedStatement.newInstance(this, key, statement);
+  }
+
+  /*
+   * The SQL, followed by the other arguments when prepareStatement was called with options
+   */
+  private static String statementKey(Object[] args) {
+    if (args.length == 1) {
+      return (String) args[0];
+    }
+    final StringBuilder key = new StringBuilder((String) args[0]);
+    for (int i = 1; i < args.length; i++) {
+      key.append('\u0000');
+      if (args[i] instanceof int[]) {
+        key.append(Arrays.toString((int[]) args[i]));
+      } else if (args[i] instanceof Object[]) {
+        key.append(Arrays.toString((Object[]) args[i]));
+      } else {
+        key.append(args[i]);
+      }
+    }
+    return key.toString();
+  }
+
+  /*
+   * Called when the user closes a cached statement. The statement is closed for real if it
+   * could not be reset or this connection has already been returned to the pool.
+   */
+  void returnStatement(String key, PreparedStatement statement, boolean reusable) {
+    if (reusable && valid) {
+      statementCache.put(key, statement);
+    } else {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        // ignore
+      }
+    }
+  }
+
   private void checkConnection() throws SQLException {
     if (!valid) {
       throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
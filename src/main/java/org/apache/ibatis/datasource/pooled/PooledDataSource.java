@@ -16,6 +16,7 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
@@ -23,17 +24,30 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
+import org.apache.ibatis.datasource.DataSourceException;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
 /**
  * This is a simple, synchronous, thread-safe database connection pool.
+ * Checkouts and returns go through the lock free {@link ConnectionBag} of the {@link PoolState},
+ * only threads waiting for a connection take a lock and park on its condition.
  *
  * @author Clinton Begin
  */
@@ -53,8 +67,20 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled = false;
   protected int poolPingConnectionsNotUsedFor = 0;
-
-  private int expectedConnectionTypeCode;
+  protected int poolHousekeepingInterval = 0;
+  protected int poolMaximumLifetime = 0;
+  protected int poolMaximumIdleTime = 0;
+  protected int poolMinimumIdleConnections = 0;
+  protected int poolLeakedConnectionTimeout = 0;
+  protected int poolPreparedStatementCacheSize = 0;
+  protected int poolInitialConnections = 0;
+
+  private volatile int expectedConnectionTypeCode;
+  // true until the first checkout after the pool was created
+  private final AtomicBoolean warmUpPending = new AtomicBoolean(true);
+  private ScheduledFuture<?> housekeeper;
+  private String poolJmxName;
+  private ObjectName registeredJmxName;
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -211,6 +237,111 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /*
+   * How often the housekeeper validates and retires idle connections, opens the minimum number of idle ones
+   * and reclaims leaked checkouts. While it runs, checkouts and returns no longer ping the database.
+   *
+   * @param milliseconds the delay between two runs, 0 disables the housekeeper
+   */
+  public void setPoolHousekeepingInterval(int milliseconds) {
+    this.poolHousekeepingInterval = milliseconds;
+    scheduleHousekeeper();
+  }
+
+  /*
+   * The housekeeper closes idle connections that were opened longer ago than this
+   *
+   * @param milliseconds the maximum lifetime of a connection, 0 for no limit
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+  }
+
+  /*
+   * The housekeeper closes idle connections not used for this long, unless only
+   * poolMinimumIdleConnections are left
+   *
+   * @param milliseconds the maximum idle time of a connection, 0 for no limit
+   */
+  public void setPoolMaximumIdleTime(int milliseconds) {
+    this.poolMaximumIdleTime = milliseconds;
+  }
+
+  /*
+   * The housekeeper opens connections until this many are idle
+   *
+   * @param poolMinimumIdleConnections The minimum number of idle connections
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+  }
+
+  /*
+   * The housekeeper closes connections that have been checked out for longer than this
+   * and gives their slot to other threads. The owner then gets an invalid connection.
+   *
+   * @param milliseconds the time after which a checkout counts as leaked, 0 to never reclaim them
+   */
+  public void setPoolLeakedConnectionTimeout(int milliseconds) {
+    this.poolLeakedConnectionTimeout = milliseconds;
+  }
+
+  /*
+   * Keeps up to this many closed PreparedStatements of each connection, least recently used first,
+   * to give them back when the same SQL is prepared again on the connection
+   *
+   * @param poolPreparedStatementCacheSize the number of statements per connection, 0 to not cache them
+   */
+  public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+    this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+    forceCloseAll();
+  }
+
+  /*
+   * Opens this many idle connections in parallel on the first checkout, and again each time a pool
+   * in use is reset, so that the first requests do not open them one by one. At most
+   * poolMaximumIdleConnections are opened. See also {@link #warmUp()}.
+   *
+   * @param poolInitialConnections the number of connections to open, 0 to open them on demand
+   */
+  public void setPoolInitialConnections(int poolInitialConnections) {
+    this.poolInitialConnections = poolInitialConnections;
+    forceCloseAll();
+  }
+
+  /*
+   * Receives the latencies measured by the pool, in addition to the histograms of the PoolState
+   *
+   * @param metricsListener the listener, or null for none
+   */
+  public void setPoolMetricsListener(PoolMetricsListener metricsListener) {
+    state.metricsListener = metricsListener;
+  }
+
+  /*
+   * Registers the statistics of the pool as the MBean
+   * org.apache.ibatis.datasource:type=PooledDataSource,name=poolJmxName in the platform MBeanServer
+   *
+   * @param poolJmxName the name of the pool, or null to unregister the MBean
+   */
+  public synchronized void setPoolJmxName(String poolJmxName) {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (registeredJmxName != null) {
+        server.unregisterMBean(registeredJmxName);
+        registeredJmxName = null;
+      }
+      if (poolJmxName != null) {
+        final ObjectName name = new ObjectName("org.apache.ibatis.datasource:type=PooledDataSource,name=" + ObjectName.quote(poolJmxName));
+        server.registerMBean(new PoolStatistics(state), name);
+        registeredJmxName = name;
+      }
+    } catch (JMException e) {
+      throw new DataSourceException("Error registering the pool statistics MBean named '" + poolJmxName + "'.  Cause: " + e, e);
+    }
+    this.poolJmxName = poolJmxName;
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -267,46 +398,242 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  public int getPoolHousekeepingInterval() {
+    return poolHousekeepingInterval;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolMaximumIdleTime() {
+    return poolMaximumIdleTime;
+  }
+
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
+  public int getPoolLeakedConnectionTimeout() {
+    return poolLeakedConnectionTimeout;
+  }
+
+  public int getPoolInitialConnections() {
+    return poolInitialConnections;
+  }
+
+  public int getPoolPreparedStatementCacheSize() {
+    return poolPreparedStatementCacheSize;
+  }
+
+  public PoolMetricsListener getPoolMetricsListener() {
+    return state.metricsListener;
+  }
+
+  public synchronized String getPoolJmxName() {
+    return poolJmxName;
+  }
+
+  private synchronized void scheduleHousekeeper() {
+    if (housekeeper != null) {
+      housekeeper.cancel(false);
+      housekeeper = null;
+    }
+    if (poolHousekeepingInterval > 0) {
+      housekeeper = PoolHousekeeper.schedule(this, poolHousekeepingInterval);
+    }
+  }
+
+  private boolean isHousekeeping() {
+    return poolHousekeepingInterval > 0;
+  }
+
   /*
-   * Closes all active and idle connections in the pool
+   * Run by the housekeeper thread: reclaims leaked checkouts, retires and validates the idle connections,
+   * and opens connections up to poolMinimumIdleConnections. Only the idle connections that are retired or due
+   * for a ping are taken out of the idle queue, one at a time, the others stay available while it runs.
    */
-  public void forceCloseAll() {
-    synchronized (state) {
-      expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
-      for (int i = state.activeConnections.size(); i > 0; i--) {
-        try {
-          PooledConnection conn = state.activeConnections.remove(i - 1);
-          conn.invalidate();
-
-          Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
-            realConn.rollback();
+  protected void housekeep() {
+    if (poolLeakedConnectionTimeout > 0) {
+      for (PooledConnection conn : state.connections.getActiveSnapshot()) {
+        long checkoutTime = conn.getCheckoutTime();
+        if (checkoutTime > poolLeakedConnectionTimeout && state.connections.removeActive(conn)) {
+          log.warn("Reclaimed connection " + conn.getRealHashCode() + ", it was checked out " + checkoutTime + " milliseconds ago and not closed.");
+          closeRealConnection(conn);
+          state.connections.freeActive();
+        }
+      }
+    }
+    for (PooledConnection conn : state.connections.getIdleSnapshot()) {
+      if (isRetired(conn)) {
+        if (state.connections.claimIdle(conn)) {
+          if (log.isDebugEnabled()) {
+            log.debug("Retired connection " + conn.getRealHashCode() + ".");
           }
-          realConn.close();
-        } catch (Exception e) {
-          // ignore
+          closeRealConnection(conn);
+        }
+      } else if ((isDueForPing(conn) || !isOpen(conn)) && state.connections.claimIdle(conn)) {
+        if (!conn.isValid()) {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was found in the pool, discarding connection.");
+          }
+          state.badConnectionCount.incrementAndGet();
+          closeRealConnection(conn);
+        } else if (!offerIdle(conn)) {
+          closeRealConnection(conn);
         }
       }
-      for (int i = state.idleConnections.size(); i > 0; i--) {
-        try {
-          PooledConnection conn = state.idleConnections.remove(i - 1);
-          conn.invalidate();
+    }
+    while (state.connections.getIdleCount() < Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections)) {
+      if (!openIdleConnection()) {
+        return;
+      }
+    }
+  }
 
-          Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
-            realConn.rollback();
-          }
-          realConn.close();
-        } catch (Exception e) {
-          // ignore
+  /*
+   * An idle connection is retired past its lifetime, or past the idle time if the pool keeps its minimum without it
+   */
+  private boolean isRetired(PooledConnection conn) {
+    return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime
+        || poolMaximumIdleTime > 0 && conn.getTimeElapsedSinceLastUse() > poolMaximumIdleTime
+            && state.connections.getIdleCount() > poolMinimumIdleConnections;
+  }
+
+  private boolean isDueForPing(PooledConnection conn) {
+    return poolPingEnabled && poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor;
+  }
+
+  /*
+   * Checks a connection without taking it out of the idle queue, the driver only reads its state
+   */
+  private boolean isOpen(PooledConnection conn) {
+    try {
+      return conn.isUsable() && !conn.getRealConnection().isClosed();
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /*
+   * Opens poolInitialConnections idle connections in parallel, less those already idle,
+   * and waits until they are open. Can be called at startup to open the pool eagerly.
+   *
+   * @return the number of connections opened
+   */
+  public int warmUp() {
+    warmUpPending.set(false);
+    int opened = 0;
+    for (Future<Boolean> opening : startWarmUp()) {
+      try {
+        if (opening.get()) {
+          opened++;
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        log.warn("Could not open an idle connection. Cause: " + e.getCause());
       }
     }
+    return opened;
+  }
+
+  private List<Future<Boolean>> startWarmUp() {
+    final int count = Math.min(poolInitialConnections, poolMaximumIdleConnections) - state.connections.getIdleCount();
+    final List<Future<Boolean>> openings = new ArrayList<Future<Boolean>>();
+    for (int i = 0; i < count; i++) {
+      openings.add(PoolWarmUp.submit(new Callable<Boolean>() {
+        public Boolean call() {
+          return openIdleConnection();
+        }
+      }));
+    }
+    if (log.isDebugEnabled() && count > 0) {
+      log.debug("Warming up the pool with " + count + " connections.");
+    }
+    return openings;
+  }
+
+  private boolean openIdleConnection() {
+    PooledConnection conn;
+    try {
+      conn = createConnection();
+    } catch (SQLException e) {
+      log.warn("Could not open an idle connection. Cause: " + e);
+      return false;
+    }
+    if (!offerIdle(conn)) {
+      closeRealConnection(conn);
+      return false;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Opened idle connection " + conn.getRealHashCode() + ".");
+    }
+    return true;
+  }
+
+  /*
+   * Adds the physical connection of conn to the idle ones in a new PooledConnection, unless
+   * poolMaximumIdleConnections are already idle
+   */
+  private boolean offerIdle(PooledConnection conn) {
+    if (!state.connections.reserveIdle(poolMaximumIdleConnections)) {
+      return false;
+    }
+    PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+    newConn.setStatementCache(conn.getStatementCache());
+    newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+    newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+    conn.invalidate();
+    state.connections.addIdle(newConn);
+    return true;
+  }
+
+  /*
+   * Closes all active and idle connections in the pool
+   */
+  public void forceCloseAll() {
+    closeAll();
+    // a pool in use warms up again right away, a new one on its first checkout
+    if (poolInitialConnections > 0 && !warmUpPending.get()) {
+      startWarmUp();
+    }
+  }
+
+  private void closeAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+    PooledConnection conn;
+    while ((conn = state.connections.pollActive()) != null) {
+      closeRealConnection(conn);
+    }
+    while ((conn = state.connections.pollIdle()) != null) {
+      closeRealConnection(conn);
+    }
+    // waiting threads can open new connections now
+    state.connections.signalAllWaiters();
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
     }
   }
 
+  private void closeRealConnection(PooledConnection conn) {
+    try {
+      conn.invalidate();
+      if (conn.getStatementCache() != null) {
+        conn.getStatementCache().clear();
+      }
+
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
   public PoolState getPoolState() {
     return state;
   }
@@ -317,28 +644,23 @@ public class PooledDataSource implements DataSource {
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
 
-    synchronized (state) {
-      state.activeConnections.remove(conn);
-      if (conn.isValid()) {
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
-          if (!conn.getRealConnection().getAutoCommit()) {
-            conn.getRealConnection().rollback();
-          }
-          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
-          state.idleConnections.add(newConn);
-          newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
-          newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
-          conn.invalidate();
+    // false when the connection was already claimed as overdue or closed by forceCloseAll
+    final boolean active = state.connections.removeActive(conn);
+    if (active) {
+      state.recordCheckout(conn.getCheckoutNanos());
+    }
+    try {
+      // the housekeeper pings idle connections in the background
+      if (active && (isHousekeeping() ? conn.isUsable() : conn.isValid())) {
+        state.accumulatedCheckoutTime.addAndGet(conn.getCheckoutTime());
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && offerIdle(conn)) {
           if (log.isDebugEnabled()) {
-            log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+            log.debug("Returned connection " + conn.getRealHashCode() + " to pool.");
           }
-          state.notifyAll();
         } else {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
-          if (!conn.getRealConnection().getAutoCommit()) {
-            conn.getRealConnection().rollback();
-          }
           conn.getRealConnection().close();
           if (log.isDebugEnabled()) {
             log.debug("Closed connection " + conn.getRealHashCode() + ".");
@@ -349,7 +671,12 @@ public class PooledDataSource implements DataSource {
         if (log.isDebugEnabled()) {
           log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
         }
-        state.badConnectionCount++;
+        state.badConnectionCount.incrementAndGet();
+      }
+    } finally {
+      if (active) {
+        // either an idle connection or room for a new one is available
+        state.connections.freeActive();
       }
     }
   }
@@ -358,92 +685,95 @@ public class PooledDataSource implements DataSource {
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
+    long startNanos = System.nanoTime();
     int localBadConnectionCount = 0;
 
+    if (poolInitialConnections > 0 && warmUpPending.get() && warmUpPending.compareAndSet(true, false)) {
+      startWarmUp();
+    }
+
     while (conn == null) {
-      synchronized (state) {
-        if (state.idleConnections.size() > 0) {
-          // Pool has available connection
-          conn = state.idleConnections.remove(0);
+      // read before looking, so a connection returned in the meantime cuts the wait short
+      final long sequence = state.connections.getSequence();
+      conn = state.connections.takeIdle();
+      if (conn != null) {
+        // Pool has available connection
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (state.connections.reserveActive(poolMaximumActiveConnections)) {
+        // Can create new connection, the pool is not locked while the database opens it
+        conn = openConnection();
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        // Cannot create new connection
+        PooledConnection oldestActiveConnection = state.connections.peekOldestActive();
+        long longestCheckoutTime = oldestActiveConnection == null ? 0 : oldestActiveConnection.getCheckoutTime();
+        if (longestCheckoutTime > poolMaximumCheckoutTime && state.connections.removeActive(oldestActiveConnection)) {
+          // Can claim overdue connection, it keeps its active slot
+          state.claimedOverdueConnectionCount.incrementAndGet();
+          state.accumulatedCheckoutTimeOfOverdueConnections.addAndGet(longestCheckoutTime);
+          state.accumulatedCheckoutTime.addAndGet(longestCheckoutTime);
+          conn = claimConnection(oldestActiveConnection);
           if (log.isDebugEnabled()) {
-            log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+            log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
           }
         } else {
-          // Pool does not have available connection
-          if (state.activeConnections.size() < poolMaximumActiveConnections) {
-            // Can create new connection
-            conn = new PooledConnection(dataSource.getConnection(), this);
-            @SuppressWarnings("unused")
-            //used in logging, if enabled
-            Connection realConn = conn.getRealConnection();
-            if (log.isDebugEnabled()) {
-              log.debug("Created connection " + conn.getRealHashCode() + ".");
+          // Must wait
+          try {
+            if (!countedWait) {
+              state.hadToWaitCount.incrementAndGet();
+              countedWait = true;
             }
-          } else {
-            // Cannot create new connection
-            PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-            long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-            if (longestCheckoutTime > poolMaximumCheckoutTime) {
-              // Can claim overdue connection
-              state.claimedOverdueConnectionCount++;
-              state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-              state.accumulatedCheckoutTime += longestCheckoutTime;
-              state.activeConnections.remove(oldestActiveConnection);
-              if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
-                oldestActiveConnection.getRealConnection().rollback();
-              }
-              conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
-              oldestActiveConnection.invalidate();
-              if (log.isDebugEnabled()) {
-                log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
-              }
-            } else {
-              // Must wait
-              try {
-                if (!countedWait) {
-                  state.hadToWaitCount++;
-                  countedWait = true;
-                }
-                if (log.isDebugEnabled()) {
-                  log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
-                }
-                long wt = System.currentTimeMillis();
-                state.wait(poolTimeToWait);
-                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
-              } catch (InterruptedException e) {
-                break;
-              }
+            if (log.isDebugEnabled()) {
+              log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
             }
+            long wt = System.currentTimeMillis();
+            state.connections.awaitConnection(sequence, poolTimeToWait);
+            state.accumulatedWaitTime.addAndGet(System.currentTimeMillis() - wt);
+          } catch (InterruptedException e) {
+            break;
           }
         }
-        if (conn != null) {
-          if (conn.isValid()) {
-            if (!conn.getRealConnection().getAutoCommit()) {
+      }
+      if (conn != null) {
+        // with the housekeeper pinging idle connections in the background a checkout does no I/O,
+        // returned and claimed connections have been rolled back already
+        if (isHousekeeping() ? conn.isUsable() : conn.isValid()) {
+          try {
+            if (!isHousekeeping() && !conn.getRealConnection().getAutoCommit()) {
               conn.getRealConnection().rollback();
             }
-            conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
-            conn.setCheckoutTimestamp(System.currentTimeMillis());
-            conn.setLastUsedTimestamp(System.currentTimeMillis());
-            state.activeConnections.add(conn);
-            state.requestCount++;
-            state.accumulatedRequestTime += System.currentTimeMillis() - t;
-          } else {
+          } catch (SQLException e) {
+            state.connections.freeActive();
+            throw e;
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setCheckoutNanoTime(System.nanoTime());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          state.connections.addActive(conn);
+          state.requestCount.incrementAndGet();
+          state.accumulatedRequestTime.addAndGet(System.currentTimeMillis() - t);
+          state.recordWait(System.nanoTime() - startNanos);
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+          }
+          state.badConnectionCount.incrementAndGet();
+          state.connections.freeActive();
+          localBadConnectionCount++;
+          conn = null;
+          if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
             if (log.isDebugEnabled()) {
-              log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
-            }
-            state.badConnectionCount++;
-            localBadConnectionCount++;
-            conn = null;
-            if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
-              if (log.isDebugEnabled()) {
-                log.debug("PooledDataSource: Could not get a good connection to the database.");
-              }
-              throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+              log.debug("PooledDataSource: Could not get a good connection to the database.");
             }
+            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
           }
         }
       }
-
     }
 
     if (conn == null) {
@@ -456,6 +786,54 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  /*
+   * Opens a physical connection for an active slot reserved by the caller, giving the slot up if that fails
+   */
+  private PooledConnection openConnection() throws SQLException {
+    boolean opened = false;
+    try {
+      PooledConnection conn = createConnection();
+      opened = true;
+      return conn;
+    } finally {
+      if (!opened) {
+        state.connections.freeActive();
+      }
+    }
+  }
+
+  private PooledConnection createConnection() throws SQLException {
+    final long start = System.nanoTime();
+    final Connection connection = dataSource.getConnection();
+    state.recordCreation(System.nanoTime() - start);
+    final PooledConnection conn = new PooledConnection(connection, this);
+    if (poolPreparedStatementCacheSize > 0) {
+      conn.setStatementCache(new PreparedStatementCache(poolPreparedStatementCacheSize));
+    }
+    return conn;
+  }
+
+  /*
+   * Takes over the physical connection of an overdue checkout, which keeps its active slot
+   */
+  private PooledConnection claimConnection(PooledConnection overdue) throws SQLException {
+    boolean claimed = false;
+    try {
+      if (!overdue.getRealConnection().getAutoCommit()) {
+        overdue.getRealConnection().rollback();
+      }
+      PooledConnection conn = new PooledConnection(overdue.getRealConnection(), this);
+      conn.setStatementCache(overdue.getStatementCache());
+      overdue.invalidate();
+      claimed = true;
+      return conn;
+    } finally {
+      if (!claimed) {
+        state.connections.freeActive();
+      }
+    }
+  }
+
   /*
    * Method to check to see if a connection is still usable
    *
@@ -477,6 +855,7 @@ public class PooledDataSource implements DataSource {
     if (result) {
       if (poolPingEnabled) {
         if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+          final long start = System.nanoTime();
           try {
             if (log.isDebugEnabled()) {
               log.debug("Testing connection " + conn.getRealHashCode() + " ...");
@@ -490,10 +869,12 @@ public class PooledDataSource implements DataSource {
               realConn.rollback();
             }
             result = true;
+            state.recordPing(System.nanoTime() - start, true);
             if (log.isDebugEnabled()) {
               log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
             }
           } catch (Exception e) {
+            state.recordPing(System.nanoTime() - start, false);
             log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
             try {
               conn.getRealConnection().close();
@@ -528,7 +909,7 @@ public class PooledDataSource implements DataSource {
   }
 
   protected void finalize() throws Throwable {
-    forceCloseAll();
+    closeAll();
   }
 
   public <T> T unwrap(Class<T> iface) throws SQLException {
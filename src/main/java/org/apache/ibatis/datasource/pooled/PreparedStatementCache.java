@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The least recently used PreparedStatements of one physical connection, so they are prepared once
+ * for all the SqlSessions that use the connection. Only statements that are not in use are cached:
+ * a statement is taken out while it is used and put back when it is closed.
+ */
+class PreparedStatementCache {
+
+  private final int maximumSize;
+  private final LinkedHashMap<String, PreparedStatement> statements;
+
+  PreparedStatementCache(final int maximumSize) {
+    this.maximumSize = maximumSize;
+    this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+  }
+
+  synchronized PreparedStatement take(String key) {
+    return statements.remove(key);
+  }
+
+  /*
+   * Caches a statement that is no longer used, closing it or the least recently used one when the cache is full
+   */
+  synchronized void put(String key, PreparedStatement statement) {
+    if (statements.containsKey(key)) {
+      // the same SQL was open twice, keep one
+      close(statement);
+      return;
+    }
+    statements.put(key, statement);
+    if (statements.size() > maximumSize) {
+      final Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+      close(eldest.next().getValue());
+      eldest.remove();
+    }
+  }
+
+  synchronized int size() {
+    return statements.size();
+  }
+
+  synchronized void clear() {
+    for (PreparedStatement statement : statements.values()) {
+      close(statement);
+    }
+    statements.clear();
+  }
+
+  private static void close(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+}
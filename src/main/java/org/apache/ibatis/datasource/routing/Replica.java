@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+/**
+ * A read replica of a {@link RoutingDataSource} and what its connections have reported about it:
+ * the average time its statements take, and whether it could be reached the last time it was tried.
+ */
+public final class Replica {
+
+  // the latency of a replica that has not executed any statement yet
+  private static final long MINIMUM_LATENCY = 100000L;
+
+  private final String name;
+  private final DataSource dataSource;
+  private final int weight;
+  // exponentially weighted moving average in nanoseconds, each sample counts for 1/8
+  private final AtomicLong latency = new AtomicLong();
+  private final AtomicLong statementCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private volatile long unavailableUntil;
+
+  Replica(String name, DataSource dataSource, int weight) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("The weight of replica " + name + " must be positive but was " + weight);
+    }
+    this.name = name;
+    this.dataSource = dataSource;
+    this.weight = weight;
+  }
+
+  Connection getConnection(String username, String password) throws SQLException {
+    return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+  }
+
+  void recordLatency(long nanos) {
+    statementCount.incrementAndGet();
+    for (;;) {
+      final long average = latency.get();
+      final long next = average == 0 ? nanos : average + (nanos - average) / 8;
+      if (latency.compareAndSet(average, next)) {
+        return;
+      }
+    }
+  }
+
+  void recordFailure(long retryInterval) {
+    failureCount.incrementAndGet();
+    unavailableUntil = System.currentTimeMillis() + retryInterval;
+  }
+
+  /*
+   * The share of the reads this replica gets: its weight, less the slower it answers
+   */
+  double getEffectiveWeight() {
+    return (double) weight / Math.max(latency.get(), MINIMUM_LATENCY);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  public boolean isAvailable() {
+    return System.currentTimeMillis() >= unavailableUntil;
+  }
+
+  public long getAverageLatencyNanos() {
+    return latency.get();
+  }
+
+  public long getStatementCount() {
+    return statementCount.get();
+  }
+
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return "Replica " + name + " (weight " + weight + ", " + (isAvailable() ? "available" : "unavailable")
+        + ", average latency " + latency.get() / 1000 + " us, " + statementCount.get() + " statements, "
+        + failureCount.get() + " failures)";
+  }
+
+}
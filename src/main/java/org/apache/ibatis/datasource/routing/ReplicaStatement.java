@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A statement of a replica connection. Reports how long its executions take to the {@link Replica},
+ * and leaves the replica out for a while when it loses its connection.
+ */
+class ReplicaStatement implements InvocationHandler {
+
+  // SQLState class of connection exceptions
+  private static final String CONNECTION_EXCEPTION = "08";
+
+  private final Statement statement;
+  private final Replica replica;
+  private final long retryInterval;
+
+  private ReplicaStatement(Statement statement, Replica replica, long retryInterval) {
+    this.statement = statement;
+    this.replica = replica;
+    this.retryInterval = retryInterval;
+  }
+
+  static Object newInstance(Statement statement, Class<?> type, Replica replica, long retryInterval) {
+    InvocationHandler handler = new ReplicaStatement(statement, replica, retryInterval);
+    return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if (Object.class.equals(method.getDeclaringClass())) {
+      return method.invoke(this, args);
+    }
+    final boolean execution = method.getName().startsWith("execute");
+    final long start = execution ? System.nanoTime() : 0;
+    try {
+      final Object result = method.invoke(statement, args);
+      if (execution) {
+        replica.recordLatency(System.nanoTime() - start);
+      }
+      return result;
+    } catch (Throwable t) {
+      final Throwable cause = ExceptionUtil.unwrapThrowable(t);
+      if (cause instanceof SQLException) {
+        final String sqlState = ((SQLException) cause).getSQLState();
+        if (sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION)) {
+          replica.recordFailure(retryInterval);
+        }
+      }
+      throw cause;
+    }
+  }
+
+}
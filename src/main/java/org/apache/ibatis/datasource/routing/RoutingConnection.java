@@ -0,0 +1,211 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A connection of a {@link RoutingDataSource}. It opens the primary and the replica connection on first use,
+ * and applies the auto-commit and isolation settings it was given to both of them.
+ * Like any new JDBC connection it starts in auto-commit mode.
+ */
+class RoutingConnection implements InvocationHandler {
+
+  private static final Log log = LogFactory.getLog(RoutingConnection.class);
+
+  private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
+
+  private final RoutingDataSource dataSource;
+  private final String username;
+  private final String password;
+  private Connection primary;
+  private Connection replica;
+  private Replica replicaInfo;
+  private boolean autoCommit = true;
+  private Integer transactionIsolation;
+  private boolean closed;
+
+  private RoutingConnection(RoutingDataSource dataSource, String username, String password) {
+    this.dataSource = dataSource;
+    this.username = username;
+    this.password = password;
+  }
+
+  static Connection newInstance(RoutingDataSource dataSource, String username, String password) {
+    InvocationHandler handler = new RoutingConnection(dataSource, username, password);
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, handler);
+  }
+
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    final String methodName = method.getName();
+    if (Object.class.equals(method.getDeclaringClass())) {
+      return method.invoke(this, args);
+    }
+    if ("close".equals(methodName)) {
+      close();
+      return null;
+    }
+    if ("isClosed".equals(methodName)) {
+      return closed;
+    }
+    if (closed) {
+      throw new SQLException("Error accessing RoutingConnection. Connection is closed.");
+    }
+    if ("prepareStatement".equals(methodName) || "createStatement".equals(methodName) || "prepareCall".equals(methodName)) {
+      return createStatement(method, args);
+    } else if ("setAutoCommit".equals(methodName)) {
+      autoCommit = (Boolean) args[0];
+      invokeOnOpenConnections(method, args);
+      return null;
+    } else if ("getAutoCommit".equals(methodName)) {
+      return autoCommit;
+    } else if (("commit".equals(methodName) || "rollback".equals(methodName)) && args == null) {
+      invokeOnOpenConnections(method, args);
+      return null;
+    } else if ("setTransactionIsolation".equals(methodName)) {
+      transactionIsolation = (Integer) args[0];
+      invokeOnOpenConnections(method, args);
+      return null;
+    } else if ("getTransactionIsolation".equals(methodName) && transactionIsolation != null) {
+      return transactionIsolation;
+    } else if (("getWarnings".equals(methodName) || "clearWarnings".equals(methodName)) && primary == null) {
+      return null;
+    }
+    return invoke(getPrimary(), method, args);
+  }
+
+  private Object createStatement(Method method, Object[] args) throws Throwable {
+    if (isRead(method)) {
+      final Connection connection = getReplica();
+      if (connection != null) {
+        final Statement statement = (Statement) invoke(connection, method, args);
+        return ReplicaStatement.newInstance(statement, method.getReturnType(), replicaInfo, dataSource.getReplicaRetryInterval());
+      }
+    }
+    return invoke(getPrimary(), method, args);
+  }
+
+  private boolean isRead(Method method) {
+    // a transaction runs entirely on the primary, so its reads see its own writes and a consistent snapshot
+    if ("prepareCall".equals(method.getName()) || !autoCommit || RoutingContext.isPrimaryRequired()) {
+      return false;
+    }
+    final MappedStatement ms = RoutingContext.getStatement();
+    return ms != null
+        && ms.getSqlCommandType() == SqlCommandType.SELECT
+        && ms.getStatementType() != StatementType.CALLABLE
+        && !ms.isFlushCacheRequired();
+  }
+
+  private Connection getPrimary() throws SQLException {
+    if (primary == null) {
+      primary = configure(dataSource.getPrimaryConnection(username, password));
+    }
+    return primary;
+  }
+
+  /*
+   * @return the replica connection, or null if no replica can be reached
+   */
+  private Connection getReplica() {
+    for (int attempt = 0; replica == null && attempt < dataSource.getReplicas().size(); attempt++) {
+      final Replica chosen = dataSource.chooseReplica();
+      if (chosen == null) {
+        return null;
+      }
+      try {
+        replica = configure(chosen.getConnection(username, password));
+        replicaInfo = chosen;
+      } catch (SQLException e) {
+        log.warn("Could not connect to " + chosen.getName() + ", reading from another database. Cause: " + e);
+        chosen.recordFailure(dataSource.getReplicaRetryInterval());
+      }
+    }
+    return replica;
+  }
+
+  private Connection configure(Connection connection) throws SQLException {
+    try {
+      if (connection.getAutoCommit() != autoCommit) {
+        connection.setAutoCommit(autoCommit);
+      }
+      if (transactionIsolation != null) {
+        connection.setTransactionIsolation(transactionIsolation);
+      }
+      return connection;
+    } catch (SQLException e) {
+      connection.close();
+      throw e;
+    }
+  }
+
+  private void invokeOnOpenConnections(Method method, Object[] args) throws Throwable {
+    if (primary != null) {
+      invoke(primary, method, args);
+    }
+    if (replica != null) {
+      invoke(replica, method, args);
+    }
+  }
+
+  private void close() throws SQLException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    SQLException failure = null;
+    for (Connection connection : new Connection[] { replica, primary }) {
+      if (connection != null) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          failure = e;
+        }
+      }
+    }
+    replica = null;
+    primary = null;
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(connection, args);
+    } catch (Throwable t) {
+      throw ExceptionUtil.unwrapThrowable(t);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RoutingConnection[primary=" + primary + ", replica=" + (replicaInfo == null ? null : replicaInfo.getName()) + "]";
+  }
+
+}
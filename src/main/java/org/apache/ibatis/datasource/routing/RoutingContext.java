@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Tells the connections of a {@link RoutingDataSource} which statement the current thread is preparing.
+ * The statement is set by the StatementHandler while it creates the JDBC statement.
+ * Application code can pin the statements of the current thread to the primary database with
+ * {@link #setPrimaryRequired(boolean)}, e.g. to read data it has just written in another session.
+ */
+public final class RoutingContext {
+
+  private static final ThreadLocal<MappedStatement> statement = new ThreadLocal<MappedStatement>();
+  private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<Boolean>();
+
+  private RoutingContext() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * @return the statement that was being prepared before, to be restored afterwards
+   */
+  public static MappedStatement setStatement(MappedStatement ms) {
+    final MappedStatement previous = statement.get();
+    if (ms == null) {
+      statement.remove();
+    } else {
+      statement.set(ms);
+    }
+    return previous;
+  }
+
+  public static MappedStatement getStatement() {
+    return statement.get();
+  }
+
+  public static void setPrimaryRequired(boolean required) {
+    if (required) {
+      primaryRequired.set(Boolean.TRUE);
+    } else {
+      primaryRequired.remove();
+    }
+  }
+
+  public static boolean isPrimaryRequired() {
+    return primaryRequired.get() != null;
+  }
+
+}
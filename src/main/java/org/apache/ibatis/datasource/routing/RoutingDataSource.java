@@ -0,0 +1,159 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceException;
+
+/**
+ * Sends reads to replica databases and everything else to the primary database.
+ * <p>
+ * A connection of this datasource opens a connection of the primary and of one replica as they are needed.
+ * A statement goes to the replica when the StatementHandler prepares it for a SELECT (see {@link RoutingContext}),
+ * unless it is callable, it flushes the cache, the current thread requires the primary, or the connection is
+ * not in auto-commit mode. A transaction runs entirely on the primary so it reads its own writes.
+ * <p>
+ * The replica is chosen at random in proportion to its weight divided by the average latency of its statements.
+ * A replica that cannot be reached is left out for replicaRetryInterval milliseconds, and reads go to the
+ * primary when no replica is available.
+ */
+public class RoutingDataSource implements DataSource {
+
+  private DataSource primary;
+  private final List<Replica> replicas = new CopyOnWriteArrayList<Replica>();
+  private int replicaRetryInterval = 30000;
+
+  public RoutingDataSource() {
+  }
+
+  public RoutingDataSource(DataSource primary) {
+    this.primary = primary;
+  }
+
+  public Connection getConnection() throws SQLException {
+    return RoutingConnection.newInstance(this, null, null);
+  }
+
+  public Connection getConnection(String username, String password) throws SQLException {
+    return RoutingConnection.newInstance(this, username, password);
+  }
+
+  public void setPrimary(DataSource primary) {
+    this.primary = primary;
+  }
+
+  public DataSource getPrimary() {
+    return primary;
+  }
+
+  public void addReplica(String name, DataSource dataSource, int weight) {
+    replicas.add(new Replica(name, dataSource, weight));
+  }
+
+  public List<Replica> getReplicas() {
+    return Collections.unmodifiableList(replicas);
+  }
+
+  /*
+   * How long a replica that could not be reached gets no reads
+   *
+   * @param milliseconds the time to wait before trying the replica again
+   */
+  public void setReplicaRetryInterval(int milliseconds) {
+    this.replicaRetryInterval = milliseconds;
+  }
+
+  public int getReplicaRetryInterval() {
+    return replicaRetryInterval;
+  }
+
+  Connection getPrimaryConnection(String username, String password) throws SQLException {
+    final DataSource dataSource = getRequiredPrimary();
+    return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+  }
+
+  /*
+   * @return a random available replica, or null if there is none
+   */
+  Replica chooseReplica() {
+    double total = 0;
+    for (Replica replica : replicas) {
+      if (replica.isAvailable()) {
+        total += replica.getEffectiveWeight();
+      }
+    }
+    if (total == 0) {
+      return null;
+    }
+    double point = Math.random() * total;
+    Replica chosen = null;
+    for (Replica replica : replicas) {
+      if (replica.isAvailable()) {
+        chosen = replica;
+        point -= replica.getEffectiveWeight();
+        if (point < 0) {
+          break;
+        }
+      }
+    }
+    return chosen;
+  }
+
+  public void setLoginTimeout(int loginTimeout) throws SQLException {
+    getRequiredPrimary().setLoginTimeout(loginTimeout);
+  }
+
+  public int getLoginTimeout() throws SQLException {
+    return getRequiredPrimary().getLoginTimeout();
+  }
+
+  public void setLogWriter(PrintWriter logWriter) throws SQLException {
+    getRequiredPrimary().setLogWriter(logWriter);
+  }
+
+  public PrintWriter getLogWriter() throws SQLException {
+    return getRequiredPrimary().getLogWriter();
+  }
+
+  private DataSource getRequiredPrimary() {
+    if (primary == null) {
+      throw new DataSourceException("RoutingDataSource requires a primary DataSource.");
+    }
+    return primary;
+  }
+
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    throw new SQLException(getClass().getName() + " is not a wrapper.");
+  }
+
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return false;
+  }
+
+  public Logger getParentLogger() {
+    return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); // requires JDK version 1.6
+  }
+
+}
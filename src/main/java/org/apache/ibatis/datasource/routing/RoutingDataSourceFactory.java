@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.DataSourceException;
+import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+
+/**
+ * Builds a {@link RoutingDataSource} over PooledDataSources. The properties of the primary start with
+ * <code>primary.</code>, those of a replica with <code>replica.name.</code>, where <code>replica.name.weight</code>
+ * is the weight of the replica (1 by default). Replicas are added in the order of their names.
+ */
+public class RoutingDataSourceFactory implements DataSourceFactory {
+
+  private static final String PRIMARY_PREFIX = "primary.";
+  private static final String REPLICA_PREFIX = "replica.";
+  private static final String WEIGHT = "weight";
+  private static final String RETRY_INTERVAL = "replicaRetryInterval";
+
+  private final RoutingDataSource dataSource = new RoutingDataSource();
+
+  public void setProperties(Properties properties) {
+    final Properties primaryProperties = new Properties();
+    final Map<String, Properties> replicaProperties = new TreeMap<String, Properties>();
+    for (Object key : properties.keySet()) {
+      final String propertyName = (String) key;
+      final String value = properties.getProperty(propertyName);
+      if (propertyName.startsWith(PRIMARY_PREFIX)) {
+        primaryProperties.setProperty(propertyName.substring(PRIMARY_PREFIX.length()), value);
+      } else if (propertyName.startsWith(REPLICA_PREFIX) && propertyName.indexOf('.', REPLICA_PREFIX.length()) > 0) {
+        final int nameEnd = propertyName.indexOf('.', REPLICA_PREFIX.length());
+        final String name = propertyName.substring(REPLICA_PREFIX.length(), nameEnd);
+        Properties replica = replicaProperties.get(name);
+        if (replica == null) {
+          replica = new Properties();
+          replicaProperties.put(name, replica);
+        }
+        replica.setProperty(propertyName.substring(nameEnd + 1), value);
+      } else if (RETRY_INTERVAL.equals(propertyName)) {
+        dataSource.setReplicaRetryInterval(Integer.parseInt(value));
+      } else {
+        throw new DataSourceException("Unknown DataSource property: " + propertyName);
+      }
+    }
+    dataSource.setPrimary(createPooledDataSource(primaryProperties));
+    for (Map.Entry<String, Properties> replica : replicaProperties.entrySet()) {
+      final Properties replicaProps = replica.getValue();
+      final String weight = (String) replicaProps.remove(WEIGHT);
+      dataSource.addReplica(replica.getKey(), createPooledDataSource(replicaProps), weight == null ? 1 : Integer.parseInt(weight));
+    }
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  private DataSource createPooledDataSource(Properties properties) {
+    final PooledDataSourceFactory factory = new PooledDataSourceFactory();
+    factory.setProperties(properties);
+    return factory.getDataSource();
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs asynchronous statements of one DataSource on a shared Executor, at most {@code maxConcurrency} at a time.
+ * Statements over the limit wait in a queue instead of holding a thread, so the callers never block and
+ * the DataSource is never asked for more connections than the limit.
+ */
+public class AsyncStatementQueue {
+
+  private final Executor executor;
+  private final int maxConcurrency;
+  private final Queue<FutureTask<?>> pending = new LinkedList<FutureTask<?>>();
+  private int running;
+
+  /**
+   * @param executor runs the statements
+   * @param maxConcurrency maximum number of statements running at the same time, 0 or less for no limit
+   */
+  public AsyncStatementQueue(Executor executor, int maxConcurrency) {
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public <T> Future<T> submit(Callable<T> statement) {
+    final FutureTask<T> task = new FutureTask<T>(statement);
+    synchronized (this) {
+      if (maxConcurrency > 0 && running >= maxConcurrency) {
+        pending.add(task);
+        return task;
+      }
+      running++;
+    }
+    try {
+      executor.execute(new Slot(task));
+    } catch (RejectedExecutionException e) {
+      release();
+      throw e;
+    }
+    return task;
+  }
+
+  public synchronized int getRunning() {
+    return running;
+  }
+
+  public synchronized int getPending() {
+    return pending.size();
+  }
+
+  private void release() {
+    FutureTask<?> next;
+    synchronized (this) {
+      next = pending.poll();
+      if (next == null) {
+        running--;
+        return;
+      }
+    }
+    try {
+      executor.execute(new Slot(next));
+    } catch (RejectedExecutionException e) {
+      // the executor was shut down, the waiting statements will never run
+      next.cancel(false);
+      release();
+    }
+  }
+
+  private class Slot implements Runnable {
+
+    private final FutureTask<?> task;
+
+    Slot(FutureTask<?> task) {
+      this.task = task;
+    }
+
+    public void run() {
+      try {
+        task.run();
+      } finally {
+        release();
+      }
+    }
+
+  }
+
+}
@@ -25,6 +25,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.logging.jdbc.ConnectionLogger;
@@ -36,6 +37,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetToken;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -179,6 +181,16 @@ public abstract class BaseExecutor implements Executor {
         return list;
     }
 
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+        ErrorContext.instance().resource(ms.getResource()).activity("executing a query").object(ms.getId());
+        if (closed) {
+            throw new ExecutorException("Executor was closed.");
+        }
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    }
+
     @Override
     public void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType) {
         if (closed) {
@@ -202,6 +214,16 @@ public abstract class BaseExecutor implements Executor {
         cacheKey.update(rowBounds.getOffset());
         cacheKey.update(rowBounds.getLimit());
         cacheKey.update(boundSql.getSql());
+        if (rowBounds instanceof KeysetToken) {
+            // 键集分页的语句会被改写，不能和同样limit的普通查询共用缓存
+            cacheKey.update(KeysetToken.class.getName());
+            Object[] lastKeys = ((KeysetToken) rowBounds).getLastKeys();
+            if (lastKeys != null) {
+                for (Object lastKey : lastKeys) {
+                    cacheKey.update(lastKey);
+                }
+            }
+        }
         List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
         TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
         // mimic DefaultParameterHandler logic 模仿DefaultParameterHandler逻辑
@@ -272,6 +294,12 @@ public abstract class BaseExecutor implements Executor {
     protected abstract <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler,
                                            BoundSql boundSql) throws SQLException;
 
+    /**
+     * 游标查询，返回的游标持有Statement，由游标负责关闭
+     */
+    protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql)
+            throws SQLException;
+
     protected void closeStatement(Statement statement) {
         if (statement != null) {
             try {
@@ -24,6 +24,7 @@ import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.io.ObjectStreamException;
 import java.io.StreamCorruptedException;
 import java.util.Arrays;
@@ -31,9 +32,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.io.JavaSerializer;
+import org.apache.ibatis.io.Serializer;
+import org.apache.ibatis.io.Serializers;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 
 /**
+ * Serialized form of a lazy loading proxy. The state of the proxy is written with the serializer set in
+ * {@link Serializers}, Java serialization by default.
+ *
  * @author Eduardo Macarron
  * @author Franta Mejta
  */
@@ -66,27 +73,39 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
 
   @Override
   public final void writeExternal(final ObjectOutput out) throws IOException {
-    boolean firstRound = false;
+    if (stream.get() != null) {
+      /* A holder within the state of another one is written to the same stream */
+      writeState(out);
+      out.writeObject(new byte[0]);
+      return;
+    }
+
+    final Serializer serializer = Serializers.getDefault();
     final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    ObjectOutputStream os = stream.get();
-    if (os == null) {
-      os = new ObjectOutputStream(baos);
-      firstRound = true;
-      stream.set(os);
+    final ObjectOutputStream os = new ObjectOutputStream(baos);
+    stream.set(os);
+    try {
+      final byte[] bytes;
+      if (serializer instanceof JavaSerializer) {
+        writeState(os);
+        os.flush();
+        bytes = baos.toByteArray();
+      } else {
+        bytes = serializer.serialize(new Object[] { this.userBean, this.unloadedProperties, this.objectFactory,
+            this.constructorArgTypes, this.constructorArgs });
+      }
+      out.writeObject(bytes);
+    } finally {
+      stream.remove();
     }
+  }
 
+  private void writeState(final ObjectOutput os) throws IOException {
     os.writeObject(this.userBean);
     os.writeObject(this.unloadedProperties);
     os.writeObject(this.objectFactory);
     os.writeObject(this.constructorArgTypes);
     os.writeObject(this.constructorArgs);
-
-    final byte[] bytes = baos.toByteArray();
-    out.writeObject(bytes);
-
-    if (firstRound) {
-      stream.remove();
-    }
   }
 
   @Override
@@ -108,12 +127,21 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
 
     /* First run */
     try {
-      final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(this.userBeanBytes));
-      this.userBean = in.readObject();
-      this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) in.readObject();
-      this.objectFactory = (ObjectFactory) in.readObject();
-      this.constructorArgTypes = (Class<?>[]) in.readObject();
-      this.constructorArgs = (Object[]) in.readObject();
+      if (isJavaSerialization(this.userBeanBytes)) {
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(this.userBeanBytes));
+        this.userBean = in.readObject();
+        this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) in.readObject();
+        this.objectFactory = (ObjectFactory) in.readObject();
+        this.constructorArgTypes = (Class<?>[]) in.readObject();
+        this.constructorArgs = (Object[]) in.readObject();
+      } else {
+        final Object[] state = (Object[]) Serializers.getDefault().deserialize(this.userBeanBytes);
+        this.userBean = state[0];
+        this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) state[1];
+        this.objectFactory = (ObjectFactory) state[2];
+        this.constructorArgTypes = (Class<?>[]) state[3];
+        this.constructorArgs = (Object[]) state[4];
+      }
     } catch (final IOException ex) {
       throw (ObjectStreamException) new StreamCorruptedException().initCause(ex);
     } catch (final ClassNotFoundException ex) {
@@ -127,6 +155,11 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     return this.createDeserializationProxy(userBean, arrayProps, objectFactory, arrayTypes, arrayValues);
   }
 
+  private static boolean isJavaSerialization(byte[] bytes) {
+    return bytes.length > 1 && bytes[0] == (byte) (ObjectStreamConstants.STREAM_MAGIC >> 8)
+        && bytes[1] == (byte) ObjectStreamConstants.STREAM_MAGIC;
+  }
+
   protected abstract Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties, ObjectFactory objectFactory,
           List<Class<?>> constructorArgTypes, List<Object> constructorArgs);
 }
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.List;
+
+/**
+ * Rewrites a select so the database applies the offset and limit of a RowBounds,
+ * instead of the driver sending the skipped rows for the client to discard.
+ */
+public interface Dialect {
+
+  /**
+   * The offset and limit are bound as "?" placeholders, so every page of a select is the same statement
+   * for the statement caches of the driver and the database.
+   *
+   * @param sql the select to page, it may contain "?" placeholders
+   * @param offset rows to skip, 0 if none
+   * @param limit maximum rows to return, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} if unlimited
+   * @param pagingParameters receives the values of the placeholders the dialect adds, which must all follow those of the select
+   * @return the paged select, or null if this select must be paged on the client
+   */
+  String getPagingSql(String sql, int offset, int limit, List<Object> pagingParameters);
+
+  /**
+   * @return false if the dialect can only limit the rows, then it is given the offset plus the limit
+   *         and the client skips the offset
+   */
+  boolean supportsOffset();
+
+}
@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dialects by database id. Ids are the names returned by a DatabaseIdProvider, either an alias
+ * like "mysql" or a product name like "HSQL Database Engine", and are not case sensitive.
+ * A product name that starts with a registered id also matches it, e.g. "DB2/LINUXX8664".
+ */
+public class DialectRegistry {
+
+  private final Map<String, Dialect> dialects = new LinkedHashMap<String, Dialect>();
+
+  public DialectRegistry() {
+    final Dialect limitOffset = new LimitOffsetDialect();
+    final Dialect offsetFetch = new OffsetFetchDialect();
+    register("mysql", limitOffset);
+    register("mariadb", limitOffset);
+    register("postgresql", limitOffset);
+    register("hsqldb", limitOffset);
+    register("hsql", limitOffset);
+    register("hsql database engine", limitOffset);
+    register("h2", limitOffset);
+    register("sqlite", limitOffset);
+    register("derby", offsetFetch);
+    register("apache derby", offsetFetch);
+    register("db2", offsetFetch);
+    register("sqlserver", offsetFetch);
+    register("microsoft sql server", offsetFetch);
+    register("oracle", new RowNumDialect());
+  }
+
+  public void register(String databaseId, Dialect dialect) {
+    if (databaseId == null) {
+      throw new IllegalArgumentException("null is not a valid database id");
+    }
+    if (dialect == null) {
+      throw new IllegalArgumentException("null is not a valid Dialect");
+    }
+    dialects.put(databaseId.toLowerCase(Locale.ENGLISH), dialect);
+  }
+
+  public Dialect getDialect(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    final String key = databaseId.toLowerCase(Locale.ENGLISH);
+    Dialect dialect = dialects.get(key);
+    if (dialect == null) {
+      for (Map.Entry<String, Dialect> entry : dialects.entrySet()) {
+        if (key.startsWith(entry.getKey())) {
+          return entry.getValue();
+        }
+      }
+    }
+    return dialect;
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.KeysetColumn;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetToken;
+
+/**
+ * Keyset (seek) paging. The select is wrapped in a derived table that is filtered by the sort keys
+ * of the last row of the previous page and ordered by the keyset columns, so each page is read from
+ * the index instead of skipping all the previous rows.
+ * <p>
+ * Keyset columns are columns of the statement results and must not be null.
+ * The statement itself should not be ordered, the order is given by the keyset.
+ */
+public final class KeysetPaging {
+
+  private static final String KEYSET_PARAMETER_PREFIX = "__keyset_";
+
+  private KeysetPaging() {
+    // Prevent Instantiation of Static Class
+  }
+
+  public static BoundSql applyKeyset(MappedStatement ms, BoundSql boundSql, KeysetToken token) {
+    final List<KeysetColumn> columns = ms.getKeysetColumns();
+    final Configuration configuration = ms.getConfiguration();
+    final StringBuilder sql = new StringBuilder(boundSql.getSql().length() + 128);
+    sql.append("SELECT * FROM (").append(boundSql.getSql()).append(") MYBATIS_KEYSET_");
+    final List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+    if (!token.isFirstPage()) {
+      final Object[] lastKeys = token.getLastKeys();
+      if (lastKeys.length != columns.size()) {
+        throw new ExecutorException("Keyset token has " + lastKeys.length + " keys but statement " + ms.getId() + " is paged by " + columns);
+      }
+      for (int i = 0; i < lastKeys.length; i++) {
+        if (lastKeys[i] == null) {
+          throw new ExecutorException("Keyset column " + columns.get(i).getColumn() + " of statement " + ms.getId() + " cannot be null");
+        }
+        boundSql.setAdditionalParameter(KEYSET_PARAMETER_PREFIX + i, lastKeys[i]);
+      }
+      // (c1 > ?) OR (c1 = ? AND c2 > ?) ..., row value comparisons are not supported by every database
+      sql.append(" WHERE ");
+      for (int i = 0; i < columns.size(); i++) {
+        if (i > 0) {
+          sql.append(" OR ");
+        }
+        sql.append('(');
+        for (int j = 0; j < i; j++) {
+          sql.append(columns.get(j).getColumn()).append(" = ? AND ");
+          parameterMappings.add(keyParameterMapping(configuration, j, lastKeys[j]));
+        }
+        sql.append(columns.get(i).getColumn()).append(columns.get(i).isDescending() ? " < ?" : " > ?").append(')');
+        parameterMappings.add(keyParameterMapping(configuration, i, lastKeys[i]));
+      }
+    }
+    sql.append(" ORDER BY ");
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(columns.get(i));
+    }
+    return new BoundSql(sql.toString(), parameterMappings, boundSql);
+  }
+
+  /**
+   * Reads the sort keys of a result object to build the token of the next page.
+   */
+  public static Object[] extractKeys(MappedStatement ms, Object row) {
+    final List<KeysetColumn> columns = ms.getKeysetColumns();
+    final Configuration configuration = ms.getConfiguration();
+    final Object[] keys = new Object[columns.size()];
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(row.getClass()) && keys.length == 1) {
+      keys[0] = row;
+      return keys;
+    }
+    final MetaObject metaObject = configuration.newMetaObject(row);
+    for (int i = 0; i < keys.length; i++) {
+      final String column = columns.get(i).getColumn();
+      final String property = findProperty(ms, metaObject, row, column);
+      if (property == null) {
+        throw new ExecutorException("No property found for keyset column " + column + " of statement " + ms.getId());
+      }
+      keys[i] = metaObject.getValue(property);
+    }
+    return keys;
+  }
+
+  private static String findProperty(MappedStatement ms, MetaObject metaObject, Object row, String column) {
+    for (ResultMap resultMap : ms.getResultMaps()) {
+      for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+        if (column.equalsIgnoreCase(resultMapping.getColumn()) && resultMapping.getProperty() != null) {
+          return resultMapping.getProperty();
+        }
+      }
+    }
+    if (row instanceof Map) {
+      for (Object key : ((Map<?, ?>) row).keySet()) {
+        if (key instanceof String && column.equalsIgnoreCase((String) key)) {
+          return (String) key;
+        }
+      }
+      return null;
+    }
+    return metaObject.findProperty(column, ms.getConfiguration().isMapUnderscoreToCamelCase());
+  }
+
+  private static ParameterMapping keyParameterMapping(Configuration configuration, int index, Object key) {
+    final Class<?> javaType = configuration.getTypeHandlerRegistry().hasTypeHandler(key.getClass()) ? key.getClass() : Object.class;
+    return new ParameterMapping.Builder(configuration, KEYSET_PARAMETER_PREFIX + index, javaType).build();
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * LIMIT n OFFSET m as understood by MySQL, PostgreSQL, HSQLDB, H2 and SQLite.
+ * The clause goes before a trailing FOR UPDATE or LOCK IN SHARE MODE.
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  public String getPagingSql(String sql, int offset, int limit, List<Object> pagingParameters) {
+    final PagingSql select = PagingSql.parse(sql);
+    final StringBuilder pagingSql = new StringBuilder(sql.length() + 32).append(select.getQuery());
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pagingSql.append(" LIMIT ?");
+      pagingParameters.add(limit);
+    } else if (offset > 0) {
+      // MySQL and SQLite do not accept an OFFSET without a LIMIT
+      pagingSql.append(" LIMIT ?");
+      pagingParameters.add(Long.MAX_VALUE);
+    }
+    if (offset > 0) {
+      pagingSql.append(" OFFSET ?");
+      pagingParameters.add(offset);
+    }
+    pagingSql.append(select.getLockClause());
+    return pagingSql.toString();
+  }
+
+  public boolean supportsOffset() {
+    return true;
+  }
+
+}
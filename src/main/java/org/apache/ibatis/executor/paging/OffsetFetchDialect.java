@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The SQL:2008 OFFSET m ROWS FETCH NEXT n ROWS ONLY clause used by Derby, DB2 and SQL Server 2012.
+ * SQL Server only accepts it after an ORDER BY so paged statements must be ordered.
+ * The clause goes before a trailing FOR UPDATE or FOR READ ONLY.
+ */
+public class OffsetFetchDialect implements Dialect {
+
+  public String getPagingSql(String sql, int offset, int limit, List<Object> pagingParameters) {
+    final PagingSql select = PagingSql.parse(sql);
+    final StringBuilder pagingSql = new StringBuilder(sql.length() + 48).append(select.getQuery());
+    pagingSql.append(" OFFSET ? ROWS");
+    pagingParameters.add(offset);
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pagingSql.append(" FETCH NEXT ? ROWS ONLY");
+      pagingParameters.add(limit);
+    }
+    pagingSql.append(select.getLockClause());
+    return pagingSql.toString();
+  }
+
+  public boolean supportsOffset() {
+    return true;
+  }
+
+}
@@ -0,0 +1,36 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Row bounds of a select the database already paged. The client neither skips nor limits its rows,
+ * which still count their index from the offset of the page.
+ */
+public class PagedRowBounds extends RowBounds {
+
+  private final int firstRowIndex;
+
+  public PagedRowBounds(int firstRowIndex) {
+    this.firstRowIndex = firstRowIndex;
+  }
+
+  public int getFirstRowIndex() {
+    return firstRowIndex;
+  }
+
+}
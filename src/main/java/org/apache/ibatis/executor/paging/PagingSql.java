@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.Locale;
+
+/**
+ * A select split into the query and its trailing locking clause, without the semicolons and comments
+ * that end the statement. Paging clauses are appended to the query and must come before FOR UPDATE
+ * or LOCK IN SHARE MODE, and a trailing line comment would hide them.
+ */
+final class PagingSql {
+
+  private final String query;
+  private final String lockClause;
+
+  private PagingSql(String query, String lockClause) {
+    this.query = query;
+    this.lockClause = lockClause;
+  }
+
+  static PagingSql parse(String sql) {
+    final int length = sql.length();
+    // end of the last token that is not a comment or a semicolon
+    int end = 0;
+    int depth = 0;
+    int lockStart = -1;
+    String previousWord = null;
+    int previousWordStart = -1;
+    int i = 0;
+    while (i < length) {
+      final char c = sql.charAt(i);
+      if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        final int lineEnd = sql.indexOf('\n', i);
+        i = lineEnd < 0 ? length : lineEnd + 1;
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        final int commentEnd = sql.indexOf("*/", i + 2);
+        i = commentEnd < 0 ? length : commentEnd + 2;
+      } else if (Character.isWhitespace(c) || c == ';') {
+        i++;
+      } else if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i, c);
+        end = i;
+        previousWord = null;
+      } else if (Character.isLetter(c) || c == '_') {
+        int wordEnd = i + 1;
+        while (wordEnd < length && (Character.isLetterOrDigit(sql.charAt(wordEnd)) || sql.charAt(wordEnd) == '_' || sql.charAt(wordEnd) == '$')) {
+          wordEnd++;
+        }
+        final String word = sql.substring(i, wordEnd).toUpperCase(Locale.ENGLISH);
+        if (depth == 0 && lockStart < 0 && isLockClause(previousWord, word)) {
+          lockStart = previousWordStart;
+        }
+        previousWord = word;
+        previousWordStart = i;
+        end = wordEnd;
+        i = wordEnd;
+      } else {
+        if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        }
+        i++;
+        end = i;
+        previousWord = null;
+      }
+    }
+    if (lockStart < 0) {
+      return new PagingSql(sql.substring(0, end), "");
+    }
+    return new PagingSql(sql.substring(0, lockStart).trim(), " " + sql.substring(lockStart, end));
+  }
+
+  /**
+   * FOR UPDATE, FOR SHARE, FOR NO KEY UPDATE, FOR KEY SHARE, FOR READ ONLY, FOR FETCH ONLY and LOCK IN SHARE MODE.
+   */
+  private static boolean isLockClause(String previousWord, String word) {
+    if ("FOR".equals(previousWord)) {
+      return "UPDATE".equals(word) || "SHARE".equals(word) || "NO".equals(word) || "KEY".equals(word) || "READ".equals(word)
+          || "FETCH".equals(word);
+    }
+    return "LOCK".equals(previousWord) && "IN".equals(word);
+  }
+
+  private static int skipQuoted(String sql, int start, char quote) {
+    int i = start + 1;
+    while (i < sql.length()) {
+      if (sql.charAt(i) == quote) {
+        // a doubled quote is an escaped quote
+        if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * The select without its locking clause, trailing comments and semicolons.
+   */
+  String getQuery() {
+    return query;
+  }
+
+  /**
+   * The locking clause preceded by a space, or an empty string if there is none.
+   */
+  String getLockClause() {
+    return lockClause;
+  }
+
+}
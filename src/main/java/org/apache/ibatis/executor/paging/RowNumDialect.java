@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Oracle before 12c has no paging clause, the select is nested and limited by ROWNUM.
+ * The offset is skipped on the client from the rows the database limited.
+ */
+public class RowNumDialect implements Dialect {
+
+  public String getPagingSql(String sql, int offset, int limit, List<Object> pagingParameters) {
+    final PagingSql select = PagingSql.parse(sql);
+    // Oracle does not lock the rows of a view filtered by ROWNUM
+    if (limit == RowBounds.NO_ROW_LIMIT || select.getLockClause().length() > 0) {
+      return null;
+    }
+    // a trailing line comment would hide the closing parenthesis
+    final StringBuilder pagingSql = new StringBuilder(sql.length() + 64);
+    pagingSql.append("SELECT MYBATIS_PAGE_.* FROM (").append(select.getQuery()).append(") MYBATIS_PAGE_ WHERE ROWNUM <= ?");
+    pagingParameters.add(limit);
+    return pagingSql.toString();
+  }
+
+  /**
+   * Skipping rows by ROWNUM needs it in the select list, where it would be mapped as a column.
+   */
+  public boolean supportsOffset() {
+    return false;
+  }
+
+}
@@ -0,0 +1,169 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read only Map of a row of a resultType="map" statement. The keys are shared by all the rows of the
+ * result set through a {@link CompactMapRowLayout} and each row only holds its values, so a row costs
+ * an Object[] instead of a HashMap with an entry per column.
+ * <p>
+ * Columns that were not set, because they were null and callSettersOnNulls is false, are not keys of the row.
+ */
+final class CompactMapRow extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  enum Absent {
+    INSTANCE
+  }
+
+  private final CompactMapRowLayout layout;
+  private final Object[] values;
+  private final int size;
+
+  /**
+   * @param values values by slot of the layout, {@link Absent#INSTANCE} for columns that are not keys of this row
+   */
+  CompactMapRow(CompactMapRowLayout layout, Object[] values) {
+    this.layout = layout;
+    this.values = values;
+    int present = 0;
+    for (Object value : values) {
+      if (value != Absent.INSTANCE) {
+        present++;
+      }
+    }
+    this.size = present;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    final int slot = layout.getSlot(key);
+    return slot >= 0 && values[slot] != Absent.INSTANCE;
+  }
+
+  @Override
+  public Object get(Object key) {
+    final int slot = layout.getSlot(key);
+    if (slot < 0) {
+      return null;
+    }
+    final Object value = values[slot];
+    return value == Absent.INSTANCE ? null : value;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    return new AbstractSet<Map.Entry<String, Object>>() {
+      @Override
+      public Iterator<Map.Entry<String, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+    private int next = nextSlot(0);
+
+    public boolean hasNext() {
+      return next < values.length;
+    }
+
+    public Map.Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<String, Object> entry = new Entry(layout.getKey(next), values[next]);
+      next = nextSlot(next + 1);
+      return entry;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException("Rows of a compact map result are read only");
+    }
+
+    private int nextSlot(int slot) {
+      while (slot < values.length && values[slot] == Absent.INSTANCE) {
+        slot++;
+      }
+      return slot;
+    }
+
+  }
+
+  private static final class Entry implements Map.Entry<String, Object> {
+
+    private final String key;
+    private final Object value;
+
+    Entry(String key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public Object setValue(Object value) {
+      throw new UnsupportedOperationException("Rows of a compact map result are read only");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      return key.equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+
+  }
+
+}
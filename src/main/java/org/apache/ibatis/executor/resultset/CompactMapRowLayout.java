@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The keys of the {@link CompactMapRow}s of a result set and the slot each auto mapped column is stored in.
+ * It is built once per ResultSetWrapper and shared by all its rows.
+ */
+final class CompactMapRowLayout implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String[] keys;
+  private final Map<String, Integer> slots;
+  private final transient List<RowMappingPlan.AutoMapping> mappings;
+  private final transient int[] mappingSlots;
+
+  CompactMapRowLayout(List<RowMappingPlan.AutoMapping> mappings) {
+    final List<String> keyList = new ArrayList<String>();
+    this.slots = new HashMap<String, Integer>();
+    this.mappingSlots = new int[mappings.size()];
+    for (int i = 0; i < mappings.size(); i++) {
+      final String key = mappings.get(i).property;
+      Integer slot = slots.get(key);
+      if (slot == null) {
+        // like a HashMap a repeated column name is stored under a single key
+        slot = keyList.size();
+        keyList.add(key);
+        slots.put(key, slot);
+      }
+      mappingSlots[i] = slot;
+    }
+    this.keys = keyList.toArray(new String[keyList.size()]);
+    this.mappings = mappings;
+  }
+
+  int size() {
+    return keys.length;
+  }
+
+  String getKey(int slot) {
+    return keys[slot];
+  }
+
+  int getSlot(Object key) {
+    final Integer slot = slots.get(key);
+    return slot == null ? -1 : slot;
+  }
+
+  List<RowMappingPlan.AutoMapping> getMappings() {
+    return mappings;
+  }
+
+  int getMappingSlot(int mapping) {
+    return mappingSlots[mapping];
+  }
+
+}
@@ -17,17 +17,28 @@ package org.apache.ibatis.executor.resultset;
 
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.columnar.ColumnarResult;
+import org.apache.ibatis.columnar.ColumnarResultBuilder;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.ResultLoader;
@@ -42,9 +53,11 @@ import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
-import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
@@ -60,6 +73,7 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public class DefaultResultSetHandler implements ResultSetHandler {
 
     private static final Object NO_VALUE = new Object();
+    private static final int PARALLEL_MAPPING_BATCH_SIZE = 256;
 
     private final Executor executor;
     private final Configuration configuration;
@@ -70,17 +84,29 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private final BoundSql boundSql;
     private final TypeHandlerRegistry typeHandlerRegistry;
     private final ObjectFactory objectFactory;
+    /**
+     * 只有默认的ObjectFactory才能绕过它直接调用构造函数，自定义的ObjectFactory必须每次都被调用
+     */
+    private final boolean directConstructorInstantiation;
+    /**
+     * 开启useCompactMapRows并且使用默认的ObjectFactory和ObjectWrapperFactory时，resultType="map"的行用CompactMapRow保存
+     */
+    private final boolean compactMapRows;
 
     /**
      * nested resultmaps
      * 用来保存当前层级内部的结果对象（一对多关系的多方对象），key为combinedKey
      */
-    private final Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
+    private final Map<RowKey, Object> nestedResultObjects = new HashMap<RowKey, Object>();
     /**
      * 用来保存当前层级的根对象（一对多关系中的一方对象），key为absoluteKey
      */
-    private final Map<CacheKey, Object> ancestorObjects = new HashMap<CacheKey, Object>();
+    private final Map<RowKey, Object> ancestorObjects = new HashMap<RowKey, Object>();
     private final Map<String, String> ancestorColumnPrefix = new HashMap<String, String>();
+    /**
+     * 有序嵌套结果映射中，被中途停止的处理所留下的当前根对象，下一次处理时继续填充（用于Cursor逐个获取对象）
+     */
+    private Object previousRowValue;
 
     /**
      * multiple resultsets
@@ -103,6 +129,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         this.boundSql = boundSql;
         this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
         this.objectFactory = configuration.getObjectFactory();
+        this.directConstructorInstantiation = objectFactory.getClass() == DefaultObjectFactory.class;
+        this.compactMapRows = configuration.isUseCompactMapRows() && directConstructorInstantiation
+                && configuration.getObjectWrapperFactory().getClass() == DefaultObjectWrapperFactory.class;
         this.resultHandler = resultHandler;
     }
 
@@ -179,6 +208,28 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return collapseSingleResultList(multipleResults);
     }
 
+    public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
+        ResultSetWrapper rsw = getFirstResultSet(stmt);
+
+        List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+        int resultMapCount = resultMaps.size();
+        validateResultMapsCount(rsw, resultMapCount);
+        if (resultMapCount != 1) {
+            throw new ExecutorException("Cursor results cannot be mapped to multiple resultMaps");
+        }
+
+        ResultMap resultMap = resultMaps.get(0);
+        if (ColumnarResult.class.equals(resultMap.getType())) {
+            throw new ExecutorException("Statements with resultType=\"columnar\" read the whole result set into one ColumnarResult and cannot be used "
+                    + "with a Cursor. Use selectOne for '" + mappedStatement.getId() + "'.");
+        }
+        if (resultMap.hasNestedResultMaps() && !mappedStatement.isResultOrdered()) {
+            throw new ExecutorException("Mapped Statements with nested result mappings cannot be safely used with a Cursor. "
+                    + "Ensure your statement returns ordered data and set resultOrdered=true on '" + mappedStatement.getId() + "'.");
+        }
+        return new DefaultCursor<E>(this, resultMap, rsw, rowBounds);
+    }
+
     private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
         ResultSet rs = stmt.getResultSet();
         while (rs == null) {
@@ -225,6 +276,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private void cleanUpAfterHandlingResultSet() {
         nestedResultObjects.clear();
         ancestorColumnPrefix.clear();
+        previousRowValue = null;
     }
 
     private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -241,10 +293,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             } else {
                 if (resultHandler == null) {
                     DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
-                    handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+                    handleRowValuesOrInParallel(rsw, resultMap, defaultResultHandler);
                     multipleResults.add(defaultResultHandler.getResultList());
                 } else {
-                    handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
+                    handleRowValuesOrInParallel(rsw, resultMap, resultHandler);
                 }
             }
         } finally {
@@ -264,8 +316,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // HANDLE ROWS FOR SIMPLE RESULTMAP
     //
 
-    private void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds,
-                                 ResultMapping parentMapping) throws SQLException {
+    public void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds,
+                                ResultMapping parentMapping) throws SQLException {
         if (resultMap.hasNestedResultMaps()) {
             ensureNoRowBounds();
             checkResultHandler();
@@ -295,7 +347,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         DefaultResultContext resultContext = new DefaultResultContext();
         skipRows(rsw.getResultSet(), rowBounds);
         while (shouldProcessMoreRows(rsw.getResultSet(), resultContext, rowBounds)) {
-            ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
+            ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw, resultMap, null);
             Object rowValue = getRowValue(rsw, discriminatedResultMap);
             storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
         }
@@ -331,11 +383,153 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
     }
 
+    //
+    // HANDLE COLUMNAR RESULT
+    //
+
+    /**
+     * resultType="columnar"的语句不为每一行创建对象，整个结果集按列读入一个ColumnarResult
+     */
+    private void handleColumnarResult(ResultSetWrapper rsw, ResultHandler resultHandler) throws SQLException {
+        final ResultSet rs = rsw.getResultSet();
+        final ColumnarResultBuilder builder = new ColumnarResultBuilder(rsw.getColumnNames(), rs.getMetaData());
+        skipRows(rs, rowBounds);
+        int rowCount = 0;
+        while (rowCount < rowBounds.getLimit() && rs.next()) {
+            builder.addRow(rs);
+            rowCount++;
+        }
+        callResultHandler(resultHandler, new DefaultResultContext(), builder.build());
+    }
+
+    //
+    // HANDLE ROWS IN PARALLEL
+    //
+
+    private void handleRowValuesOrInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler) throws SQLException {
+        if (ColumnarResult.class.equals(resultMap.getType())) {
+            handleColumnarResult(rsw, resultHandler);
+        } else if (canMapInParallel(resultMap)) {
+            handleRowValuesInParallel(rsw, resultMap, resultHandler);
+        } else {
+            handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
+        }
+    }
+
+    private boolean canMapInParallel(ResultMap resultMap) {
+        // 只有每一行可以独立映射时才并行：没有嵌套结果、嵌套查询、鉴别器和多结果集关联
+        if (!mappedStatement.isParallelMapping() || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()
+                || resultMap.getDiscriminator() != null) {
+            return false;
+        }
+        for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+            if (resultMapping.getResultSet() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The JDBC thread only reads raw column values, batches of rows are mapped by the parallel mapping executor.
+     * Batches are handed to the result handler in the order they were read so results keep the row order.
+     */
+    private void handleRowValuesInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler) throws SQLException {
+        final ExecutorService executorService = configuration.getParallelMappingExecutor();
+        final int maxPendingBatches = Runtime.getRuntime().availableProcessors() * 2;
+        final ResultSet rs = rsw.getResultSet();
+        final ResultSetMetaData metaData = rs.getMetaData();
+        final DefaultResultContext resultContext = new DefaultResultContext();
+        final LinkedList<Future<List<Object>>> pendingBatches = new LinkedList<Future<List<Object>>>();
+        try {
+            skipRows(rs, rowBounds);
+            int rowCount = 0;
+            List<Object[]> rows = new ArrayList<Object[]>(PARALLEL_MAPPING_BATCH_SIZE);
+            while (!resultContext.isStopped() && rowCount < rowBounds.getLimit() && rs.next()) {
+                rows.add(RowBatchResultSet.readRow(rs, rsw.getJdbcTypes()));
+                rowCount++;
+                if (rows.size() == PARALLEL_MAPPING_BATCH_SIZE) {
+                    pendingBatches.add(executorService.submit(new RowBatchMapper(rsw, metaData, resultMap, rows)));
+                    rows = new ArrayList<Object[]>(PARALLEL_MAPPING_BATCH_SIZE);
+                    // 限制已读取但未映射的批次数量，避免大结果集占满内存
+                    if (pendingBatches.size() >= maxPendingBatches) {
+                        storeBatch(resultHandler, resultContext, pendingBatches.removeFirst());
+                    }
+                }
+            }
+            if (!rows.isEmpty()) {
+                pendingBatches.add(executorService.submit(new RowBatchMapper(rsw, metaData, resultMap, rows)));
+            }
+            while (!resultContext.isStopped() && !pendingBatches.isEmpty()) {
+                storeBatch(resultHandler, resultContext, pendingBatches.removeFirst());
+            }
+        } finally {
+            for (Future<List<Object>> pendingBatch : pendingBatches) {
+                pendingBatch.cancel(true);
+            }
+        }
+    }
+
+    private void storeBatch(ResultHandler resultHandler, DefaultResultContext resultContext, Future<List<Object>> batch) throws SQLException {
+        final List<Object> rowValues = getBatchResult(batch);
+        for (int i = 0, n = rowValues.size(); i < n && !resultContext.isStopped(); i++) {
+            callResultHandler(resultHandler, resultContext, rowValues.get(i));
+        }
+    }
+
+    private List<Object> getBatchResult(Future<List<Object>> batch) throws SQLException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutorException("Interrupted while waiting for mapped rows.  Cause: " + e, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ExecutorException("Error mapping rows in parallel.  Cause: " + cause, cause);
+        }
+    }
+
+    private class RowBatchMapper implements Callable<List<Object>> {
+
+        private final ResultSetWrapper template;
+        private final ResultSetMetaData metaData;
+        private final ResultMap resultMap;
+        private final List<Object[]> rows;
+
+        RowBatchMapper(ResultSetWrapper template, ResultSetMetaData metaData, ResultMap resultMap, List<Object[]> rows) {
+            this.template = template;
+            this.metaData = metaData;
+            this.resultMap = resultMap;
+            this.rows = rows;
+        }
+
+        public List<Object> call() throws Exception {
+            final ResultSet batchResultSet = RowBatchResultSet.newInstance(rows, template.getColumnNames(), metaData);
+            final ResultSetWrapper batchRsw = new ResultSetWrapper(batchResultSet, template);
+            final List<Object> rowValues = new ArrayList<Object>(rows.size());
+            while (batchResultSet.next()) {
+                rowValues.add(getRowValue(batchRsw, resultMap));
+            }
+            return rowValues;
+        }
+
+    }
+
     //
     // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
     //
 
     private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        if (compactMapRows && isCompactMapResult(resultMap)) {
+            return getCompactMapRowValue(rsw, resultMap);
+        }
         final ResultLoaderMap lazyLoader = new ResultLoaderMap();
         Object resultObject = createResultObject(rsw, resultMap, lazyLoader, null);
         if (resultObject != null && !typeHandlerRegistry.hasTypeHandler(resultMap.getType())) {
@@ -352,6 +546,31 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return resultObject;
     }
 
+    /**
+     * 只有完全由自动映射填充的Map结果才能使用紧凑行，显式的映射可能包含嵌套属性
+     */
+    private boolean isCompactMapResult(ResultMap resultMap) {
+        return Map.class.equals(resultMap.getType()) && resultMap.getResultMappings().isEmpty() && resultMap.getDiscriminator() == null
+                && shouldApplyAutomaticMappings(resultMap, !AutoMappingBehavior.NONE.equals(configuration.getAutoMappingBehavior()));
+    }
+
+    private Object getCompactMapRowValue(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+        final CompactMapRowLayout layout = rsw.getCompactMapRowLayout(resultMap, configuration);
+        final List<RowMappingPlan.AutoMapping> mappings = layout.getMappings();
+        final Object[] values = new Object[layout.size()];
+        Arrays.fill(values, CompactMapRow.Absent.INSTANCE);
+        boolean foundValues = false;
+        for (int i = 0, n = mappings.size(); i < n; i++) {
+            final RowMappingPlan.AutoMapping mapping = mappings.get(i);
+            final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex);
+            if (value != null || configuration.isCallSettersOnNulls()) { // issue #377, call setter on nulls
+                values[layout.getMappingSlot(i)] = value;
+                foundValues = true;
+            }
+        }
+        return foundValues ? new CompactMapRow(layout, values) : null;
+    }
+
     private boolean shouldApplyAutomaticMappings(ResultMap resultMap, boolean def) {
         return resultMap.getAutoMapping() != null ? resultMap.getAutoMapping() : def;
     }
@@ -362,70 +581,55 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, ResultLoaderMap lazyLoader,
                                           String columnPrefix) throws SQLException {
-        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        // 映射计划中只包含本结果集可以映射的属性，列名前缀已经处理过
+        final List<RowMappingPlan.PropertyMapping> propertyMappings = rsw.getRowMappingPlan(resultMap, columnPrefix).getPropertyMappings();
         boolean foundValues = false;
-        final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-        for (ResultMapping propertyMapping : propertyMappings) {
-            final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-            if (propertyMapping.isCompositeResult() || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) || propertyMapping.getResultSet() != null) {
-                Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
-                final String property = propertyMapping.getProperty(); // issue #541 make property optional
-                if (value != NO_VALUE && property != null && (value != null || configuration.isCallSettersOnNulls())) { // issue #377, call setter
-                    // on nulls
-                    if (value != null || !metaObject.getSetterType(property).isPrimitive()) {
-                        metaObject.setValue(property, value);
-                    }
-                    foundValues = true;
+        for (int i = 0, n = propertyMappings.size(); i < n; i++) {
+            final RowMappingPlan.PropertyMapping mapping = propertyMappings.get(i);
+            final ResultMapping propertyMapping = mapping.resultMapping;
+            Object value = getPropertyMappingValue(rsw, metaObject, mapping, lazyLoader, columnPrefix);
+            final String property = propertyMapping.getProperty(); // issue #541 make property optional
+            if (value != NO_VALUE && property != null && (value != null || configuration.isCallSettersOnNulls())) { // issue #377, call setter
+                // on nulls
+                if (value != null || !metaObject.getSetterType(property).isPrimitive()) {
+                    metaObject.setValue(property, value);
                 }
+                foundValues = true;
             }
         }
         return foundValues;
     }
 
-    private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader,
-                                           String columnPrefix) throws SQLException {
+    private Object getPropertyMappingValue(ResultSetWrapper rsw, MetaObject metaResultObject, RowMappingPlan.PropertyMapping mapping,
+                                           ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
+        final ResultMapping propertyMapping = mapping.resultMapping;
         if (propertyMapping.getNestedQueryId() != null) {
-            return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
+            return getNestedQueryMappingValue(rsw, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
         } else if (propertyMapping.getResultSet() != null) {
-            addPendingChildRelation(rs, metaResultObject, propertyMapping);
+            addPendingChildRelation(rsw.getResultSet(), metaResultObject, propertyMapping);
             return NO_VALUE;
         } else if (propertyMapping.getNestedResultMapId() != null) {
             // the user added a column attribute to a nested result map, ignore it
             return NO_VALUE;
         } else {
             final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
-            final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-            return typeHandler.getResult(rs, column);
+            return typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex);
         }
     }
 
     private boolean applyAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-        final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
+        // 未映射列与属性的对应关系、类型处理器只在第一次时解析，之后每一行直接复用
+        final List<RowMappingPlan.AutoMapping> autoMappings = rsw.getRowMappingPlan(resultMap, columnPrefix).getAutoMappings(rsw, resultMap,
+                metaObject, configuration);
         boolean foundValues = false;
-        for (String columnName : unmappedColumnNames) {
-            String propertyName = columnName;
-            if (columnPrefix != null && columnPrefix.length() > 0) {
-                // When columnPrefix is specified,
-                // ignore columns without the prefix.
-                if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
-                    propertyName = columnName.substring(columnPrefix.length());
-                } else {
-                    continue;
-                }
-            }
-            final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
-            if (property != null && metaObject.hasSetter(property)) {
-                final Class<?> propertyType = metaObject.getSetterType(property);
-                if (typeHandlerRegistry.hasTypeHandler(propertyType)) {
-                    final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-                    final Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
-                    if (value != null || configuration.isCallSettersOnNulls()) { // issue #377, call setter on nulls
-                        if (value != null || !propertyType.isPrimitive()) {
-                            metaObject.setValue(property, value);
-                        }
-                        foundValues = true;
-                    }
+        for (int i = 0, n = autoMappings.size(); i < n; i++) {
+            final RowMappingPlan.AutoMapping mapping = autoMappings.get(i);
+            final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex);
+            if (value != null || configuration.isCallSettersOnNulls()) { // issue #377, call setter on nulls
+                if (value != null || !mapping.primitive) {
+                    metaObject.setValue(mapping.property, value);
                 }
+                foundValues = true;
             }
         }
         return foundValues;
@@ -510,6 +714,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     //
 
     private Object createResultObject(ResultSetWrapper rsw, ResultMap resultMap, ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
+        if (directConstructorInstantiation && !resultMap.getConstructorResultMappings().isEmpty()) {
+            final RowMappingPlan.ConstructorMapping constructorMapping = rsw.getRowMappingPlan(resultMap, columnPrefix).getConstructorMapping(rsw,
+                    resultMap, configuration);
+            if (constructorMapping != null) {
+                return createResultObject(rsw, constructorMapping);
+            }
+        }
         final List<Class<?>> constructorArgTypes = new ArrayList<Class<?>>();
         final List<Object> constructorArgs = new ArrayList<Object>();
         final Object resultObject = createResultObject(rsw, resultMap, constructorArgTypes, constructorArgs, columnPrefix);
@@ -546,13 +757,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             final String column = constructorMapping.getColumn();
             final Object value;
             if (constructorMapping.getNestedQueryId() != null) {
-                value = getNestedQueryConstructorValue(rsw.getResultSet(), constructorMapping, columnPrefix);
+                value = getNestedQueryConstructorValue(rsw, constructorMapping, columnPrefix);
             } else if (constructorMapping.getNestedResultMapId() != null) {
                 final ResultMap resultMap = configuration.getResultMap(constructorMapping.getNestedResultMapId());
                 value = getRowValue(rsw, resultMap);
             } else {
                 final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-                value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+                value = getColumnValue(rsw, typeHandler, prependPrefix(column, columnPrefix));
             }
             constructorArgTypes.add(parameterType);
             constructorArgs.add(value);
@@ -561,6 +772,40 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
     }
 
+    /**
+     * 构造参数都来自列时，直接用缓存的构造函数实例化，不再为每一行创建参数类型和参数值的List
+     */
+    private Object createResultObject(ResultSetWrapper rsw, RowMappingPlan.ConstructorMapping constructorMapping) throws SQLException {
+        final ResultSet rs = rsw.getResultSet();
+        final Object[] args = new Object[constructorMapping.columns.length];
+        boolean foundValues = false;
+        for (int i = 0; i < args.length; i++) {
+            final int columnIndex = constructorMapping.columnIndexes[i];
+            final TypeHandler<?> typeHandler = constructorMapping.typeHandlers[i];
+            args[i] = columnIndex > 0 ? typeHandler.getResult(rs, columnIndex) : typeHandler.getResult(rs, constructorMapping.columns[i]);
+            foundValues = args[i] != null || foundValues;
+        }
+        if (!foundValues) {
+            return null;
+        }
+        try {
+            return constructorMapping.constructor.newInstance(args);
+        } catch (Exception e) {
+            StringBuilder argTypes = new StringBuilder();
+            for (Class<?> argType : constructorMapping.argTypes) {
+                argTypes.append(argType.getSimpleName());
+                argTypes.append(",");
+            }
+            StringBuilder argValues = new StringBuilder();
+            for (Object argValue : args) {
+                argValues.append(String.valueOf(argValue));
+                argValues.append(",");
+            }
+            throw new ReflectionException("Error instantiating " + constructorMapping.constructor.getDeclaringClass() + " with invalid types (" + argTypes
+                    + ") or values (" + argValues + "). " + "Cause: " + e, e);
+        }
+    }
+
     private Object createPrimitiveResultObject(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
         final Class<?> resultType = resultMap.getType();
         final String columnName;
@@ -572,6 +817,17 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             columnName = rsw.getColumnNames().get(0);
         }
         final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
+        return getColumnValue(rsw, typeHandler, columnName);
+    }
+
+    /**
+     * 按列序号读取列值，只有结果集中找不到该列时才交给驱动按列名查找
+     */
+    private Object getColumnValue(ResultSetWrapper rsw, TypeHandler<?> typeHandler, String columnName) throws SQLException {
+        final int columnIndex = rsw.getColumnIndex(columnName);
+        if (columnIndex > 0) {
+            return typeHandler.getResult(rsw.getResultSet(), columnIndex);
+        }
         return typeHandler.getResult(rsw.getResultSet(), columnName);
     }
 
@@ -579,11 +835,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // NESTED QUERY
     //
 
-    private Object getNestedQueryConstructorValue(ResultSet rs, ResultMapping constructorMapping, String columnPrefix) throws SQLException {
+    private Object getNestedQueryConstructorValue(ResultSetWrapper rsw, ResultMapping constructorMapping, String columnPrefix) throws SQLException {
         final String nestedQueryId = constructorMapping.getNestedQueryId();
         final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
         final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-        final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, constructorMapping, nestedQueryParameterType, columnPrefix);
+        final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rsw, constructorMapping, nestedQueryParameterType, columnPrefix);
         Object value = null;
         if (nestedQueryParameterObject != null) {
             final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
@@ -596,13 +852,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return value;
     }
 
-    private Object getNestedQueryMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader,
+    private Object getNestedQueryMappingValue(ResultSetWrapper rsw, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader,
                                               String columnPrefix) throws SQLException {
         final String nestedQueryId = propertyMapping.getNestedQueryId();
         final String property = propertyMapping.getProperty();
         final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
         final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-        final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+        final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rsw, propertyMapping, nestedQueryParameterType, columnPrefix);
         Object value = NO_VALUE;
         if (nestedQueryParameterObject != null) {
             final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
@@ -623,32 +879,32 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return value;
     }
 
-    private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
+    private Object prepareParameterForNestedQuery(ResultSetWrapper rsw, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
         if (resultMapping.isCompositeResult()) {
-            return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
+            return prepareCompositeKeyParameter(rsw, resultMapping, parameterType, columnPrefix);
         } else {
-            return prepareSimpleKeyParameter(rs, resultMapping, parameterType, columnPrefix);
+            return prepareSimpleKeyParameter(rsw, resultMapping, parameterType, columnPrefix);
         }
     }
 
-    private Object prepareSimpleKeyParameter(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
+    private Object prepareSimpleKeyParameter(ResultSetWrapper rsw, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
         final TypeHandler<?> typeHandler;
         if (typeHandlerRegistry.hasTypeHandler(parameterType)) {
             typeHandler = typeHandlerRegistry.getTypeHandler(parameterType);
         } else {
             typeHandler = typeHandlerRegistry.getUnknownTypeHandler();
         }
-        return typeHandler.getResult(rs, prependPrefix(resultMapping.getColumn(), columnPrefix));
+        return getColumnValue(rsw, typeHandler, prependPrefix(resultMapping.getColumn(), columnPrefix));
     }
 
-    private Object prepareCompositeKeyParameter(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
+    private Object prepareCompositeKeyParameter(ResultSetWrapper rsw, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
         final Object parameterObject = instantiateParameterObject(parameterType);
         final MetaObject metaObject = configuration.newMetaObject(parameterObject);
         boolean foundValues = false;
         for (ResultMapping innerResultMapping : resultMapping.getComposites()) {
             final Class<?> propType = metaObject.getSetterType(innerResultMapping.getProperty());
             final TypeHandler<?> typeHandler = typeHandlerRegistry.getTypeHandler(propType);
-            final Object propValue = typeHandler.getResult(rs, prependPrefix(innerResultMapping.getColumn(), columnPrefix));
+            final Object propValue = getColumnValue(rsw, typeHandler, prependPrefix(innerResultMapping.getColumn(), columnPrefix));
             if (propValue != null) { // issue #353 & #560 do not execute nested query if key is null
                 metaObject.setValue(innerResultMapping.getProperty(), propValue);
                 foundValues = true;
@@ -669,11 +925,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // DISCRIMINATOR
     //
 
-    public ResultMap resolveDiscriminatedResultMap(ResultSet rs, ResultMap resultMap, String columnPrefix) throws SQLException {
+    public ResultMap resolveDiscriminatedResultMap(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
         Set<String> pastDiscriminators = new HashSet<String>();
         Discriminator discriminator = resultMap.getDiscriminator();
         while (discriminator != null) {
-            final Object value = getDiscriminatorValue(rs, discriminator, columnPrefix);
+            final Object value = getDiscriminatorValue(rsw, discriminator, columnPrefix);
             final String discriminatedMapId = discriminator.getMapIdFor(String.valueOf(value));
             if (configuration.hasResultMap(discriminatedMapId)) {
                 resultMap = configuration.getResultMap(discriminatedMapId);
@@ -689,10 +945,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return resultMap;
     }
 
-    private Object getDiscriminatorValue(ResultSet rs, Discriminator discriminator, String columnPrefix) throws SQLException {
+    private Object getDiscriminatorValue(ResultSetWrapper rsw, Discriminator discriminator, String columnPrefix) throws SQLException {
         final ResultMapping resultMapping = discriminator.getResultMapping();
         final TypeHandler<?> typeHandler = resultMapping.getTypeHandler();
-        return typeHandler.getResult(rs, prependPrefix(resultMapping.getColumn(), columnPrefix));
+        return getColumnValue(rsw, typeHandler, prependPrefix(resultMapping.getColumn(), columnPrefix));
     }
 
     private String prependPrefix(String columnName, String prefix) {
@@ -719,14 +975,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         final DefaultResultContext resultContext = new DefaultResultContext();
         // 跳过rowBounds指定offset行偏移量
         skipRows(rsw.getResultSet(), rowBounds);
-        Object rowValue = null;
+        Object rowValue = previousRowValue;
+        previousRowValue = null;
         // 如何定义应该处理：上下文没有主动停止，结果集还有记录，且上下文中结果对象数量不足时，应该继续处理
         while (shouldProcessMoreRows(rsw.getResultSet(), resultContext, rowBounds)) {
             // 解决鉴别过的结果映射
             // 获取结果映射中的鉴别器，通过鉴别指定字段通过配置对象获取对应的另一个结果映射，循环往复，直到找不到鉴别器为止，返回最终的结果映射
-            final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
+            final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw, resultMap, null);
             // 创建缓存key，如何创建？
-            final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+            final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
             // 缓存中获取结果对象
             Object partialObject = nestedResultObjects.get(rowKey);
             // issue #577 && #542
@@ -746,7 +1003,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             }
         }
         if (rowValue != null && mappedStatement.isResultOrdered()) {
-            storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
+            if (resultContext.isStopped()) {
+                // 处理被中途停止，保留当前根对象，下一次处理时继续填充
+                previousRowValue = rowValue;
+            } else {
+                storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
+            }
         }
     }
 
@@ -754,7 +1016,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // GET VALUE FROM ROW FOR NESTED RESULT MAP
     //
 
-    private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, CacheKey absoluteKey, String columnPrefix,
+    private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, RowKey absoluteKey, String columnPrefix,
                                Object partialObject) throws SQLException {
         final String resultMapId = resultMap.getId();
         Object resultObject = partialObject;
@@ -779,12 +1041,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 foundValues = lazyLoader.size() > 0 || foundValues;
                 resultObject = foundValues ? resultObject : null;
             }
-            if (combinedKey != CacheKey.NULL_CACHE_KEY) nestedResultObjects.put(combinedKey, resultObject);
+            if (combinedKey != RowKey.NULL_ROW_KEY) nestedResultObjects.put(combinedKey, resultObject);
         }
         return resultObject;
     }
 
-    private void putAncestor(CacheKey rowKey, Object resultObject, String resultMapId, String columnPrefix) {
+    private void putAncestor(RowKey rowKey, Object resultObject, String resultMapId, String columnPrefix) {
         if (!ancestorColumnPrefix.containsKey(resultMapId)) {
             ancestorColumnPrefix.put(resultMapId, columnPrefix);
         }
@@ -796,15 +1058,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     //
 
     private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix,
-                                              CacheKey parentRowKey, boolean newObject) {
+                                              RowKey parentRowKey, boolean newObject) {
         boolean foundValues = false;
         for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
             final String nestedResultMapId = resultMapping.getNestedResultMapId();
             if (nestedResultMapId != null && resultMapping.getResultSet() == null) {
                 try {
                     final String columnPrefix = getColumnPrefix(parentPrefix, resultMapping);
-                    final ResultMap nestedResultMap = getNestedResultMap(rsw.getResultSet(), nestedResultMapId, columnPrefix);
-                    CacheKey rowKey = null;
+                    final ResultMap nestedResultMap = getNestedResultMap(rsw, nestedResultMapId, columnPrefix);
+                    RowKey rowKey = null;
                     Object ancestorObject = null;
                     if (ancestorColumnPrefix.containsKey(nestedResultMapId)) {
                         rowKey = createRowKey(nestedResultMap, rsw, ancestorColumnPrefix.get(nestedResultMapId));
@@ -814,11 +1076,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                         if (newObject) metaObject.setValue(resultMapping.getProperty(), ancestorObject);
                     } else {
                         rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-                        final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+                        final RowKey combinedKey = combineKeys(rowKey, parentRowKey);
                         Object rowValue = nestedResultObjects.get(combinedKey);
                         boolean knownValue = (rowValue != null);
                         final Object collectionProperty = instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject);
-                        if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw.getResultSet())) {
+                        if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
                             rowValue = getRowValue(rsw, nestedResultMap, combinedKey, rowKey, columnPrefix, rowValue);
                             if (rowValue != null && !knownValue) {
                                 if (collectionProperty != null) {
@@ -847,13 +1109,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return columnPrefix;
     }
 
-    private boolean anyNotNullColumnHasValue(ResultMapping resultMapping, String columnPrefix, ResultSet rs) throws SQLException {
+    private boolean anyNotNullColumnHasValue(ResultMapping resultMapping, String columnPrefix, ResultSetWrapper rsw) throws SQLException {
+        final ResultSet rs = rsw.getResultSet();
         Set<String> notNullColumns = resultMapping.getNotNullColumns();
         boolean anyNotNullColumnHasValue = true;
         if (notNullColumns != null && !notNullColumns.isEmpty()) {
             anyNotNullColumnHasValue = false;
             for (String column : notNullColumns) {
-                rs.getObject(prependPrefix(column, columnPrefix));
+                final String prefixedColumn = prependPrefix(column, columnPrefix);
+                final int columnIndex = rsw.getColumnIndex(prefixedColumn);
+                if (columnIndex > 0) {
+                    rs.getObject(columnIndex);
+                } else {
+                    rs.getObject(prefixedColumn);
+                }
                 if (!rs.wasNull()) {
                     anyNotNullColumnHasValue = true;
                     break;
@@ -863,9 +1132,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return anyNotNullColumnHasValue;
     }
 
-    private ResultMap getNestedResultMap(ResultSet rs, String nestedResultMapId, String columnPrefix) throws SQLException {
+    private ResultMap getNestedResultMap(ResultSetWrapper rsw, String nestedResultMapId, String columnPrefix) throws SQLException {
         ResultMap nestedResultMap = configuration.getResultMap(nestedResultMapId);
-        nestedResultMap = resolveDiscriminatedResultMap(rs, nestedResultMap, columnPrefix);
+        nestedResultMap = resolveDiscriminatedResultMap(rsw, nestedResultMap, columnPrefix);
         return nestedResultMap;
     }
 
@@ -873,99 +1142,26 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // UNIQUE RESULT KEY
     //
 
-    private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-        final CacheKey cacheKey = new CacheKey();
-        cacheKey.update(resultMap.getId());
-        List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
-        if (resultMappings.size() == 0) {
-            if (Map.class.isAssignableFrom(resultMap.getType())) {
-                createRowKeyForMap(rsw, cacheKey);
-            } else {
-                createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
-            }
-        } else {
-            createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
-        }
-        return cacheKey;
-    }
-
-    private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-        if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-            CacheKey combinedKey;
-            try {
-                combinedKey = rowKey.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-            }
-            combinedKey.update(parentRowKey);
-            return combinedKey;
-        }
-        return CacheKey.NULL_CACHE_KEY;
-    }
-
-    private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
-        List<ResultMapping> resultMappings = resultMap.getIdResultMappings();
-        if (resultMappings.size() == 0) {
-            resultMappings = resultMap.getPropertyResultMappings();
-        }
-        return resultMappings;
-    }
-
-    private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings,
-                                                 String columnPrefix) throws SQLException {
-        for (ResultMapping resultMapping : resultMappings) {
-            if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) { // Issue #392
-                final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-                createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey, nestedResultMap.getConstructorResultMappings(),
-                        prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
-            } else if (resultMapping.getNestedQueryId() == null) {
-                final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
-                final TypeHandler<?> th = resultMapping.getTypeHandler();
-                List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
-                if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) { // Issue #114
-                    final Object value = th.getResult(rsw.getResultSet(), column);
-                    if (value != null) {
-                        cacheKey.update(column);
-                        cacheKey.update(value);
-                    }
-                }
-            }
-        }
-    }
-
-    private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
-        final MetaClass metaType = MetaClass.forClass(resultMap.getType());
-        List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
-        for (String column : unmappedColumnNames) {
-            String property = column;
-            if (columnPrefix != null && columnPrefix.length() > 0) {
-                // When columnPrefix is specified,
-                // ignore columns without the prefix.
-                if (column.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
-                    property = column.substring(columnPrefix.length());
-                } else {
-                    continue;
-                }
-            }
-            if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-                String value = rsw.getResultSet().getString(column);
-                if (value != null) {
-                    cacheKey.update(column);
-                    cacheKey.update(value);
-                }
-            }
+    /**
+     * 行的标识只保存键列的值，键列在映射计划中只解析一次
+     */
+    private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+        final List<RowMappingPlan.RowKeyColumn> keyColumns = rsw.getRowMappingPlan(resultMap, columnPrefix).getRowKeyColumns(rsw, resultMap,
+                configuration);
+        final ResultSet rs = rsw.getResultSet();
+        final Object[] values = new Object[keyColumns.size()];
+        for (int i = 0; i < values.length; i++) {
+            final RowMappingPlan.RowKeyColumn keyColumn = keyColumns.get(i);
+            values[i] = keyColumn.typeHandler == null ? rs.getString(keyColumn.columnIndex) : keyColumn.typeHandler.getResult(rs, keyColumn.columnIndex);
         }
+        return new RowKey(resultMap.getId(), columnPrefix, values);
     }
 
-    private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
-        List<String> columnNames = rsw.getColumnNames();
-        for (String columnName : columnNames) {
-            final String value = rsw.getResultSet().getString(columnName);
-            if (value != null) {
-                cacheKey.update(columnName);
-                cacheKey.update(value);
-            }
+    private RowKey combineKeys(RowKey rowKey, RowKey parentRowKey) {
+        if (rowKey.getValueCount() > 0 && parentRowKey.getValueCount() > 0) {
+            return new RowKey(rowKey, parentRowKey);
         }
+        return RowKey.NULL_ROW_KEY;
     }
 
 }
@@ -21,6 +21,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -28,6 +29,7 @@ import java.util.Set;
 
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.ObjectTypeHandler;
@@ -38,20 +40,26 @@ import org.apache.ibatis.type.UnknownTypeHandler;
 /**
  * @author Iwao AVE!
  */
-class ResultSetWrapper {
+public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
+  private final RowMappingPlanCache rowMappingPlanCache;
   private final List<String> columnNames = new ArrayList<String>();
   private final List<String> classNames = new ArrayList<String>();
   private final List<JdbcType> jdbcTypes = new ArrayList<JdbcType>();
-  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<String, Map<Class<?>, TypeHandler<?>>>();
-  private Map<String, List<String>> mappedColumnNamesMap = new HashMap<String, List<String>>();
-  private Map<String, List<String>> unMappedColumnNamesMap = new HashMap<String, List<String>>();
+  private Map<String, Integer> columnIndexMap;
+  private final List<Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new ArrayList<Map<Class<?>, TypeHandler<?>>>();
+  private final Map<ResultMap, Map<String, Set<String>>> mappedColumnNamesMap = new IdentityHashMap<ResultMap, Map<String, Set<String>>>();
+  private final Map<ResultMap, Map<String, List<String>>> unMappedColumnNamesMap = new IdentityHashMap<ResultMap, Map<String, List<String>>>();
+  private final Map<ResultMap, Map<String, RowMappingPlan>> rowMappingPlans = new IdentityHashMap<ResultMap, Map<String, RowMappingPlan>>();
+  private final Map<ResultMap, CompactMapRowLayout> compactMapRowLayouts = new IdentityHashMap<ResultMap, CompactMapRowLayout>();
+  private String columnSignature;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    this.rowMappingPlanCache = configuration.getRowMappingPlanCache();
     this.resultSet = rs;
     final ResultSetMetaData metaData = rs.getMetaData();
     final int columnCount = metaData.getColumnCount();
@@ -59,9 +67,28 @@ class ResultSetWrapper {
       columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
       jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
       classNames.add(metaData.getColumnClassName(i));
+      typeHandlerMap.add(null);
     }
   }
 
+  /**
+   * Wraps a result set that has the same columns as the template, e.g. rows buffered for parallel mapping.
+   * Column metadata is shared but the per column caches are not, so each wrapper can be used on its own thread.
+   */
+  ResultSetWrapper(ResultSet rs, ResultSetWrapper template) {
+    super();
+    this.typeHandlerRegistry = template.typeHandlerRegistry;
+    this.rowMappingPlanCache = template.rowMappingPlanCache;
+    this.resultSet = rs;
+    this.columnNames.addAll(template.columnNames);
+    this.classNames.addAll(template.classNames);
+    this.jdbcTypes.addAll(template.jdbcTypes);
+    for (int i = 0; i < columnNames.size(); i++) {
+      typeHandlerMap.add(null);
+    }
+    this.columnSignature = template.getColumnSignature();
+  }
+
   public ResultSet getResultSet() {
     return resultSet;
   }
@@ -70,6 +97,44 @@ class ResultSetWrapper {
     return this.columnNames;
   }
 
+  List<JdbcType> getJdbcTypes() {
+    return jdbcTypes;
+  }
+
+  /**
+   * Gets the JDBC index of a column so that values can be read by index instead of making the driver
+   * resolve the name on every call. Like drivers do, the name is not case sensitive and the first
+   * matching column wins.
+   *
+   * @param columnName
+   * @return the 1-based column index or 0 if this result set has no such column
+   */
+  public int getColumnIndex(String columnName) {
+    if (columnName == null) {
+      return 0;
+    }
+    if (columnIndexMap == null) {
+      columnIndexMap = new HashMap<String, Integer>();
+      for (int i = 0; i < columnNames.size(); i++) {
+        final String upperColumnName = columnNames.get(i).toUpperCase(Locale.ENGLISH);
+        Integer firstIndex = columnIndexMap.get(upperColumnName);
+        if (firstIndex == null) {
+          firstIndex = i + 1;
+          columnIndexMap.put(upperColumnName, firstIndex);
+        }
+        // names as returned by the driver are found without upper casing the lookup key
+        if (!columnIndexMap.containsKey(columnNames.get(i))) {
+          columnIndexMap.put(columnNames.get(i), firstIndex);
+        }
+      }
+    }
+    Integer columnIndex = columnIndexMap.get(columnName);
+    if (columnIndex == null) {
+      columnIndex = columnIndexMap.get(columnName.toUpperCase(Locale.ENGLISH));
+    }
+    return columnIndex == null ? 0 : columnIndex;
+  }
+
   /**
    * Gets the type handler to use when reading the result set.
    * Tries to get from the TypeHandlerRegistry by searching for the property type.
@@ -80,38 +145,44 @@ class ResultSetWrapper {
    * @return
    */
   public TypeHandler<?> getTypeHandler(Class<?> propertyType, String columnName) {
-    TypeHandler<?> handler = null;
-    Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
+    final int columnIndex = getColumnIndex(columnName);
+    if (columnIndex == 0) {
+      return resolveTypeHandler(propertyType, 0);
+    }
+    Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnIndex - 1);
     if (columnHandlers == null) {
       columnHandlers = new HashMap<Class<?>, TypeHandler<?>>();
-      typeHandlerMap.put(columnName, columnHandlers);
-    } else {
-      handler = columnHandlers.get(propertyType);
+      typeHandlerMap.set(columnIndex - 1, columnHandlers);
     }
+    TypeHandler<?> handler = columnHandlers.get(propertyType);
     if (handler == null) {
-      handler = typeHandlerRegistry.getTypeHandler(propertyType);
-      // Replicate logic of UnknownTypeHandler#resolveTypeHandler
-      // See issue #59 comment 10
-      if (handler == null || handler instanceof UnknownTypeHandler) {
-        final int index = columnNames.indexOf(columnName);
-        final JdbcType jdbcType = jdbcTypes.get(index);
-        final Class<?> javaType = resolveClass(classNames.get(index));
-        if (javaType != null && jdbcType != null) {
-          handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
-        } else if (javaType != null) {
-          handler = typeHandlerRegistry.getTypeHandler(javaType);
-        } else if (jdbcType != null) {
-          handler = typeHandlerRegistry.getTypeHandler(jdbcType);
-        }
-      }
-      if (handler == null || handler instanceof UnknownTypeHandler) {
-        handler = new ObjectTypeHandler();
-      }
+      handler = resolveTypeHandler(propertyType, columnIndex);
       columnHandlers.put(propertyType, handler);
     }
     return handler;
   }
 
+  private TypeHandler<?> resolveTypeHandler(Class<?> propertyType, int columnIndex) {
+    TypeHandler<?> handler = typeHandlerRegistry.getTypeHandler(propertyType);
+    // Replicate logic of UnknownTypeHandler#resolveTypeHandler
+    // See issue #59 comment 10
+    if ((handler == null || handler instanceof UnknownTypeHandler) && columnIndex > 0) {
+      final JdbcType jdbcType = jdbcTypes.get(columnIndex - 1);
+      final Class<?> javaType = resolveClass(classNames.get(columnIndex - 1));
+      if (javaType != null && jdbcType != null) {
+        handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
+      } else if (javaType != null) {
+        handler = typeHandlerRegistry.getTypeHandler(javaType);
+      } else if (jdbcType != null) {
+        handler = typeHandlerRegistry.getTypeHandler(jdbcType);
+      }
+    }
+    if (handler == null || handler instanceof UnknownTypeHandler) {
+      handler = new ObjectTypeHandler();
+    }
+    return handler;
+  }
+
   private Class<?> resolveClass(String className) {
     try {
       final Class<?> clazz = Resources.classForName(className);
@@ -122,7 +193,7 @@ class ResultSetWrapper {
   }
 
   private void loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> mappedColumnNames = new ArrayList<String>();
+    Set<String> mappedColumnNames = new HashSet<String>();
     List<String> unmappedColumnNames = new ArrayList<String>();
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
     final Set<String> mappedColumns = prependPrefixes(resultMap.getMappedColumns(), upperColumnPrefix);
@@ -134,30 +205,89 @@ class ResultSetWrapper {
         unmappedColumnNames.add(columnName);
       }
     }
-    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
-    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    getColumnNamesByPrefix(mappedColumnNamesMap, resultMap).put(columnPrefix, mappedColumnNames);
+    getColumnNamesByPrefix(unMappedColumnNamesMap, resultMap).put(columnPrefix, unmappedColumnNames);
   }
 
-  public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+  /**
+   * Gets the upper cased names of the columns of this result set that are mapped by the result map.
+   * It is a set so membership checks do not depend on the number of columns.
+   */
+  public Set<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
+    Set<String> mappedColumnNames = getColumnNamesByPrefix(mappedColumnNamesMap, resultMap).get(columnPrefix);
     if (mappedColumnNames == null) {
       loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+      mappedColumnNames = mappedColumnNamesMap.get(resultMap).get(columnPrefix);
     }
     return mappedColumnNames;
   }
 
   public List<String> getUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    List<String> unMappedColumnNames = getColumnNamesByPrefix(unMappedColumnNamesMap, resultMap).get(columnPrefix);
     if (unMappedColumnNames == null) {
       loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+      unMappedColumnNames = unMappedColumnNamesMap.get(resultMap).get(columnPrefix);
     }
     return unMappedColumnNames;
   }
 
-  private String getMapKey(ResultMap resultMap, String columnPrefix) {
-    return resultMap.getId() + ":" + columnPrefix;
+  private <T> Map<String, T> getColumnNamesByPrefix(Map<ResultMap, Map<String, T>> columnNamesMap, ResultMap resultMap) {
+    Map<String, T> columnNamesByPrefix = columnNamesMap.get(resultMap);
+    if (columnNamesByPrefix == null) {
+      columnNamesByPrefix = new HashMap<String, T>();
+      columnNamesMap.put(resultMap, columnNamesByPrefix);
+    }
+    return columnNamesByPrefix;
+  }
+
+  /**
+   * Gets the mapping plan of the result map for the columns of this result set.
+   * Plans are looked up once per result set in the configuration wide cache and then kept here.
+   *
+   * @param resultMap
+   * @param columnPrefix
+   * @return
+   * @throws SQLException
+   */
+  public RowMappingPlan getRowMappingPlan(ResultMap resultMap, String columnPrefix) throws SQLException {
+    Map<String, RowMappingPlan> plansByPrefix = rowMappingPlans.get(resultMap);
+    if (plansByPrefix == null) {
+      plansByPrefix = new HashMap<String, RowMappingPlan>();
+      rowMappingPlans.put(resultMap, plansByPrefix);
+    }
+    RowMappingPlan plan = plansByPrefix.get(columnPrefix);
+    if (plan == null) {
+      plan = rowMappingPlanCache.getPlan(this, resultMap, columnPrefix);
+      plansByPrefix.put(columnPrefix, plan);
+    }
+    return plan;
+  }
+
+  /**
+   * Gets the keys shared by the compact map rows of this result set, they are the auto mapped columns.
+   */
+  CompactMapRowLayout getCompactMapRowLayout(ResultMap resultMap, Configuration configuration) throws SQLException {
+    CompactMapRowLayout layout = compactMapRowLayouts.get(resultMap);
+    if (layout == null) {
+      final MetaObject metaObject = configuration.newMetaObject(new HashMap<String, Object>());
+      layout = new CompactMapRowLayout(getRowMappingPlan(resultMap, null).getAutoMappings(this, resultMap, metaObject, configuration));
+      compactMapRowLayouts.put(resultMap, layout);
+    }
+    return layout;
+  }
+
+  /**
+   * Names and types of the columns, two result sets with the same signature can share their mapping plans.
+   */
+  String getColumnSignature() {
+    if (columnSignature == null) {
+      final StringBuilder signature = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        signature.append(columnNames.get(i)).append(':').append(jdbcTypes.get(i)).append(':').append(classNames.get(i)).append(',');
+      }
+      columnSignature = signature.toString();
+    }
+    return columnSignature;
   }
 
   private Set<String> prependPrefixes(Set<String> columnNames, String prefix) {
@@ -0,0 +1,250 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Forward only ResultSet over rows that were already read from the database, so they can be mapped
+ * on another thread while the JDBC thread keeps reading. Only the getters, next and wasNull are supported.
+ */
+final class RowBatchResultSet implements InvocationHandler {
+
+  private final List<Object[]> rows;
+  private final List<String> columnNames;
+  private final ResultSetMetaData metaData;
+  private int position = -1;
+  private Object lastValue;
+
+  private RowBatchResultSet(List<Object[]> rows, List<String> columnNames, ResultSetMetaData metaData) {
+    this.rows = rows;
+    this.columnNames = columnNames;
+    this.metaData = metaData;
+  }
+
+  static ResultSet newInstance(List<Object[]> rows, List<String> columnNames, ResultSetMetaData metaData) {
+    InvocationHandler handler = new RowBatchResultSet(rows, columnNames, metaData);
+    ClassLoader cl = ResultSet.class.getClassLoader();
+    return (ResultSet) Proxy.newProxyInstance(cl, new Class[] { ResultSet.class }, handler);
+  }
+
+  /**
+   * Reads the current row of a result set. Temporal and LOB columns are read with their own getters
+   * so the values stay valid after the result set moves to the next row.
+   */
+  static Object[] readRow(ResultSet rs, List<JdbcType> jdbcTypes) throws SQLException {
+    final Object[] row = new Object[jdbcTypes.size()];
+    for (int i = 0; i < row.length; i++) {
+      final JdbcType jdbcType = jdbcTypes.get(i);
+      final int columnIndex = i + 1;
+      if (jdbcType == null) {
+        row[i] = rs.getObject(columnIndex);
+        continue;
+      }
+      switch (jdbcType) {
+        case DATE:
+          row[i] = rs.getDate(columnIndex);
+          break;
+        case TIME:
+          row[i] = rs.getTime(columnIndex);
+          break;
+        case TIMESTAMP:
+          row[i] = rs.getTimestamp(columnIndex);
+          break;
+        case BLOB:
+        case BINARY:
+        case VARBINARY:
+        case LONGVARBINARY:
+          row[i] = rs.getBytes(columnIndex);
+          break;
+        case CLOB:
+        case NCLOB:
+        case LONGVARCHAR:
+          row[i] = rs.getString(columnIndex);
+          break;
+        default:
+          row[i] = rs.getObject(columnIndex);
+      }
+    }
+    return row;
+  }
+
+  public Object invoke(Object proxy, Method method, Object[] params) throws Throwable {
+    try {
+      if (Object.class.equals(method.getDeclaringClass())) {
+        return method.invoke(this, params);
+      }
+      final String name = method.getName();
+      if ("next".equals(name)) {
+        position++;
+        return position < rows.size();
+      } else if ("wasNull".equals(name)) {
+        return lastValue == null;
+      } else if ("getMetaData".equals(name)) {
+        return metaData;
+      } else if ("getType".equals(name)) {
+        return ResultSet.TYPE_FORWARD_ONLY;
+      } else if ("findColumn".equals(name)) {
+        return findColumn((String) params[0]);
+      } else if ("close".equals(name) || "getStatement".equals(name) || "getWarnings".equals(name) || "clearWarnings".equals(name)) {
+        return null;
+      } else if ("isClosed".equals(name)) {
+        return false;
+      } else if (name.startsWith("get") && params != null && params.length > 0) {
+        final int columnIndex = params[0] instanceof Integer ? (Integer) params[0] : findColumn((String) params[0]);
+        if (position < 0 || position >= rows.size()) {
+          throw new SQLException("No current row");
+        }
+        final Object[] row = rows.get(position);
+        if (columnIndex < 1 || columnIndex > row.length) {
+          throw new SQLException("Invalid column index " + columnIndex);
+        }
+        lastValue = row[columnIndex - 1];
+        return convert(lastValue, method.getReturnType());
+      }
+      throw new SQLException(name + " is not supported on rows buffered for parallel mapping");
+    } catch (Throwable t) {
+      throw ExceptionUtil.unwrapThrowable(t);
+    }
+  }
+
+  private int findColumn(String columnName) throws SQLException {
+    for (int i = 0; i < columnNames.size(); i++) {
+      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+        return i + 1;
+      }
+    }
+    throw new SQLException("Column '" + columnName + "' not found");
+  }
+
+  private Object convert(Object value, Class<?> type) throws SQLException {
+    if (value == null) {
+      return type.isPrimitive() ? primitiveDefault(type) : null;
+    }
+    if (type == Object.class || type.isInstance(value)) {
+      return value;
+    }
+    if (type == String.class) {
+      return value.toString();
+    }
+    if (type == boolean.class || type == Boolean.class) {
+      if (value instanceof Number) {
+        return ((Number) value).intValue() != 0;
+      }
+      final String string = value.toString().trim();
+      return "1".equals(string) || "true".equalsIgnoreCase(string);
+    }
+    if (type.isPrimitive() || Number.class.isAssignableFrom(type)) {
+      return convertNumber(toNumber(value), type);
+    }
+    if (value instanceof java.util.Date) {
+      final long time = ((java.util.Date) value).getTime();
+      if (type == java.sql.Date.class) {
+        return new java.sql.Date(time);
+      } else if (type == Time.class) {
+        return new Time(time);
+      } else if (type == Timestamp.class) {
+        return new Timestamp(time);
+      }
+    }
+    if (type == byte[].class && value instanceof String) {
+      return ((String) value).getBytes();
+    }
+    if (type == Blob.class && value instanceof byte[]) {
+      return new SerialBlob((byte[]) value);
+    }
+    if (type == Clob.class) {
+      return new SerialClob(value.toString().toCharArray());
+    }
+    if (type == InputStream.class) {
+      return new ByteArrayInputStream(value instanceof byte[] ? (byte[]) value : value.toString().getBytes());
+    }
+    if (type == Reader.class) {
+      return new StringReader(value.toString());
+    }
+    throw new SQLException("Cannot convert value of " + value.getClass() + " to " + type);
+  }
+
+  private Number toNumber(Object value) {
+    if (value instanceof Number) {
+      return (Number) value;
+    } else if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    return new BigDecimal(value.toString().trim());
+  }
+
+  private Object convertNumber(Number number, Class<?> type) throws SQLException {
+    if (type == int.class || type == Integer.class) {
+      return number.intValue();
+    } else if (type == long.class || type == Long.class) {
+      return number.longValue();
+    } else if (type == double.class || type == Double.class) {
+      return number.doubleValue();
+    } else if (type == float.class || type == Float.class) {
+      return number.floatValue();
+    } else if (type == short.class || type == Short.class) {
+      return number.shortValue();
+    } else if (type == byte.class || type == Byte.class) {
+      return number.byteValue();
+    } else if (type == BigDecimal.class) {
+      return number instanceof BigDecimal ? number : new BigDecimal(number.toString());
+    }
+    throw new SQLException("Cannot convert value of " + number.getClass() + " to " + type.getName().toLowerCase(Locale.ENGLISH));
+  }
+
+  private Object primitiveDefault(Class<?> type) {
+    if (type == boolean.class) {
+      return Boolean.FALSE;
+    } else if (type == char.class) {
+      return (char) 0;
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == double.class) {
+      return 0d;
+    } else if (type == float.class) {
+      return 0f;
+    } else if (type == short.class) {
+      return (short) 0;
+    } else if (type == byte.class) {
+      return (byte) 0;
+    }
+    return 0;
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+/**
+ * Identity of a row for a nested result map. Unlike a CacheKey it keeps the key column values in a
+ * single array, positional by key column, and the key of a nested object refers to its parent key
+ * instead of copying it.
+ */
+final class RowKey {
+
+  static final RowKey NULL_ROW_KEY = new RowKey(null, null, new Object[0]);
+
+  private final String resultMapId;
+  private final String columnPrefix;
+  private final Object[] values;
+  private final RowKey parentRowKey;
+  private final int valueCount;
+  private final int hashCode;
+
+  RowKey(String resultMapId, String columnPrefix, Object[] values) {
+    this.resultMapId = resultMapId;
+    this.columnPrefix = columnPrefix;
+    this.values = values;
+    this.parentRowKey = null;
+    int count = 0;
+    for (Object value : values) {
+      if (value != null) {
+        count++;
+      }
+    }
+    this.valueCount = count;
+    int hash = resultMapId == null ? 0 : resultMapId.hashCode();
+    hash = 31 * hash + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+    this.hashCode = 31 * hash + Arrays.deepHashCode(values);
+  }
+
+  /**
+   * Key of a nested object within its parent.
+   */
+  RowKey(RowKey rowKey, RowKey parentRowKey) {
+    this.resultMapId = rowKey.resultMapId;
+    this.columnPrefix = rowKey.columnPrefix;
+    this.values = rowKey.values;
+    this.parentRowKey = parentRowKey;
+    this.valueCount = rowKey.valueCount + parentRowKey.valueCount;
+    this.hashCode = 31 * rowKey.hashCode + parentRowKey.hashCode;
+  }
+
+  /**
+   * Number of key columns that are not null, including the ones of the parent keys.
+   */
+  int getValueCount() {
+    return valueCount;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RowKey)) {
+      return false;
+    }
+    final RowKey other = (RowKey) o;
+    return hashCode == other.hashCode
+        && (resultMapId == null ? other.resultMapId == null : resultMapId.equals(other.resultMapId))
+        && (columnPrefix == null ? other.columnPrefix == null : columnPrefix.equals(other.columnPrefix))
+        && Arrays.deepEquals(values, other.values)
+        && (parentRowKey == null ? other.parentRowKey == null : parentRowKey.equals(other.parentRowKey));
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder().append(resultMapId).append(':').append(columnPrefix).append(':').append(Arrays.deepToString(values));
+    if (parentRowKey != null) {
+      sb.append(" in ").append(parentRowKey);
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,326 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Column to property resolution of a ResultMap against the columns of a result set.
+ * It is computed once per ResultMap, column set and column prefix and it is reused
+ * for every row and every execution that returns the same columns.
+ */
+public final class RowMappingPlan {
+
+  private final String columnPrefix;
+  private final List<PropertyMapping> propertyMappings;
+  private volatile AutoMappings autoMappings;
+  private volatile ConstructorMapping constructorMapping;
+  private volatile List<RowKeyColumn> rowKeyColumns;
+
+  RowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    this.columnPrefix = columnPrefix;
+    this.propertyMappings = Collections.unmodifiableList(createPropertyMappings(rsw, resultMap, columnPrefix));
+  }
+
+  /**
+   * Explicit property mappings that apply to this column set, in result map order.
+   */
+  List<PropertyMapping> getPropertyMappings() {
+    return propertyMappings;
+  }
+
+  /**
+   * Automatic mappings for the unmapped columns. They are resolved against the first result object seen
+   * and reused while the result objects keep the same class.
+   */
+  List<AutoMapping> getAutoMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, Configuration configuration)
+      throws SQLException {
+    final Class<?> type = metaObject.getOriginalObject().getClass();
+    final boolean mapUnderscoreToCamelCase = configuration.isMapUnderscoreToCamelCase();
+    AutoMappings current = autoMappings;
+    if (current == null || current.type != type || current.mapUnderscoreToCamelCase != mapUnderscoreToCamelCase) {
+      current = new AutoMappings(type, mapUnderscoreToCamelCase, createAutoMappings(rsw, resultMap, metaObject, configuration));
+      autoMappings = current;
+    }
+    return current.mappings;
+  }
+
+  /**
+   * Resolved constructor of a result map whose constructor arguments are all read from columns, so rows
+   * can be instantiated without building argument lists. Returns null when the result map needs the
+   * general path: nested constructor arguments, lazy loading proxies or a type without such constructor.
+   */
+  ConstructorMapping getConstructorMapping(ResultSetWrapper rsw, ResultMap resultMap, Configuration configuration) {
+    ConstructorMapping current = constructorMapping;
+    if (current == null) {
+      current = createConstructorMapping(rsw, resultMap, configuration);
+      constructorMapping = current;
+    }
+    return current.constructor == null ? null : current;
+  }
+
+  private ConstructorMapping createConstructorMapping(ResultSetWrapper rsw, ResultMap resultMap, Configuration configuration) {
+    final Class<?> resultType = resultMap.getType();
+    final List<ResultMapping> constructorMappings = resultMap.getConstructorResultMappings();
+    if (constructorMappings.isEmpty() || configuration.getTypeHandlerRegistry().hasTypeHandler(resultType)
+        || resultType.isInterface() || Modifier.isAbstract(resultType.getModifiers())) {
+      return ConstructorMapping.NONE;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.getNestedQueryId() != null && propertyMapping.isLazy()) {
+        return ConstructorMapping.NONE;
+      }
+    }
+    final int size = constructorMappings.size();
+    final Class<?>[] argTypes = new Class<?>[size];
+    final TypeHandler<?>[] typeHandlers = new TypeHandler<?>[size];
+    final String[] columns = new String[size];
+    final int[] columnIndexes = new int[size];
+    for (int i = 0; i < size; i++) {
+      final ResultMapping constructorMapping = constructorMappings.get(i);
+      if (constructorMapping.getNestedQueryId() != null || constructorMapping.getNestedResultMapId() != null
+          || constructorMapping.getTypeHandler() == null) {
+        return ConstructorMapping.NONE;
+      }
+      argTypes[i] = constructorMapping.getJavaType();
+      typeHandlers[i] = constructorMapping.getTypeHandler();
+      columns[i] = prependPrefix(constructorMapping.getColumn(), columnPrefix);
+      columnIndexes[i] = rsw.getColumnIndex(columns[i]);
+    }
+    try {
+      final Constructor<?> constructor = resultType.getDeclaredConstructor(argTypes);
+      if (!constructor.isAccessible()) {
+        constructor.setAccessible(true);
+      }
+      return new ConstructorMapping(constructor, argTypes, typeHandlers, columns, columnIndexes);
+    } catch (Exception e) {
+      // let the object factory report it when a row is actually instantiated
+      return ConstructorMapping.NONE;
+    }
+  }
+
+  /**
+   * Columns that identify a row of the result map, in the order their values make up its {@link RowKey}.
+   * These are the id columns, or all the mapped columns if there are none, or all the columns that match
+   * a property if nothing is mapped.
+   */
+  List<RowKeyColumn> getRowKeyColumns(ResultSetWrapper rsw, ResultMap resultMap, Configuration configuration) throws SQLException {
+    List<RowKeyColumn> current = rowKeyColumns;
+    if (current == null) {
+      final List<RowKeyColumn> columns = new ArrayList<RowKeyColumn>();
+      List<ResultMapping> resultMappings = resultMap.getIdResultMappings();
+      if (resultMappings.isEmpty()) {
+        resultMappings = resultMap.getPropertyResultMappings();
+      }
+      if (!resultMappings.isEmpty()) {
+        addMappedRowKeyColumns(rsw, resultMap, resultMappings, columnPrefix, configuration, columns);
+      } else if (Map.class.isAssignableFrom(resultMap.getType())) {
+        for (String columnName : rsw.getColumnNames()) {
+          columns.add(new RowKeyColumn(null, rsw.getColumnIndex(columnName)));
+        }
+      } else {
+        addUnmappedRowKeyColumns(rsw, resultMap, configuration, columns);
+      }
+      current = Collections.unmodifiableList(columns);
+      rowKeyColumns = current;
+    }
+    return current;
+  }
+
+  private void addMappedRowKeyColumns(ResultSetWrapper rsw, ResultMap resultMap, List<ResultMapping> resultMappings, String columnPrefix,
+      Configuration configuration, List<RowKeyColumn> columns) throws SQLException {
+    for (ResultMapping resultMapping : resultMappings) {
+      if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) { // Issue #392
+        final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
+        addMappedRowKeyColumns(rsw, nestedResultMap, nestedResultMap.getConstructorResultMappings(),
+            prependPrefix(resultMapping.getColumnPrefix(), columnPrefix), configuration, columns);
+      } else if (resultMapping.getNestedQueryId() == null) {
+        final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
+        final Set<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) { // Issue #114
+          columns.add(new RowKeyColumn(resultMapping.getTypeHandler(), rsw.getColumnIndex(column)));
+        }
+      }
+    }
+  }
+
+  private void addUnmappedRowKeyColumns(ResultSetWrapper rsw, ResultMap resultMap, Configuration configuration, List<RowKeyColumn> columns)
+      throws SQLException {
+    final MetaClass metaType = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
+    for (String column : rsw.getUnmappedColumnNames(resultMap, columnPrefix)) {
+      String property = column;
+      if (columnPrefix != null && columnPrefix.length() > 0) {
+        // When columnPrefix is specified,
+        // ignore columns without the prefix.
+        if (column.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+          property = column.substring(columnPrefix.length());
+        } else {
+          continue;
+        }
+      }
+      if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
+        columns.add(new RowKeyColumn(null, rsw.getColumnIndex(column)));
+      }
+    }
+  }
+
+  private List<PropertyMapping> createPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    final Set<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    final List<PropertyMapping> mappings = new ArrayList<PropertyMapping>();
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
+      final String upperColumn = column == null ? null : column.toUpperCase(Locale.ENGLISH);
+      if (propertyMapping.isCompositeResult() || (column != null && mappedColumnNames.contains(upperColumn)) || propertyMapping.getResultSet() != null) {
+        mappings.add(new PropertyMapping(propertyMapping, rsw.getColumnIndex(upperColumn)));
+      }
+    }
+    return mappings;
+  }
+
+  private List<AutoMapping> createAutoMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, Configuration configuration)
+      throws SQLException {
+    final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    final List<AutoMapping> mappings = new ArrayList<AutoMapping>();
+    for (String columnName : rsw.getUnmappedColumnNames(resultMap, columnPrefix)) {
+      String propertyName = columnName;
+      if (columnPrefix != null && columnPrefix.length() > 0) {
+        // When columnPrefix is specified,
+        // ignore columns without the prefix.
+        if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+          propertyName = columnName.substring(columnPrefix.length());
+        } else {
+          continue;
+        }
+      }
+      final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
+      if (property != null && metaObject.hasSetter(property)) {
+        final Class<?> propertyType = metaObject.getSetterType(property);
+        if (typeHandlerRegistry.hasTypeHandler(propertyType)) {
+          final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
+          mappings.add(new AutoMapping(rsw.getColumnIndex(columnName), property, typeHandler, propertyType.isPrimitive()));
+        }
+      }
+    }
+    return Collections.unmodifiableList(mappings);
+  }
+
+  private static String prependPrefix(String columnName, String prefix) {
+    if (columnName == null || columnName.length() == 0 || prefix == null || prefix.length() == 0) {
+      return columnName;
+    }
+    return prefix + columnName;
+  }
+
+  static final class PropertyMapping {
+
+    final ResultMapping resultMapping;
+    /**
+     * 1-based JDBC column index, 0 when the mapping does not read a column of this result set
+     */
+    final int columnIndex;
+
+    PropertyMapping(ResultMapping resultMapping, int columnIndex) {
+      this.resultMapping = resultMapping;
+      this.columnIndex = columnIndex;
+    }
+
+  }
+
+  static final class AutoMapping {
+
+    final int columnIndex;
+    final String property;
+    final TypeHandler<?> typeHandler;
+    final boolean primitive;
+
+    AutoMapping(int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive) {
+      this.columnIndex = columnIndex;
+      this.property = property;
+      this.typeHandler = typeHandler;
+      this.primitive = primitive;
+    }
+
+  }
+
+  static final class RowKeyColumn {
+
+    /**
+     * null when the value is read as a String
+     */
+    final TypeHandler<?> typeHandler;
+    final int columnIndex;
+
+    RowKeyColumn(TypeHandler<?> typeHandler, int columnIndex) {
+      this.typeHandler = typeHandler;
+      this.columnIndex = columnIndex;
+    }
+
+  }
+
+  static final class ConstructorMapping {
+
+    static final ConstructorMapping NONE = new ConstructorMapping(null, null, null, null, null);
+
+    final Constructor<?> constructor;
+    final Class<?>[] argTypes;
+    final TypeHandler<?>[] typeHandlers;
+    final String[] columns;
+    /**
+     * 1-based JDBC column indexes, 0 when the column is not in the result set and must be read by name
+     */
+    final int[] columnIndexes;
+
+    ConstructorMapping(Constructor<?> constructor, Class<?>[] argTypes, TypeHandler<?>[] typeHandlers, String[] columns, int[] columnIndexes) {
+      this.constructor = constructor;
+      this.argTypes = argTypes;
+      this.typeHandlers = typeHandlers;
+      this.columns = columns;
+      this.columnIndexes = columnIndexes;
+    }
+
+  }
+
+  private static final class AutoMappings {
+
+    final Class<?> type;
+    final boolean mapUnderscoreToCamelCase;
+    final List<AutoMapping> mappings;
+
+    AutoMappings(Class<?> type, boolean mapUnderscoreToCamelCase, List<AutoMapping> mappings) {
+      this.type = type;
+      this.mapUnderscoreToCamelCase = mapUnderscoreToCamelCase;
+      this.mappings = mappings;
+    }
+
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.ResultMap;
+
+/**
+ * Holds the {@link RowMappingPlan}s of a Configuration so that they survive across executions.
+ * Plans are keyed by ResultMap, column prefix and the names and types of the result set columns.
+ */
+public class RowMappingPlanCache {
+
+  /**
+   * Statements that build their column list dynamically could produce an unbounded number of column sets.
+   * Once this many plans are cached new plans are only kept for the execution that created them.
+   */
+  private static final int MAX_PLANS = 4096;
+
+  private final ConcurrentMap<PlanKey, RowMappingPlan> plans = new ConcurrentHashMap<PlanKey, RowMappingPlan>();
+
+  RowMappingPlan getPlan(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    final PlanKey key = new PlanKey(resultMap, columnPrefix, rsw.getColumnSignature());
+    RowMappingPlan plan = plans.get(key);
+    if (plan == null) {
+      plan = new RowMappingPlan(rsw, resultMap, columnPrefix);
+      if (plans.size() < MAX_PLANS) {
+        final RowMappingPlan previous = plans.putIfAbsent(key, plan);
+        if (previous != null) {
+          plan = previous;
+        }
+      }
+    }
+    return plan;
+  }
+
+  public int size() {
+    return plans.size();
+  }
+
+  public void clear() {
+    plans.clear();
+  }
+
+  private static final class PlanKey {
+
+    private final ResultMap resultMap;
+    private final String columnPrefix;
+    private final String columnSignature;
+    private final int hashCode;
+
+    PlanKey(ResultMap resultMap, String columnPrefix, String columnSignature) {
+      this.resultMap = resultMap;
+      this.columnPrefix = columnPrefix;
+      this.columnSignature = columnSignature;
+      int hash = System.identityHashCode(resultMap);
+      hash = 31 * hash + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+      hash = 31 * hash + columnSignature.hashCode();
+      this.hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PlanKey)) {
+        return false;
+      }
+      final PlanKey other = (PlanKey) o;
+      return resultMap == other.resultMap
+          && (columnPrefix == null ? other.columnPrefix == null : columnPrefix.equals(other.columnPrefix))
+          && columnSignature.equals(other.columnSignature);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+}
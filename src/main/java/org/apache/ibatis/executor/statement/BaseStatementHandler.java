@@ -18,17 +18,27 @@ package org.apache.ibatis.executor.statement;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.ibatis.datasource.routing.RoutingContext;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.paging.Dialect;
+import org.apache.ibatis.executor.paging.KeysetPaging;
+import org.apache.ibatis.executor.paging.PagedRowBounds;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetToken;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.TypeHandlerRegistry;
@@ -38,6 +48,8 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public abstract class BaseStatementHandler implements StatementHandler {
 
+  private static final String PAGING_PARAMETER_PREFIX = "__paging_";
+
   protected final Configuration configuration;
   protected final ObjectFactory objectFactory;
   protected final TypeHandlerRegistry typeHandlerRegistry;
@@ -54,7 +66,6 @@ public abstract class BaseStatementHandler implements StatementHandler {
     this.configuration = mappedStatement.getConfiguration();
     this.executor = executor;
     this.mappedStatement = mappedStatement;
-    this.rowBounds = rowBounds;
 
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.objectFactory = configuration.getObjectFactory();
@@ -64,12 +75,65 @@ public abstract class BaseStatementHandler implements StatementHandler {
       boundSql = mappedStatement.getBoundSql(parameterObject);
     }
 
+    if (rowBounds instanceof KeysetToken && !mappedStatement.getKeysetColumns().isEmpty()) {
+      boundSql = KeysetPaging.applyKeyset(mappedStatement, boundSql, (KeysetToken) rowBounds);
+    }
+
+    final Dialect dialect = configuration.getPagingDialect();
+    if (dialect != null && canPageOnDatabase(rowBounds)) {
+      final BoundSql pagedSql = applyDialect(dialect, boundSql, rowBounds);
+      if (pagedSql != null) {
+        boundSql = pagedSql;
+        // the database skips the rows so the result set handler must not skip them again
+        rowBounds = dialect.supportsOffset() ? new PagedRowBounds(rowBounds.getOffset()) : new RowBounds(rowBounds.getOffset(), RowBounds.NO_ROW_LIMIT);
+      }
+    }
+
+    this.rowBounds = rowBounds;
     this.boundSql = boundSql;
 
     this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
     this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, rowBounds, parameterHandler, resultHandler, boundSql);
   }
 
+  /**
+   * Rows of nested result maps are grouped into objects after they are read, so a limit
+   * on rows would not be a limit on results. Those statements keep skipping rows on the client.
+   */
+  private boolean canPageOnDatabase(RowBounds rowBounds) {
+    if (rowBounds == null || (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT)) {
+      return false;
+    }
+    return mappedStatement.getSqlCommandType() == SqlCommandType.SELECT
+        && mappedStatement.getStatementType() != StatementType.CALLABLE
+        && !mappedStatement.hasNestedResultMaps()
+        && mappedStatement.getResulSets() == null;
+  }
+
+  private BoundSql applyDialect(Dialect dialect, BoundSql boundSql, RowBounds rowBounds) {
+    int offset = rowBounds.getOffset();
+    int limit = rowBounds.getLimit();
+    if (!dialect.supportsOffset()) {
+      if (limit == RowBounds.NO_ROW_LIMIT || (long) offset + limit >= RowBounds.NO_ROW_LIMIT) {
+        return null;
+      }
+      limit += offset;
+      offset = RowBounds.NO_ROW_OFFSET;
+    }
+    final List<Object> pagingParameters = new ArrayList<Object>(2);
+    final String sql = dialect.getPagingSql(boundSql.getSql(), offset, limit, pagingParameters);
+    if (sql == null) {
+      return null;
+    }
+    final List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+    for (int i = 0; i < pagingParameters.size(); i++) {
+      final Object value = pagingParameters.get(i);
+      boundSql.setAdditionalParameter(PAGING_PARAMETER_PREFIX + i, value);
+      parameterMappings.add(new ParameterMapping.Builder(configuration, PAGING_PARAMETER_PREFIX + i, value.getClass()).build());
+    }
+    return new BoundSql(sql, parameterMappings, boundSql);
+  }
+
   public BoundSql getBoundSql() {
     return boundSql;
   }
@@ -81,6 +145,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
   public Statement prepare(Connection connection) throws SQLException {
     ErrorContext.instance().sql(boundSql.getSql());
     Statement statement = null;
+    // a RoutingDataSource connection picks the database by the statement it prepares
+    final MappedStatement previousStatement = RoutingContext.setStatement(mappedStatement);
     try {
       statement = instantiateStatement(connection);
       setStatementTimeout(statement);
@@ -92,6 +158,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
     } catch (Exception e) {
       closeStatement(statement);
       throw new ExecutorException("Error preparing statement.  Cause: " + e, e);
+    } finally {
+      RoutingContext.setStatement(previousStatement);
     }
   }
 
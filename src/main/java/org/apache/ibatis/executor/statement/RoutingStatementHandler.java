@@ -20,6 +20,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -73,6 +74,10 @@ public class RoutingStatementHandler implements StatementHandler {
     return delegate.<E>query(statement, resultHandler);
   }
 
+  public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+    return delegate.<E>queryCursor(statement);
+  }
+
   public BoundSql getBoundSql() {
     return delegate.getBoundSql();
   }
@@ -0,0 +1,764 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * A compact binary serializer for mapped result objects, usually several times faster than Java serialization.
+ * <p>
+ * A bean is written as a reference to its class followed by its property values. The class name and the property
+ * names are written once per stream, not once per object. A class is written as a bean when it is Serializable,
+ * has a default constructor, does not customize its serialization and every serializable field is a property with
+ * a getter and a setter of the same type. Properties are read and written through the {@link Reflector}, that is,
+ * with the same accessors that populated the bean when its row was mapped.
+ * <p>
+ * Strings, primitive wrappers, BigDecimal, BigInteger, dates, enums, classes, object arrays, byte arrays and the
+ * ArrayList, LinkedList, HashSet, LinkedHashSet, HashMap and LinkedHashMap classes are written natively. Any other
+ * object, a lazy loading proxy for instance, is embedded with Java serialization. Shared and circular references
+ * are kept, except those that cross an object embedded with Java serialization.
+ */
+public class BeanSerializer implements Serializer {
+
+  /**
+   * Java serialization streams start with 0xAC, so both formats can be told apart.
+   */
+  private static final byte MAGIC = (byte) 0xB5;
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte TRUE = 7;
+  private static final byte FALSE = 8;
+  private static final byte CHARACTER = 9;
+  private static final byte FLOAT = 10;
+  private static final byte DOUBLE = 11;
+  private static final byte BIG_DECIMAL = 12;
+  private static final byte BIG_INTEGER = 13;
+  private static final byte DATE = 14;
+  private static final byte SQL_DATE = 15;
+  private static final byte TIME = 16;
+  private static final byte TIMESTAMP = 17;
+  private static final byte BYTE_ARRAY = 18;
+  private static final byte ARRAY = 19;
+  private static final byte COLLECTION = 20;
+  private static final byte MAP = 21;
+  private static final byte ENUM = 22;
+  private static final byte CLASS = 23;
+  private static final byte BEAN = 24;
+  private static final byte SERIALIZED = 25;
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final Set<Class<?>> COLLECTION_TYPES = new HashSet<Class<?>>();
+  private static final Set<Class<?>> MAP_TYPES = new HashSet<Class<?>>();
+  private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<String, Class<?>>();
+  private static final BeanSchema NOT_A_BEAN = new BeanSchema(null, null, null);
+
+  static {
+    COLLECTION_TYPES.add(ArrayList.class);
+    COLLECTION_TYPES.add(LinkedList.class);
+    COLLECTION_TYPES.add(HashSet.class);
+    COLLECTION_TYPES.add(LinkedHashSet.class);
+    MAP_TYPES.add(HashMap.class);
+    MAP_TYPES.add(LinkedHashMap.class);
+    for (Class<?> type : new Class<?>[] { boolean.class, byte.class, char.class, short.class, int.class, long.class,
+        float.class, double.class, void.class }) {
+      PRIMITIVE_TYPES.put(type.getName(), type);
+    }
+  }
+
+  private final ConcurrentMap<Class<?>, BeanSchema> schemas = new ConcurrentHashMap<Class<?>, BeanSchema>();
+  private final JavaSerializer javaSerializer = new JavaSerializer();
+
+  @Override
+  public byte[] serialize(Object object) throws IOException {
+    final Output output = new Output();
+    output.writeByte(MAGIC);
+    output.writeObject(object);
+    return output.toByteArray();
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    if (bytes.length == 0 || bytes[0] != MAGIC) {
+      throw new StreamCorruptedException("The bytes were not written by a BeanSerializer");
+    }
+    final Input input = new Input(bytes);
+    input.position = 1;
+    return input.readObject();
+  }
+
+  private BeanSchema getSchema(Class<?> type) {
+    BeanSchema schema = schemas.get(type);
+    if (schema == null) {
+      schema = createSchema(type);
+      schemas.putIfAbsent(type, schema);
+    }
+    return schema == NOT_A_BEAN ? null : schema;
+  }
+
+  private static BeanSchema createSchema(Class<?> type) {
+    if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+        || Modifier.isAbstract(type.getModifiers()) || Proxy.isProxyClass(type) || isSharedClass(type)) {
+      return NOT_A_BEAN;
+    }
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      if (declaresSerializationMethods(c)) {
+        return NOT_A_BEAN;
+      }
+    }
+    final Reflector reflector = Reflector.forClass(type);
+    final Constructor<?> constructor;
+    try {
+      constructor = reflector.getDefaultConstructor();
+    } catch (ReflectionException e) {
+      return NOT_A_BEAN;
+    }
+    // the same fields as Java serialization, the fields of non serializable superclasses are not written
+    final List<String> names = new ArrayList<String>();
+    for (Class<?> c = type; c != null && Serializable.class.isAssignableFrom(c); c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        final int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+          continue;
+        }
+        final String name = field.getName();
+        if (field.isSynthetic() || names.contains(name) || !reflector.hasGetter(name) || !reflector.hasSetter(name)
+            || !reflector.getGetterType(name).equals(reflector.getSetterType(name))) {
+          return NOT_A_BEAN;
+        }
+        names.add(name);
+      }
+    }
+    final Invoker[] getters = new Invoker[names.size()];
+    for (int i = 0; i < getters.length; i++) {
+      getters[i] = reflector.getGetInvoker(names.get(i));
+    }
+    return new BeanSchema(constructor, names.toArray(new String[names.size()]), getters);
+  }
+
+  /*
+   * JDK classes and the classes generated for lazy loading are left to Java serialization
+   */
+  private static boolean isSharedClass(Class<?> type) {
+    final String name = type.getName();
+    return name.startsWith("java.") || name.startsWith("javax.") || name.indexOf("$$") >= 0;
+  }
+
+  private static boolean declaresSerializationMethods(Class<?> type) {
+    for (Method method : type.getDeclaredMethods()) {
+      final String name = method.getName();
+      final int parameters = method.getParameterTypes().length;
+      if (parameters == 0 && ("writeReplace".equals(name) || "readResolve".equals(name) || "readObjectNoData".equals(name))) {
+        return true;
+      }
+      if (parameters == 1 && ("writeObject".equals(name) || "readObject".equals(name))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static IOException newIOException(String message, Exception cause) {
+    final IOException e = new NotSerializableException(message + ".  Cause: " + cause);
+    e.initCause(cause);
+    return e;
+  }
+
+  private static final class BeanSchema {
+
+    private final Constructor<?> constructor;
+    private final String[] names;
+    private final Invoker[] getters;
+
+    BeanSchema(Constructor<?> constructor, String[] names, Invoker[] getters) {
+      this.constructor = constructor;
+      this.names = names;
+      this.getters = getters;
+    }
+
+  }
+
+  /**
+   * The constructor and the setters of a bean class as named in a stream
+   */
+  private static final class StreamSchema {
+
+    private final Constructor<?> constructor;
+    private final Invoker[] setters;
+
+    StreamSchema(Constructor<?> constructor, Invoker[] setters) {
+      this.constructor = constructor;
+      this.setters = setters;
+    }
+
+  }
+
+  private final class Output {
+
+    private byte[] buffer = new byte[256];
+    private int count;
+    private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+    private final Map<Class<?>, Integer> classes = new HashMap<Class<?>, Integer>();
+    private final Map<Class<?>, Integer> beanClasses = new HashMap<Class<?>, Integer>();
+
+    void writeObject(Object value) throws IOException {
+      if (value == null) {
+        writeByte(NULL);
+        return;
+      }
+      final Class<?> type = value.getClass();
+      if (type == String.class) {
+        writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        writeByte(INTEGER);
+        writeVarInt(zigZag((Integer) value));
+      } else if (type == Long.class) {
+        writeByte(LONG);
+        writeVarLong(zigZag((Long) value));
+      } else if (type == Boolean.class) {
+        writeByte((Boolean) value ? TRUE : FALSE);
+      } else if (type == Short.class) {
+        writeByte(SHORT);
+        writeVarInt(zigZag((Short) value));
+      } else if (type == Byte.class) {
+        writeByte(BYTE);
+        writeByte((Byte) value);
+      } else if (type == Character.class) {
+        writeByte(CHARACTER);
+        writeVarInt((Character) value);
+      } else if (type == Float.class) {
+        writeByte(FLOAT);
+        writeFixedLong(Float.floatToIntBits((Float) value), 4);
+      } else if (type == Double.class) {
+        writeByte(DOUBLE);
+        writeFixedLong(Double.doubleToLongBits((Double) value), 8);
+      } else if (type == BigDecimal.class) {
+        writeByte(BIG_DECIMAL);
+        writeVarInt(zigZag(((BigDecimal) value).scale()));
+        writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+      } else if (type == BigInteger.class) {
+        writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == Date.class) {
+        writeByte(DATE);
+        writeVarLong(zigZag(((Date) value).getTime()));
+      } else if (type == java.sql.Date.class) {
+        writeByte(SQL_DATE);
+        writeVarLong(zigZag(((Date) value).getTime()));
+      } else if (type == Time.class) {
+        writeByte(TIME);
+        writeVarLong(zigZag(((Date) value).getTime()));
+      } else if (type == Timestamp.class) {
+        writeByte(TIMESTAMP);
+        writeVarLong(zigZag(((Timestamp) value).getTime()));
+        writeVarInt(((Timestamp) value).getNanos());
+      } else if (value instanceof Enum) {
+        // constants repeat in every row, they are written once and referenced afterwards
+        final Integer handle = handles.get(value);
+        if (handle != null) {
+          writeByte(REFERENCE);
+          writeVarInt(handle);
+        } else {
+          handles.put(value, handles.size());
+          writeByte(ENUM);
+          writeClass(((Enum<?>) value).getDeclaringClass());
+          writeString(((Enum<?>) value).name());
+        }
+      } else if (type == Class.class) {
+        writeByte(CLASS);
+        writeString(((Class<?>) value).getName());
+      } else {
+        writeReference(value, type);
+      }
+    }
+
+    /*
+     * Mutable objects get a handle so that shared and circular references are written once
+     */
+    private void writeReference(Object value, Class<?> type) throws IOException {
+      final Integer handle = handles.get(value);
+      if (handle != null) {
+        writeByte(REFERENCE);
+        writeVarInt(handle);
+        return;
+      }
+      handles.put(value, handles.size());
+      if (type == byte[].class) {
+        writeByte(BYTE_ARRAY);
+        writeBytes((byte[]) value);
+      } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+        final Object[] array = (Object[]) value;
+        writeByte(ARRAY);
+        writeClass(type.getComponentType());
+        writeVarInt(array.length);
+        for (Object element : array) {
+          writeObject(element);
+        }
+      } else if (COLLECTION_TYPES.contains(type)) {
+        final Collection<?> collection = (Collection<?>) value;
+        writeByte(COLLECTION);
+        writeClass(type);
+        writeVarInt(collection.size());
+        for (Object element : collection) {
+          writeObject(element);
+        }
+      } else if (MAP_TYPES.contains(type)) {
+        final Map<?, ?> map = (Map<?, ?>) value;
+        writeByte(MAP);
+        writeClass(type);
+        writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          writeObject(entry.getKey());
+          writeObject(entry.getValue());
+        }
+      } else {
+        final BeanSchema schema = getSchema(type);
+        if (schema != null) {
+          writeByte(BEAN);
+          writeBeanClass(type, schema);
+          for (Invoker getter : schema.getters) {
+            try {
+              writeObject(getter.invoke(value, NO_ARGUMENTS));
+            } catch (IOException e) {
+              throw e;
+            } catch (Exception e) {
+              throw newIOException("Error reading the properties of " + type.getName(), e);
+            }
+          }
+        } else {
+          writeByte(SERIALIZED);
+          writeBytes(javaSerializer.serialize(value));
+        }
+      }
+    }
+
+    private void writeClass(Class<?> type) {
+      final Integer index = classes.get(type);
+      if (index != null) {
+        writeVarInt(index + 1);
+      } else {
+        classes.put(type, classes.size());
+        writeVarInt(0);
+        writeString(type.getName());
+      }
+    }
+
+    /*
+     * 第一次出现的类写出类名和属性名，之后只写序号
+     */
+    private void writeBeanClass(Class<?> type, BeanSchema schema) {
+      final Integer index = beanClasses.get(type);
+      if (index != null) {
+        writeVarInt(index + 1);
+      } else {
+        beanClasses.put(type, beanClasses.size());
+        writeVarInt(0);
+        writeString(type.getName());
+        writeVarInt(schema.names.length);
+        for (String name : schema.names) {
+          writeString(name);
+        }
+      }
+    }
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[count++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+      writeVarInt(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, count, bytes.length);
+      count += bytes.length;
+    }
+
+    private void writeString(String value) {
+      final int length = value.length();
+      writeVarInt(length);
+      // a char takes up to 3 bytes as a var int
+      ensureCapacity(3 * length);
+      for (int i = 0; i < length; i++) {
+        final char c = value.charAt(i);
+        if (c < 0x80) {
+          buffer[count++] = (byte) c;
+        } else {
+          writeVarInt(c);
+        }
+      }
+    }
+
+    private void writeVarInt(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[count++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[count++] = (byte) value;
+    }
+
+    private void writeFixedLong(long value, int bytes) {
+      ensureCapacity(bytes);
+      for (int i = 0; i < bytes; i++) {
+        buffer[count++] = (byte) (value >>> (8 * i));
+      }
+    }
+
+    private void ensureCapacity(int bytes) {
+      if (count + bytes > buffer.length) {
+        final byte[] larger = new byte[Math.max(buffer.length * 2, count + bytes)];
+        System.arraycopy(buffer, 0, larger, 0, count);
+        buffer = larger;
+      }
+    }
+
+    byte[] toByteArray() {
+      final byte[] bytes = new byte[count];
+      System.arraycopy(buffer, 0, bytes, 0, count);
+      return bytes;
+    }
+
+  }
+
+  private final class Input {
+
+    private final byte[] buffer;
+    private int position;
+    private final List<Object> handles = new ArrayList<Object>();
+    private final List<Class<?>> classes = new ArrayList<Class<?>>();
+    private final List<StreamSchema> beanClasses = new ArrayList<StreamSchema>();
+
+    Input(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    Object readObject() throws IOException, ClassNotFoundException {
+      final byte tag = readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return handles.get(readVarInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          return unZigZag(readVarInt());
+        case LONG:
+          return unZigZag(readVarLong());
+        case SHORT:
+          return (short) unZigZag(readVarInt());
+        case BYTE:
+          return readByte();
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case CHARACTER:
+          return (char) readVarInt();
+        case FLOAT:
+          return Float.intBitsToFloat((int) readFixedLong(4));
+        case DOUBLE:
+          return Double.longBitsToDouble(readFixedLong(8));
+        case BIG_DECIMAL:
+          final int scale = unZigZag(readVarInt());
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(unZigZag(readVarLong()));
+        case SQL_DATE:
+          return new java.sql.Date(unZigZag(readVarLong()));
+        case TIME:
+          return new Time(unZigZag(readVarLong()));
+        case TIMESTAMP:
+          final Timestamp timestamp = new Timestamp(unZigZag(readVarLong()));
+          timestamp.setNanos(readVarInt());
+          return timestamp;
+        case ENUM:
+          return readEnum();
+        case CLASS:
+          return classForName(readString());
+        case BYTE_ARRAY:
+          final byte[] bytes = readBytes();
+          handles.add(bytes);
+          return bytes;
+        case ARRAY:
+          return readArray();
+        case COLLECTION:
+          return readCollection();
+        case MAP:
+          return readMap();
+        case BEAN:
+          return readBean();
+        case SERIALIZED:
+          // the handle is taken before the object is read, like the writer does
+          final int handle = handles.size();
+          handles.add(null);
+          final Object object = javaSerializer.deserialize(readBytes());
+          handles.set(handle, object);
+          return object;
+        default:
+          throw new StreamCorruptedException("Unknown type " + tag + " at position " + (position - 1));
+      }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readEnum() throws IOException, ClassNotFoundException {
+      final Class type = readClass();
+      final Object constant = Enum.valueOf(type, readString());
+      handles.add(constant);
+      return constant;
+    }
+
+    private Object readArray() throws IOException, ClassNotFoundException {
+      final Class<?> componentType = readClass();
+      final Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+      handles.add(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = readObject();
+      }
+      return array;
+    }
+
+    private Object readCollection() throws IOException, ClassNotFoundException {
+      final Class<?> type = readClass();
+      final int size = readVarInt();
+      @SuppressWarnings("unchecked")
+      final Collection<Object> collection = type == ArrayList.class ? new ArrayList<Object>(size) : (Collection<Object>) newInstance(type);
+      handles.add(collection);
+      for (int i = 0; i < size; i++) {
+        collection.add(readObject());
+      }
+      return collection;
+    }
+
+    private Object readMap() throws IOException, ClassNotFoundException {
+      final Class<?> type = readClass();
+      final int size = readVarInt();
+      @SuppressWarnings("unchecked")
+      final Map<Object, Object> map = (Map<Object, Object>) newInstance(type);
+      handles.add(map);
+      for (int i = 0; i < size; i++) {
+        final Object key = readObject();
+        map.put(key, readObject());
+      }
+      return map;
+    }
+
+    private Object readBean() throws IOException, ClassNotFoundException {
+      final StreamSchema schema = readBeanClass();
+      final Object bean;
+      try {
+        bean = schema.constructor.newInstance(NO_ARGUMENTS);
+      } catch (Exception e) {
+        throw newIOException("Error creating an instance of " + schema.constructor.getDeclaringClass().getName(), e);
+      }
+      handles.add(bean);
+      for (Invoker setter : schema.setters) {
+        final Object value = readObject();
+        if (setter != null) {
+          try {
+            setter.invoke(bean, new Object[] { value });
+          } catch (Exception e) {
+            throw newIOException("Error setting the properties of " + bean.getClass().getName(), e);
+          }
+        }
+      }
+      return bean;
+    }
+
+    private Object newInstance(Class<?> type) throws IOException {
+      try {
+        return type.newInstance();
+      } catch (Exception e) {
+        throw newIOException("Error creating an instance of " + type.getName(), e);
+      }
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+      final int index = readVarInt();
+      if (index > 0) {
+        return classes.get(index - 1);
+      }
+      final Class<?> type = classForName(readString());
+      classes.add(type);
+      return type;
+    }
+
+    /*
+     * 按流中的属性名查找setter，类中已经不存在的属性只读取不设置
+     */
+    private StreamSchema readBeanClass() throws IOException, ClassNotFoundException {
+      final int index = readVarInt();
+      if (index > 0) {
+        return beanClasses.get(index - 1);
+      }
+      final Class<?> type = classForName(readString());
+      final Reflector reflector = Reflector.forClass(type);
+      final Constructor<?> constructor;
+      try {
+        constructor = reflector.getDefaultConstructor();
+      } catch (ReflectionException e) {
+        throw (IOException) new InvalidClassException(type.getName(), "no default constructor").initCause(e);
+      }
+      final Invoker[] setters = new Invoker[readVarInt()];
+      for (int i = 0; i < setters.length; i++) {
+        final String name = readString();
+        setters[i] = reflector.hasSetter(name) ? reflector.getSetInvoker(name) : null;
+      }
+      final StreamSchema schema = new StreamSchema(constructor, setters);
+      beanClasses.add(schema);
+      return schema;
+    }
+
+    private Class<?> classForName(String name) throws ClassNotFoundException {
+      final Class<?> primitiveType = PRIMITIVE_TYPES.get(name);
+      return primitiveType != null ? primitiveType : Resources.classForName(name);
+    }
+
+    private byte readByte() throws IOException {
+      if (position >= buffer.length) {
+        throw new StreamCorruptedException("Unexpected end of stream");
+      }
+      return buffer[position++];
+    }
+
+    private byte[] readBytes() throws IOException {
+      final int length = readVarInt();
+      if (length > buffer.length - position) {
+        throw new StreamCorruptedException("Unexpected end of stream");
+      }
+      final byte[] bytes = new byte[length];
+      System.arraycopy(buffer, position, bytes, 0, length);
+      position += length;
+      return bytes;
+    }
+
+    private String readString() throws IOException {
+      final int length = readVarInt();
+      final char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        final byte b = readByte();
+        if (b >= 0) {
+          chars[i] = (char) b;
+        } else {
+          // a varint longer than one byte
+          position--;
+          chars[i] = (char) readVarInt();
+        }
+      }
+      return new String(chars);
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        final byte b = readByte();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+    private long readVarLong() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 70; shift += 7) {
+        final byte b = readByte();
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+    private long readFixedLong(int bytes) throws IOException {
+      long value = 0;
+      for (int i = 0; i < bytes; i++) {
+        value |= (long) (readByte() & 0xFF) << (8 * i);
+      }
+      return value;
+    }
+
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * Standard Java serialization. Classes are loaded with {@link Resources#classForName(String)}.
+ */
+public class JavaSerializer implements Serializer {
+
+  @Override
+  public byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(object);
+    oos.flush();
+    oos.close();
+    return bos.toByteArray();
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    ObjectInputStream ois = new ResourcesObjectInputStream(new ByteArrayInputStream(bytes));
+    try {
+      return ois.readObject();
+    } finally {
+      ois.close();
+    }
+  }
+
+  private static class ResourcesObjectInputStream extends ObjectInputStream {
+
+    ResourcesObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      try {
+        return Resources.classForName(desc.getName());
+      } catch (ClassNotFoundException e) {
+        // primitive types
+        return super.resolveClass(desc);
+      }
+    }
+
+  }
+
+}
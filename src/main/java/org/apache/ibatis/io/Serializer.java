@@ -0,0 +1,32 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.IOException;
+
+/**
+ * Turns objects into bytes and back. Used by read/write caches and to serialize lazy loading proxies.
+ * Implementations must be thread safe.
+ *
+ * @see Serializers
+ */
+public interface Serializer {
+
+  byte[] serialize(Object object) throws IOException;
+
+  Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException;
+
+}
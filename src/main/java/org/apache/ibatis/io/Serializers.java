@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+/**
+ * Holds the serializer used by lazy loading proxies, and by caches that were built without a serializer.
+ * Proxies are serialized by the JVM without access to a Configuration, so this serializer is shared by the whole JVM,
+ * like the class cache of the Reflector. The default is {@link JavaSerializer}. Caches built by a Configuration use
+ * its serializer setting instead.
+ */
+public final class Serializers {
+
+  private static volatile Serializer defaultSerializer = new JavaSerializer();
+
+  private Serializers() {
+    // Prevent Instantiation
+  }
+
+  public static Serializer getDefault() {
+    return defaultSerializer;
+  }
+
+  public static void setDefault(Serializer serializer) {
+    defaultSerializer = serializer == null ? new JavaSerializer() : serializer;
+  }
+
+}
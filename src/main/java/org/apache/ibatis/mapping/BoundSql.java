@@ -49,6 +49,18 @@ public class BoundSql {
     this.metaParameters = configuration.newMetaObject(additionalParameters);
   }
 
+  /**
+   * Creates a BoundSql for a rewritten SQL, e.g. a paged select, that shares the parameter object
+   * and the additional parameters of the original one.
+   */
+  public BoundSql(String sql, List<ParameterMapping> parameterMappings, BoundSql original) {
+    this.sql = sql;
+    this.parameterMappings = parameterMappings;
+    this.parameterObject = original.parameterObject;
+    this.additionalParameters = original.additionalParameters;
+    this.metaParameters = original.metaParameters;
+  }
+
   public String getSql() {
     return sql;
   }
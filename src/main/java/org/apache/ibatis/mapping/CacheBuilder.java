@@ -23,12 +23,19 @@ import java.util.Properties;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.io.Serializer;
+import org.apache.ibatis.io.Serializers;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -42,6 +49,11 @@ public class CacheBuilder {
   private Integer size;
   private Long clearInterval;
   private boolean readWrite;
+  private boolean blocking;
+  private Long timeToLive;
+  private Long refreshAhead;
+  private Long maxWeight;
+  private Serializer serializer;
   private Properties properties;
 
   public CacheBuilder(String id) {
@@ -76,6 +88,31 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder blocking(boolean blocking) {
+    this.blocking = blocking;
+    return this;
+  }
+
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  public CacheBuilder refreshAhead(Long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+    return this;
+  }
+
+  public CacheBuilder maxWeight(Long maxWeight) {
+    this.maxWeight = maxWeight;
+    return this;
+  }
+
+  public CacheBuilder serializer(Serializer serializer) {
+    this.serializer = serializer;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -87,13 +124,33 @@ public class CacheBuilder {
     setCacheProperties(cache);
     if (PerpetualCache.class.equals(cache.getClass())) { // issue #352, do not apply decorators to custom caches
       for (Class<? extends Cache> decorator : decorators) {
+        if (isWeighted() && LruCache.class.equals(decorator)) {
+          // the WeightedCache evicts the least recently used entries itself
+          continue;
+        }
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
       }
-      cache = setStandardDecorators(cache);
+      cache = setStandardDecorators(cache, true, readWrite);
+    } else if (ConcurrentCache.class.equals(cache.getClass())) {
+      // it evicts by itself and is thread safe, a lock would serialize its reads again
+      cache = setStandardDecorators(cache, false, readWrite);
+    } else if (OffHeapCache.class.equals(cache.getClass())) {
+      if (isWeighted()) {
+        // a WeightedCache would weigh the objects on the heap, not the bytes stored off the heap
+        throw new CacheException("Cache " + id + " is stored off the heap and bounded by its capacity property, it does not support maxWeight.");
+      }
+      ((OffHeapCache) cache).setSerializer(getSerializer());
+      // it stores serialized copies and locks by itself
+      cache = setStandardDecorators(cache, false, false);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
+    if (blocking) {
+      // outermost, the TransactionalCache releases the keys it locked through it
+      cache = new BlockingCache(cache);
+      setCacheProperties(cache);
+    }
     return cache;
   }
 
@@ -106,27 +163,52 @@ public class CacheBuilder {
     }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, boolean synchronize, boolean serialize) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
+      if (timeToLive != null && timeToLive > 0) {
+        cache = new ExpiringCache(cache);
+        ((ExpiringCache) cache).setTimeToLive(timeToLive);
+        if (refreshAhead != null) {
+          ((ExpiringCache) cache).setRefreshAhead(refreshAhead);
+        }
+      }
+      if (isWeighted()) {
+        // above ExpiringCache and below SerializedCache, so it weighs the values or their serialized bytes
+        cache = new WeightedCache(cache);
+        ((WeightedCache) cache).setMaxWeight(maxWeight);
+        if (size != null) {
+          ((WeightedCache) cache).setSize(size);
+        }
+      }
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
-      if (readWrite) {
-        cache = new SerializedCache(cache);
+      if (serialize) {
+        cache = new SerializedCache(cache, getSerializer());
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (synchronize) {
+        cache = new SynchronizedCache(cache);
+      }
       return cache;
     } catch (Exception e) {
       throw new CacheException("Error building standard cache decorators.  Cause: " + e, e);
     }
   }
 
+  private Serializer getSerializer() {
+    return serializer != null ? serializer : Serializers.getDefault();
+  }
+
+  private boolean isWeighted() {
+    return maxWeight != null && maxWeight > 0;
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+/**
+ * A sort key of a statement paged with keysets. The name is a column of the statement results.
+ */
+public class KeysetColumn {
+
+  private final String column;
+  private final boolean descending;
+
+  public KeysetColumn(String column, boolean descending) {
+    this.column = column;
+    this.descending = descending;
+  }
+
+  public String getColumn() {
+    return column;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public String toString() {
+    return descending ? column + " DESC" : column;
+  }
+
+}
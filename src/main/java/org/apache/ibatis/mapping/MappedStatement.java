@@ -73,6 +73,14 @@ public final class MappedStatement {
     private boolean flushCacheRequired;
     private boolean useCache;
     private boolean resultOrdered;
+    /**
+     * 是否由线程池并行地把行映射为结果对象
+     */
+    private boolean parallelMapping;
+    /**
+     * 按键集分页时的排序列，未配置时为空
+     */
+    private List<KeysetColumn> keysetColumns = Collections.emptyList();
     /**
      * 执行类型
      */
@@ -190,6 +198,30 @@ public final class MappedStatement {
             return this;
         }
 
+        public Builder parallelMapping(boolean parallelMapping) {
+            mappedStatement.parallelMapping = parallelMapping;
+            return this;
+        }
+
+        /**
+         * @param keyset comma separated result columns, each optionally followed by ASC or DESC, e.g. "created desc, id"
+         */
+        public Builder keyset(String keyset) {
+            String[] columns = delimitedStringtoArray(keyset);
+            if (columns != null) {
+                List<KeysetColumn> keysetColumns = new ArrayList<KeysetColumn>();
+                for (String column : columns) {
+                    String[] parts = column.trim().split("\\s+");
+                    if (parts.length > 2 || (parts.length == 2 && !"asc".equalsIgnoreCase(parts[1]) && !"desc".equalsIgnoreCase(parts[1]))) {
+                        throw new IllegalArgumentException("Invalid keyset column '" + column.trim() + "' in statement " + mappedStatement.id);
+                    }
+                    keysetColumns.add(new KeysetColumn(parts[0], parts.length == 2 && "desc".equalsIgnoreCase(parts[1])));
+                }
+                mappedStatement.keysetColumns = Collections.unmodifiableList(keysetColumns);
+            }
+            return this;
+        }
+
         public Builder keyGenerator(KeyGenerator keyGenerator) {
             mappedStatement.keyGenerator = keyGenerator;
             return this;
@@ -298,6 +330,14 @@ public final class MappedStatement {
         return resultOrdered;
     }
 
+    public boolean isParallelMapping() {
+        return parallelMapping;
+    }
+
+    public List<KeysetColumn> getKeysetColumns() {
+        return keysetColumns;
+    }
+
     public String getDatabaseId() {
         return databaseId;
     }
@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Calls public getters and setters through accessors generated with Javassist instead of Method.invoke.
+ * Fields and non public methods are still accessed with reflection.
+ */
+public class BytecodeReflectorFactory implements ReflectorFactory {
+
+  public BytecodeReflectorFactory() {
+    try {
+      Resources.classForName("javassist.ClassPool");
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot use bytecode accessors because Javassist is not available. Add Javassist to your classpath.", e);
+    }
+  }
+
+  public Reflector findForClass(Class<?> type) {
+    return Reflector.forClass(type, true);
+  }
+
+}
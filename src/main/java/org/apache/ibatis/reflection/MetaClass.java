@@ -21,6 +21,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
 
+import org.apache.ibatis.reflection.invoker.AccessorInvoker;
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
@@ -31,14 +32,20 @@ import org.apache.ibatis.reflection.property.PropertyTokenizer;
  */
 public class MetaClass {
 
+  private ReflectorFactory reflectorFactory;
   private Reflector reflector;
 
-  private MetaClass(Class<?> type) {
-    this.reflector = Reflector.forClass(type);
+  private MetaClass(Class<?> type, ReflectorFactory reflectorFactory) {
+    this.reflectorFactory = reflectorFactory;
+    this.reflector = reflectorFactory.findForClass(type);
   }
 
   public static MetaClass forClass(Class<?> type) {
-    return new MetaClass(type);
+    return new MetaClass(type, SystemMetaObject.DEFAULT_REFLECTOR_FACTORY);
+  }
+
+  public static MetaClass forClass(Class<?> type, ReflectorFactory reflectorFactory) {
+    return new MetaClass(type, reflectorFactory);
   }
 
   public static boolean isClassCacheEnabled() {
@@ -51,7 +58,7 @@ public class MetaClass {
 
   public MetaClass metaClassForProperty(String name) {
     Class<?> propType = reflector.getGetterType(name);
-    return MetaClass.forClass(propType);
+    return MetaClass.forClass(propType, reflectorFactory);
   }
 
   public String findProperty(String name) {
@@ -96,7 +103,7 @@ public class MetaClass {
 
   private MetaClass metaClassForProperty(PropertyTokenizer prop) {
     Class<?> propType = getGetterType(prop);
-    return MetaClass.forClass(propType);
+    return MetaClass.forClass(propType, reflectorFactory);
   }
 
   private Class<?> getGetterType(PropertyTokenizer prop) {
@@ -131,6 +138,8 @@ public class MetaClass {
         _field.setAccessible(true);
         Field field = (Field) _field.get(invoker);
         return field.getGenericType();
+      } else if (invoker instanceof AccessorInvoker) {
+        return ((AccessorInvoker) invoker).getMethod().getGenericReturnType();
       }
     } catch (NoSuchFieldException e) {
     } catch (IllegalAccessException e) {
@@ -45,11 +45,16 @@ public class MetaObject {
      */
     private ObjectFactory objectFactory;
     private ObjectWrapperFactory objectWrapperFactory;
+    /**
+     * 决定BeanWrapper通过反射还是生成的访问器调用getter和setter
+     */
+    private ReflectorFactory reflectorFactory;
 
-    private MetaObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+    private MetaObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory, ReflectorFactory reflectorFactory) {
         this.originalObject = object;
         this.objectFactory = objectFactory;
         this.objectWrapperFactory = objectWrapperFactory;
+        this.reflectorFactory = reflectorFactory;
 
         if (object instanceof ObjectWrapper) {
             this.objectWrapper = (ObjectWrapper) object;
@@ -65,10 +70,15 @@ public class MetaObject {
     }
 
     public static MetaObject forObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+        return forObject(object, objectFactory, objectWrapperFactory, SystemMetaObject.DEFAULT_REFLECTOR_FACTORY);
+    }
+
+    public static MetaObject forObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory,
+            ReflectorFactory reflectorFactory) {
         if (object == null) {
             return SystemMetaObject.NULL_META_OBJECT;
         } else {
-            return new MetaObject(object, objectFactory, objectWrapperFactory);
+            return new MetaObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
         }
     }
 
@@ -80,6 +90,10 @@ public class MetaObject {
         return objectWrapperFactory;
     }
 
+    public ReflectorFactory getReflectorFactory() {
+        return reflectorFactory;
+    }
+
     public Object getOriginalObject() {
         return originalObject;
     }
@@ -145,7 +159,7 @@ public class MetaObject {
 
     public MetaObject metaObjectForProperty(String name) {
         Object value = getValue(name);
-        return MetaObject.forObject(value, objectFactory, objectWrapperFactory);
+        return MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
     }
 
     public ObjectWrapper getObjectWrapper() {
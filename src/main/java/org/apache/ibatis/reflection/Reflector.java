@@ -29,10 +29,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.ibatis.reflection.invoker.AccessorInvoker;
+import org.apache.ibatis.reflection.invoker.BeanAccessor;
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.javassist.JavassistAccessorFactory;
 import org.apache.ibatis.reflection.property.PropertyNamer;
 
 /*
@@ -47,6 +50,7 @@ public class Reflector {
   private static boolean classCacheEnabled = true;
   private static final String[] EMPTY_STRING_ARRAY = new String[0];
   private static final Map<Class<?>, Reflector> REFLECTOR_MAP = new ConcurrentHashMap<Class<?>, Reflector>();
+  private static final Map<Class<?>, Reflector> ACCESSOR_REFLECTOR_MAP = new ConcurrentHashMap<Class<?>, Reflector>();
 
   private Class<?> type;
   private String[] readablePropertyNames = EMPTY_STRING_ARRAY;
@@ -59,12 +63,15 @@ public class Reflector {
 
   private Map<String, String> caseInsensitivePropertyMap = new HashMap<String, String>();
 
-  private Reflector(Class<?> clazz) {
+  private Reflector(Class<?> clazz, boolean bytecodeAccessors) {
     type = clazz;
     addDefaultConstructor(clazz);
     addGetMethods(clazz);
     addSetMethods(clazz);
     addFields(clazz);
+    if (bytecodeAccessors) {
+      addGeneratedAccessors(clazz);
+    }
     readablePropertyNames = getMethods.keySet().toArray(new String[getMethods.keySet().size()]);
     writeablePropertyNames = setMethods.keySet().toArray(new String[setMethods.keySet().size()]);
     for (String propName : readablePropertyNames) {
@@ -262,6 +269,45 @@ public class Reflector {
     }
   }
 
+  /*
+   * Replaces the reflective invokers of public getters and setters with a generated accessor.
+   * Fields and non public methods keep their reflective invokers.
+   */
+  private void addGeneratedAccessors(Class<?> clazz) {
+    final List<String> getterNames = new ArrayList<String>();
+    final List<Method> getters = new ArrayList<Method>();
+    collectAccessibleMethods(getMethods, getterNames, getters);
+    final List<String> setterNames = new ArrayList<String>();
+    final List<Method> setters = new ArrayList<Method>();
+    collectAccessibleMethods(setMethods, setterNames, setters);
+    if (getters.isEmpty() && setters.isEmpty()) {
+      return;
+    }
+    final BeanAccessor accessor = JavassistAccessorFactory.createAccessor(clazz, getters.toArray(new Method[getters.size()]),
+        setters.toArray(new Method[setters.size()]));
+    if (accessor == null) {
+      return;
+    }
+    for (int i = 0; i < getterNames.size(); i++) {
+      getMethods.put(getterNames.get(i), new AccessorInvoker(accessor, i, getters.get(i)));
+    }
+    for (int i = 0; i < setterNames.size(); i++) {
+      setMethods.put(setterNames.get(i), new AccessorInvoker(accessor, i, setters.get(i)));
+    }
+  }
+
+  private void collectAccessibleMethods(Map<String, Invoker> invokers, List<String> names, List<Method> methods) {
+    for (Map.Entry<String, Invoker> entry : invokers.entrySet()) {
+      if (entry.getValue() instanceof MethodInvoker) {
+        final Method method = ((MethodInvoker) entry.getValue()).getMethod();
+        if (JavassistAccessorFactory.canAccess(method)) {
+          names.add(entry.getKey());
+          methods.add(method);
+        }
+      }
+    }
+  }
+
   private boolean isValidPropertyName(String name) {
     return !(name.startsWith("$") || "serialVersionUID".equals(name) || "class".equals(name));
   }
@@ -459,16 +505,26 @@ public class Reflector {
    * @return The method cache for the class
    */
   public static Reflector forClass(Class<?> clazz) {
+    return forClass(clazz, false);
+  }
+
+  /*
+   * Gets an instance of ClassInfo for the specified class. When bytecodeAccessors is true public getters
+   * and setters are called through accessors generated with Javassist instead of Method.invoke.
+   * Both kinds of reflectors are cached separately so they can be used side by side.
+   */
+  public static Reflector forClass(Class<?> clazz, boolean bytecodeAccessors) {
     if (classCacheEnabled) {
       // synchronized (clazz) removed see issue #461
-      Reflector cached = REFLECTOR_MAP.get(clazz);
+      final Map<Class<?>, Reflector> reflectorMap = bytecodeAccessors ? ACCESSOR_REFLECTOR_MAP : REFLECTOR_MAP;
+      Reflector cached = reflectorMap.get(clazz);
       if (cached == null) {
-        cached = new Reflector(clazz);
-        REFLECTOR_MAP.put(clazz, cached);
+        cached = new Reflector(clazz, bytecodeAccessors);
+        reflectorMap.put(clazz, cached);
       }
       return cached;
     } else {
-      return new Reflector(clazz);
+      return new Reflector(clazz, bytecodeAccessors);
     }
   }
 
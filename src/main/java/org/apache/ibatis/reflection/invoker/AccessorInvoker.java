@@ -0,0 +1,61 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invoker backed by a generated {@link BeanAccessor}.
+ * Exceptions are wrapped like Method.invoke does so callers cannot tell it apart from a {@link MethodInvoker}.
+ */
+public class AccessorInvoker implements Invoker {
+
+  private final BeanAccessor accessor;
+  private final int index;
+  private final Method method;
+  private final boolean setter;
+  private final Class<?> type;
+
+  public AccessorInvoker(BeanAccessor accessor, int index, Method method) {
+    this.accessor = accessor;
+    this.index = index;
+    this.method = method;
+    this.setter = method.getParameterTypes().length == 1;
+    this.type = setter ? method.getParameterTypes()[0] : method.getReturnType();
+  }
+
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    try {
+      if (setter) {
+        accessor.set(target, index, args[0]);
+        return null;
+      }
+      return accessor.get(target, index);
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  public Method getMethod() {
+    return method;
+  }
+
+}
@@ -0,0 +1,28 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+/**
+ * Base class of the accessors generated for a bean class.
+ * Each readable or writable property of the bean gets an index and is reached with a direct call.
+ */
+public abstract class BeanAccessor {
+
+  public abstract Object get(Object target, int index);
+
+  public abstract void set(Object target, int index, Object value);
+
+}
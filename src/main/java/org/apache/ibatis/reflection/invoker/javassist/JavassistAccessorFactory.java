@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker.javassist;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.invoker.BeanAccessor;
+
+/**
+ * Generates a {@link BeanAccessor} per bean class that calls its getters and setters directly
+ * instead of going through Method.invoke.
+ */
+public final class JavassistAccessorFactory {
+
+  private static final Log log = LogFactory.getLog(JavassistAccessorFactory.class);
+  private static final String ACCESSOR_SUFFIX = "$$MyBatisAccessor$$";
+  private static final AtomicInteger accessorCounter = new AtomicInteger();
+
+  private JavassistAccessorFactory() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Generated code can only call public methods of public classes, anything else must stay reflective.
+   */
+  public static boolean canAccess(Method method) {
+    return Modifier.isPublic(method.getModifiers()) && isPublicClass(method.getDeclaringClass());
+  }
+
+  /**
+   * Creates the accessor of a bean class. Index i of get (or set) calls getters[i] (or setters[i]).
+   *
+   * @return the accessor or null if it could not be generated, in which case reflection must be used
+   */
+  public static BeanAccessor createAccessor(Class<?> type, Method[] getters, Method[] setters) {
+    final ClassLoader classLoader = type.getClassLoader();
+    if (classLoader == null) {
+      return null;
+    }
+    try {
+      final ClassPool pool = new ClassPool(true);
+      pool.appendClassPath(new LoaderClassPath(classLoader));
+      pool.appendClassPath(new ClassClassPath(BeanAccessor.class));
+      final CtClass accessorClass = pool.makeClass(type.getName() + ACCESSOR_SUFFIX + accessorCounter.incrementAndGet());
+      accessorClass.setSuperclass(pool.get(BeanAccessor.class.getName()));
+      accessorClass.addConstructor(CtNewConstructor.defaultConstructor(accessorClass));
+      accessorClass.addMethod(CtNewMethod.make(getterSource(getters), accessorClass));
+      accessorClass.addMethod(CtNewMethod.make(setterSource(setters), accessorClass));
+      final Class<?> generated = accessorClass.toClass(classLoader, type.getProtectionDomain());
+      accessorClass.detach();
+      return (BeanAccessor) generated.newInstance();
+    } catch (Throwable e) {
+      if (log.isDebugEnabled()) {
+        log.debug("Could not generate property accessors for " + type + ", falling back to reflection. Cause: " + e);
+      }
+      return null;
+    }
+  }
+
+  private static String getterSource(Method[] getters) {
+    final StringBuilder source = new StringBuilder("public Object get(Object target, int index) { switch ($2) {");
+    for (int i = 0; i < getters.length; i++) {
+      final Method getter = getters[i];
+      source.append(" case ").append(i).append(": return ($w) ((").append(typeName(getter.getDeclaringClass())).append(") $1).")
+          .append(getter.getName()).append("();");
+    }
+    source.append(" default: break; } throw new IllegalArgumentException(\"No getter at index \" + $2); }");
+    return source.toString();
+  }
+
+  private static String setterSource(Method[] setters) {
+    final StringBuilder source = new StringBuilder("public void set(Object target, int index, Object value) { switch ($2) {");
+    for (int i = 0; i < setters.length; i++) {
+      final Method setter = setters[i];
+      source.append(" case ").append(i).append(": ((").append(typeName(setter.getDeclaringClass())).append(") $1).")
+          .append(setter.getName()).append('(').append(unboxedValue(setter.getParameterTypes()[0])).append("); return;");
+    }
+    source.append(" default: break; } throw new IllegalArgumentException(\"No setter at index \" + $2); }");
+    return source.toString();
+  }
+
+  private static String unboxedValue(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return "(" + typeName(type) + ") $3";
+    } else if (type == boolean.class) {
+      return "((java.lang.Boolean) $3).booleanValue()";
+    } else if (type == char.class) {
+      return "((java.lang.Character) $3).charValue()";
+    } else if (type == byte.class) {
+      return "((java.lang.Byte) $3).byteValue()";
+    } else if (type == short.class) {
+      return "((java.lang.Short) $3).shortValue()";
+    } else if (type == int.class) {
+      return "((java.lang.Integer) $3).intValue()";
+    } else if (type == long.class) {
+      return "((java.lang.Long) $3).longValue()";
+    } else if (type == float.class) {
+      return "((java.lang.Float) $3).floatValue()";
+    } else {
+      return "((java.lang.Double) $3).doubleValue()";
+    }
+  }
+
+  private static String typeName(Class<?> type) {
+    if (type.isArray()) {
+      return typeName(type.getComponentType()) + "[]";
+    }
+    return type.getName();
+  }
+
+  private static boolean isPublicClass(Class<?> type) {
+    for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+      if (!Modifier.isPublic(current.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
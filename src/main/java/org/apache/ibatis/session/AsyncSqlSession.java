@@ -0,0 +1,65 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Executes statements in the background and returns their results as {@link Future}s.
+ * Every statement runs in its own SqlSession that is committed and closed once the statement completes,
+ * so an AsyncSqlSession is thread safe and independent statements can be fanned out from a single thread.
+ * At most {@link Configuration#getAsyncConcurrency()} statements of a DataSource run at the same time.
+ */
+public interface AsyncSqlSession {
+
+  <T> Future<T> selectOne(String statement);
+
+  <T> Future<T> selectOne(String statement, Object parameter);
+
+  <E> Future<List<E>> selectList(String statement);
+
+  <E> Future<List<E>> selectList(String statement, Object parameter);
+
+  <E> Future<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  <K, V> Future<Map<K, V>> selectMap(String statement, String mapKey);
+
+  <K, V> Future<Map<K, V>> selectMap(String statement, Object parameter, String mapKey);
+
+  Future<Integer> insert(String statement);
+
+  Future<Integer> insert(String statement, Object parameter);
+
+  Future<Integer> update(String statement);
+
+  Future<Integer> update(String statement, Object parameter);
+
+  Future<Integer> delete(String statement);
+
+  Future<Integer> delete(String statement, Object parameter);
+
+  /**
+   * Mapper methods declared to return a {@link Future} run in the background, all others run in the calling thread.
+   * Either way each call uses its own SqlSession, which is closed when the call returns,
+   * so methods returning a {@link org.apache.ibatis.cursor.Cursor} are rejected.
+   */
+  <T> T getMapper(Class<T> type);
+
+  Configuration getConfiguration();
+
+}
@@ -19,11 +19,18 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
 
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.CacheRefResolver;
@@ -35,10 +42,14 @@ import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+import org.apache.ibatis.datasource.routing.RoutingDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.executor.AsyncStatementQueue;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
@@ -48,11 +59,17 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.paging.Dialect;
+import org.apache.ibatis.executor.paging.DialectRegistry;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.resultset.RowMappingPlanCache;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.BeanSerializer;
+import org.apache.ibatis.io.JavaSerializer;
+import org.apache.ibatis.io.Serializer;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.logging.commons.JakartaCommonsLoggingImpl;
@@ -72,6 +89,9 @@ import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.InterceptorChain;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.BytecodeReflectorFactory;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
@@ -130,6 +150,18 @@ public class Configuration {
      * 在null时也调用 setter,适应于返回Map,3.2版本以上可用
      */
     protected boolean callSettersOnNulls = false;
+    /**
+     * 使用Javassist生成的访问器调用getter/setter，代替反射调用，默认为false
+     */
+    protected boolean useBytecodeAccessors = false;
+    /**
+     * 根据databaseId对应的方言在数据库端分页，代替在客户端跳过RowBounds的offset行，默认为false
+     */
+    protected boolean useDialectPaging = false;
+    /**
+     * resultType="map"的每一行使用只读的紧凑Map，列名在同一个结果集的所有行之间共享，默认为false
+     */
+    protected boolean useCompactMapRows = false;
     /**
      * 全局配置打印所有的sql
      **/
@@ -167,6 +199,7 @@ public class Configuration {
     protected Properties variables = new Properties();
     protected ObjectFactory objectFactory = new DefaultObjectFactory();
     protected ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
+    protected ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
     protected MapperRegistry mapperRegistry = new MapperRegistry(this);
 
     /**
@@ -177,6 +210,26 @@ public class Configuration {
      * 指定 Mybatis 创建具有延迟加载能力的对象所用到的代理工具
      */
     protected ProxyFactory proxyFactory;
+    /**
+     * 读写缓存和OFFHEAP缓存使用的序列化器，未指定时使用Serializers中的全局序列化器
+     */
+    protected Serializer serializer;
+    /**
+     * parallelMapping语句映射结果对象所用的线程池，未指定时第一次使用时创建，线程数为CPU核数
+     */
+    protected ExecutorService parallelMappingExecutor;
+    /**
+     * AsyncSqlSession执行语句所用的线程池，未指定时第一次使用时创建
+     */
+    protected ExecutorService asyncExecutor;
+    /**
+     * 每个DataSource同时执行的异步语句数的上限，超出的语句排队等待，不占用线程，默认为10，0为不限制
+     */
+    protected int asyncConcurrency = 10;
+    /**
+     * 每个DataSource的异步语句队列
+     */
+    protected final Map<DataSource, AsyncStatementQueue> asyncStatementQueues = new IdentityHashMap<DataSource, AsyncStatementQueue>();
     /**
      * 数据库类型id
      */
@@ -193,6 +246,11 @@ public class Configuration {
     protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry();
     protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
     protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+    /**
+     * 结果映射计划缓存，列与属性的对应关系只解析一次，在多次执行之间复用
+     */
+    protected final RowMappingPlanCache rowMappingPlanCache = new RowMappingPlanCache();
+    protected final DialectRegistry dialectRegistry = new DialectRegistry();
 
     protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection");
     protected final Map<String, Cache> caches = new StrictMap<Cache>("Caches collection");
@@ -227,8 +285,11 @@ public class Configuration {
         typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
         typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
         typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
+        typeAliasRegistry.registerAlias("ROUTING", RoutingDataSourceFactory.class);
 
         typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+        typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
+        typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
         typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
         typeAliasRegistry.registerAlias("LRU", LruCache.class);
         typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
@@ -250,6 +311,9 @@ public class Configuration {
         typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
         typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
+        typeAliasRegistry.registerAlias("JAVA_SERIALIZER", JavaSerializer.class);
+        typeAliasRegistry.registerAlias("BEAN_SERIALIZER", BeanSerializer.class);
+
         languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
         languageRegistry.register(RawLanguageDriver.class);
     }
@@ -282,6 +346,41 @@ public class Configuration {
         this.callSettersOnNulls = callSettersOnNulls;
     }
 
+    public boolean isUseBytecodeAccessors() {
+        return useBytecodeAccessors;
+    }
+
+    /**
+     * 只影响这个配置创建的MetaObject，不会改变其他配置的访问方式
+     */
+    public void setUseBytecodeAccessors(boolean useBytecodeAccessors) {
+        this.useBytecodeAccessors = useBytecodeAccessors;
+        this.reflectorFactory = useBytecodeAccessors ? new BytecodeReflectorFactory() : new DefaultReflectorFactory();
+    }
+
+    public boolean isUseDialectPaging() {
+        return useDialectPaging;
+    }
+
+    public void setUseDialectPaging(boolean useDialectPaging) {
+        this.useDialectPaging = useDialectPaging;
+    }
+
+    public boolean isUseCompactMapRows() {
+        return useCompactMapRows;
+    }
+
+    public void setUseCompactMapRows(boolean useCompactMapRows) {
+        this.useCompactMapRows = useCompactMapRows;
+    }
+
+    /**
+     * 开启了方言分页并且当前databaseId有对应的方言时返回该方言，否则返回null，由客户端跳过行
+     */
+    public Dialect getPagingDialect() {
+        return useDialectPaging ? dialectRegistry.getDialect(databaseId) : null;
+    }
+
     public String getDatabaseId() {
         return databaseId;
     }
@@ -354,6 +453,73 @@ public class Configuration {
         this.lazyLoadingEnabled = lazyLoadingEnabled;
     }
 
+    public synchronized ExecutorService getParallelMappingExecutor() {
+        if (parallelMappingExecutor == null) {
+            parallelMappingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                public Thread newThread(Runnable runnable) {
+                    // 守护线程，不阻止应用退出
+                    Thread thread = new Thread(runnable, "mybatis-parallel-mapping-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return parallelMappingExecutor;
+    }
+
+    public synchronized void setParallelMappingExecutor(ExecutorService parallelMappingExecutor) {
+        this.parallelMappingExecutor = parallelMappingExecutor;
+    }
+
+    public synchronized ExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            // 同时执行的语句数由AsyncStatementQueue限制，线程按需创建
+            asyncExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                public Thread newThread(Runnable runnable) {
+                    // 守护线程，不阻止应用退出
+                    Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return asyncExecutor;
+    }
+
+    public synchronized void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        asyncStatementQueues.clear();
+    }
+
+    public int getAsyncConcurrency() {
+        return asyncConcurrency;
+    }
+
+    public synchronized void setAsyncConcurrency(int asyncConcurrency) {
+        this.asyncConcurrency = asyncConcurrency;
+        asyncStatementQueues.clear();
+    }
+
+    /**
+     * 获取当前environment的DataSource的异步语句队列
+     */
+    public synchronized AsyncStatementQueue getAsyncStatementQueue() {
+        if (environment == null) {
+            throw new IllegalStateException("Asynchronous statements need an environment with a DataSource");
+        }
+        final DataSource dataSource = environment.getDataSource();
+        AsyncStatementQueue queue = asyncStatementQueues.get(dataSource);
+        if (queue == null) {
+            queue = new AsyncStatementQueue(getAsyncExecutor(), asyncConcurrency);
+            asyncStatementQueues.put(dataSource, queue);
+        }
+        return queue;
+    }
+
     public ProxyFactory getProxyFactory() {
         if (proxyFactory == null) {
             // makes sure CGLIB is not needed unless explicitly requested
@@ -366,6 +532,17 @@ public class Configuration {
         this.proxyFactory = proxyFactory;
     }
 
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * 只影响这个配置的缓存。延迟加载代理由JVM序列化，拿不到Configuration，仍然使用Serializers中的全局序列化器
+     */
+    public void setSerializer(Serializer serializer) {
+        this.serializer = serializer;
+    }
+
     public boolean isAggressiveLazyLoading() {
         return aggressiveLazyLoading;
     }
@@ -462,6 +639,10 @@ public class Configuration {
         return typeAliasRegistry;
     }
 
+    public RowMappingPlanCache getRowMappingPlanCache() {
+        return rowMappingPlanCache;
+    }
+
     /**
      * @since 3.2.2
      */
@@ -485,6 +666,10 @@ public class Configuration {
         this.objectWrapperFactory = objectWrapperFactory;
     }
 
+    public ReflectorFactory getReflectorFactory() {
+        return reflectorFactory;
+    }
+
     /**
      * @since 3.2.2
      */
@@ -492,6 +677,10 @@ public class Configuration {
         return interceptorChain.getInterceptors();
     }
 
+    public DialectRegistry getDialectRegistry() {
+        return dialectRegistry;
+    }
+
     public LanguageDriverRegistry getLanguageRegistry() {
         return languageRegistry;
     }
@@ -508,7 +697,7 @@ public class Configuration {
     }
 
     public MetaObject newMetaObject(Object object) {
-        return MetaObject.forObject(object, objectFactory, objectWrapperFactory);
+        return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
     }
 
     public ParameterHandler newParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+
+/**
+ * A page of results of a statement paged with keysets.
+ */
+public class KeysetPage<E> {
+
+  private final List<E> items;
+  private final KeysetToken nextToken;
+
+  public KeysetPage(List<E> items, KeysetToken nextToken) {
+    this.items = items;
+    this.nextToken = nextToken;
+  }
+
+  public List<E> getItems() {
+    return items;
+  }
+
+  /**
+   * @return the token of the next page or null if this is the last one
+   */
+  public KeysetToken getNextToken() {
+    return nextToken;
+  }
+
+  public boolean hasNext() {
+    return nextToken != null;
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * Continuation token of a statement paged with keysets. It holds the page size and the sort keys of the last
+ * row of the previous page, the next page starts right after that row. The first page has no keys.
+ * <p>
+ * As it is a RowBounds a token can be the last parameter of a mapper method that returns a {@link KeysetPage}.
+ */
+public class KeysetToken extends RowBounds {
+
+  private final Object[] lastKeys;
+
+  /**
+   * Token of the first page.
+   */
+  public KeysetToken(int pageSize) {
+    this(pageSize, null);
+  }
+
+  public KeysetToken(int pageSize, Object[] lastKeys) {
+    super(NO_ROW_OFFSET, pageSize);
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be greater than zero");
+    }
+    this.lastKeys = lastKeys == null ? null : lastKeys.clone();
+  }
+
+  public int getPageSize() {
+    return getLimit();
+  }
+
+  public boolean isFirstPage() {
+    return lastKeys == null;
+  }
+
+  public Object[] getLastKeys() {
+    return lastKeys == null ? null : lastKeys.clone();
+  }
+
+}
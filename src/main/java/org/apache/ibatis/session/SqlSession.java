@@ -20,6 +20,7 @@ import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -123,6 +124,50 @@ public interface SqlSession extends Closeable {
      */
     <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds);
 
+    /**
+     * A Cursor offers the same results as a List, except it fetches data lazily using an Iterator.
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement);
+
+    /**
+     * A Cursor offers the same results as a List, except it fetches data lazily using an Iterator.
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter);
+
+    /**
+     * A Cursor offers the same results as a List, except it fetches data lazily using an Iterator.
+     * The cursor is closed when it is fully consumed, when {@link Cursor#close()} is called
+     * or when this session is closed.
+     *
+     * @param <T>       the returned cursor element type.
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return Cursor of mapped objects
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
+
+    /**
+     * Retrieve a page of a statement paged with keysets.
+     * The next page starts after the sort keys held by the token instead of skipping all the previous rows.
+     *
+     * @param <E>       the returned page element type
+     * @param statement Unique identifier matching the statement to use, it must declare a keyset.
+     * @param parameter A parameter object to pass to the statement.
+     * @param token     The page size and the sort keys of the last row of the previous page
+     * @return Page of mapped objects with the token of the next page
+     */
+    <E> KeysetPage<E> selectPage(String statement, Object parameter, KeysetToken token);
+
     /**
      * Retrieve a single row mapped from the statement key and parameter
      * using a {@code ResultHandler}.
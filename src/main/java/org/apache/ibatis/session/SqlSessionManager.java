@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -172,6 +173,29 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.<K, V> selectMap(statement, parameter, mapKey, rowBounds);
   }
 
+  @Override
+  public <T> Cursor<T> selectCursor(String statement) {
+    checkCursorSession();
+    return sqlSessionProxy.<T> selectCursor(statement);
+  }
+
+  @Override
+  public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+    checkCursorSession();
+    return sqlSessionProxy.<T> selectCursor(statement, parameter);
+  }
+
+  @Override
+  public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+    checkCursorSession();
+    return sqlSessionProxy.<T> selectCursor(statement, parameter, rowBounds);
+  }
+
+  @Override
+  public <E> KeysetPage<E> selectPage(String statement, Object parameter, KeysetToken token) {
+    return sqlSessionProxy.<E> selectPage(statement, parameter, token);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return sqlSessionProxy.<E> selectList(statement);
@@ -297,7 +321,14 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     }
   }
 
-  private class SqlSessionInterceptor implements InvocationHandler {
+  /**
+   * A session opened for the call is closed before the cursor is read.
+   */
+  private void checkCursorSession() {
+    if (localSqlSession.get() == null) throw new SqlSessionException("Error:  Cannot open a cursor.  No managed session is started.");
+  }
+
+    private class SqlSessionInterceptor implements InvocationHandler {
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
       final SqlSession sqlSession = SqlSessionManager.this.localSqlSession.get();
       if (sqlSession != null) {
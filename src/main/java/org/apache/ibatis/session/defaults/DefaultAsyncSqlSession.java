@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionManager;
+
+/**
+ * The default implementation of {@link AsyncSqlSession}.
+ * Statements run through a {@link SqlSessionManager} without a managed session,
+ * which opens, commits and closes a SqlSession around each call.
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  private final SqlSessionManager sqlSession;
+
+  public DefaultAsyncSqlSession(SqlSessionFactory sqlSessionFactory) {
+    this.sqlSession = SqlSessionManager.newInstance(sqlSessionFactory);
+  }
+
+  @Override
+  public <T> Future<T> selectOne(String statement) {
+    return selectOne(statement, null);
+  }
+
+  @Override
+  public <T> Future<T> selectOne(final String statement, final Object parameter) {
+    return submit(new Callable<T>() {
+      public T call() {
+        return sqlSession.<T> selectOne(statement, parameter);
+      }
+    });
+  }
+
+  @Override
+  public <E> Future<List<E>> selectList(String statement) {
+    return selectList(statement, null);
+  }
+
+  @Override
+  public <E> Future<List<E>> selectList(String statement, Object parameter) {
+    return selectList(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  @Override
+  public <E> Future<List<E>> selectList(final String statement, final Object parameter, final RowBounds rowBounds) {
+    return submit(new Callable<List<E>>() {
+      public List<E> call() {
+        return sqlSession.<E> selectList(statement, parameter, rowBounds);
+      }
+    });
+  }
+
+  @Override
+  public <K, V> Future<Map<K, V>> selectMap(String statement, String mapKey) {
+    return selectMap(statement, null, mapKey);
+  }
+
+  @Override
+  public <K, V> Future<Map<K, V>> selectMap(final String statement, final Object parameter, final String mapKey) {
+    return submit(new Callable<Map<K, V>>() {
+      public Map<K, V> call() {
+        return sqlSession.<K, V> selectMap(statement, parameter, mapKey);
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> insert(String statement) {
+    return insert(statement, null);
+  }
+
+  @Override
+  public Future<Integer> insert(final String statement, final Object parameter) {
+    return submit(new Callable<Integer>() {
+      public Integer call() {
+        return sqlSession.insert(statement, parameter);
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> update(String statement) {
+    return update(statement, null);
+  }
+
+  @Override
+  public Future<Integer> update(final String statement, final Object parameter) {
+    return submit(new Callable<Integer>() {
+      public Integer call() {
+        return sqlSession.update(statement, parameter);
+      }
+    });
+  }
+
+  @Override
+  public Future<Integer> delete(String statement) {
+    return delete(statement, null);
+  }
+
+  @Override
+  public Future<Integer> delete(final String statement, final Object parameter) {
+    return submit(new Callable<Integer>() {
+      public Integer call() {
+        return sqlSession.delete(statement, parameter);
+      }
+    });
+  }
+
+  @Override
+  public <T> T getMapper(Class<T> type) {
+    return getConfiguration().getMapper(type, (SqlSession) sqlSession);
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return sqlSession.getConfiguration();
+  }
+
+  private <T> Future<T> submit(Callable<T> statement) {
+    return getConfiguration().getAsyncStatementQueue().submit(statement);
+  }
+
+}
@@ -17,20 +17,26 @@ package org.apache.ibatis.session.defaults;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.paging.KeysetPaging;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetPage;
+import org.apache.ibatis.session.KeysetToken;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -45,6 +51,10 @@ public class DefaultSqlSession implements SqlSession {
 
     private boolean autoCommit;
     private boolean dirty;
+    /**
+     * 当前会话打开的游标，会话关闭时一并关闭
+     */
+    private List<Cursor<?>> cursorList;
 
     public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
         this.configuration = configuration;
@@ -89,7 +99,7 @@ public class DefaultSqlSession implements SqlSession {
     public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds) {
         final List<?> list = selectList(statement, parameter, rowBounds);
         final DefaultMapResultHandler<K, V> mapResultHandler = new DefaultMapResultHandler<K, V>(mapKey, configuration.getObjectFactory(),
-                configuration.getObjectWrapperFactory());
+                configuration.getObjectWrapperFactory(), configuration.getReflectorFactory());
         final DefaultResultContext context = new DefaultResultContext();
         for (Object o : list) {
             context.nextResultObject(o);
@@ -99,6 +109,54 @@ public class DefaultSqlSession implements SqlSession {
         return selectedMap;
     }
 
+    @Override
+    public <T> Cursor<T> selectCursor(String statement) {
+        return selectCursor(statement, null);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+        return selectCursor(statement, parameter, RowBounds.DEFAULT);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+        try {
+            MappedStatement ms = configuration.getMappedStatement(statement);
+            Cursor<T> cursor = executor.queryCursor(ms, wrapCollection(parameter), rowBounds);
+            registerCursor(cursor);
+            return cursor;
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
+    @Override
+    public <E> KeysetPage<E> selectPage(String statement, Object parameter, KeysetToken token) {
+        try {
+            MappedStatement ms = configuration.getMappedStatement(statement);
+            if (ms.getKeysetColumns().isEmpty()) {
+                throw new ExecutorException("Statement " + statement + " has no keyset and cannot be paged with a KeysetToken");
+            }
+            // 嵌套结果映射的多行才组成一个结果对象，按行限制的页不是完整的
+            if (ms.hasNestedResultMaps()) {
+                throw new ExecutorException("Statement " + statement + " has nested result maps and cannot be paged with a KeysetToken");
+            }
+            List<E> items = executor.query(ms, wrapCollection(parameter), token, Executor.NO_RESULT_HANDLER);
+            KeysetToken nextToken = null;
+            if (items.size() == token.getPageSize()) {
+                nextToken = new KeysetToken(token.getPageSize(), KeysetPaging.extractKeys(ms, items.get(items.size() - 1)));
+            }
+            return new KeysetPage<E>(items, nextToken);
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
     @Override
     public <E> List<E> selectList(String statement) {
         return this.selectList(statement, null);
@@ -230,6 +288,7 @@ public class DefaultSqlSession implements SqlSession {
     @Override
     public void close() {
         try {
+            closeCursors();
             executor.close(isCommitOrRollbackRequired(false));
             dirty = false;
         } finally {
@@ -261,6 +320,22 @@ public class DefaultSqlSession implements SqlSession {
         executor.clearLocalCache();
     }
 
+    private void closeCursors() {
+        if (cursorList != null && cursorList.size() != 0) {
+            for (Cursor<?> cursor : cursorList) {
+                cursor.close();
+            }
+            cursorList.clear();
+        }
+    }
+
+    private <T> void registerCursor(Cursor<T> cursor) {
+        if (cursorList == null) {
+            cursorList = new ArrayList<Cursor<?>>();
+        }
+        cursorList.add(cursor);
+    }
+
     private boolean isCommitOrRollbackRequired(boolean force) {
         return (!autoCommit && dirty) || force;
     }
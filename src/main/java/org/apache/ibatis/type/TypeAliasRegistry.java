@@ -29,6 +29,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.ibatis.columnar.ColumnarResult;
 import org.apache.ibatis.io.ResolverUtil;
 import org.apache.ibatis.io.Resources;
 
@@ -102,6 +103,7 @@ public class TypeAliasRegistry {
         registerAlias("iterator", Iterator.class);
 
         registerAlias("ResultSet", ResultSet.class);
+        registerAlias("columnar", ColumnarResult.class);
     }
 
     @SuppressWarnings("unchecked")
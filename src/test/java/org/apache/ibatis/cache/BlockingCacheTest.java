@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+public class BlockingCacheTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldLetOtherThreadsWaitForTheValueOfAMissedKey() throws Exception {
+    final BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject(0));
+    // the loading thread does not wait for itself
+    assertNull(cache.getObject(0));
+    Future<Object> waiting = executor.submit(new Callable<Object>() {
+      public Object call() {
+        return cache.getObject(0);
+      }
+    });
+    try {
+      waiting.get(100, TimeUnit.MILLISECONDS);
+      fail("the key should be locked");
+    } catch (TimeoutException e) {
+      // expected
+    }
+    cache.putObject(0, "loaded");
+    assertEquals("loaded", waiting.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldGiveUpWaitingAfterTheTimeout() throws Exception {
+    final BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setTimeout(50);
+    assertNull(cache.getObject(0));
+    Future<Object> waiting = executor.submit(new Callable<Object>() {
+      public Object call() {
+        return cache.getObject(0);
+      }
+    });
+    try {
+      waiting.get(5, TimeUnit.SECONDS);
+      fail("the wait should time out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof CacheException);
+    }
+    cache.removeObject(0);
+  }
+
+  @Test
+  public void shouldReleaseTheKeysOfATransactionWhenItEnds() throws Exception {
+    final Cache cache = new CacheBuilder("blocking").blocking(true).build();
+    assertTrue(cache instanceof BlockingCache);
+    TransactionalCache first = new TransactionalCache(cache);
+    assertNull(first.getObject(0));
+    assertNull(first.getObject(1));
+    first.putObject(0, "loaded");
+    Future<Object> waitingForLoadedKey = getInNewTransaction(cache, 0);
+    Future<Object> waitingForMissedKey = getInNewTransaction(cache, 1);
+    Thread.sleep(50);
+    assertFalse(waitingForLoadedKey.isDone());
+    assertFalse(waitingForMissedKey.isDone());
+    first.commit();
+    assertEquals("loaded", waitingForLoadedKey.get(5, TimeUnit.SECONDS));
+    // nobody loaded key 1, the waiting transaction gets to load it
+    assertNull(waitingForMissedKey.get(5, TimeUnit.SECONDS));
+
+    TransactionalCache second = new TransactionalCache(cache);
+    assertNull(second.getObject(2));
+    second.putObject(2, "rolled back");
+    Future<Object> waitingForRolledBackKey = getInNewTransaction(cache, 2);
+    second.rollback();
+    assertNull(waitingForRolledBackKey.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldKeepTheValueWhenATransactionReleasesItsKeys() throws Exception {
+    final Cache cache = new CacheBuilder("blocking").blocking(true).build();
+    TransactionalCache transaction = new TransactionalCache(cache);
+    assertNull(transaction.getObject(0));
+    // a put outside of the transaction does not release its lock
+    executor.submit(new Callable<Object>() {
+      public Object call() {
+        cache.putObject(0, "loaded elsewhere");
+        return null;
+      }
+    }).get(5, TimeUnit.SECONDS);
+    transaction.rollback();
+    assertEquals("loaded elsewhere", cache.getObject(0));
+  }
+
+  @Test
+  public void shouldReleaseTheKeysOfATransactionEndedByAnotherThread() throws Exception {
+    final Cache cache = new CacheBuilder("blocking").blocking(true).build();
+    final TransactionalCache transaction = new TransactionalCache(cache);
+    executor.submit(new Callable<Object>() {
+      public Object call() {
+        return transaction.getObject(0);
+      }
+    }).get(5, TimeUnit.SECONDS);
+    Future<Object> waiting = getInNewTransaction(cache, 0);
+    Thread.sleep(50);
+    assertFalse(waiting.isDone());
+    transaction.rollback();
+    assertNull(waiting.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldNotWaitForAnotherTransactionOfTheSameThread() {
+    final Cache cache = new CacheBuilder("blocking").blocking(true).build();
+    TransactionalCache first = new TransactionalCache(cache);
+    TransactionalCache second = new TransactionalCache(cache);
+    assertNull(first.getObject(0));
+    assertNull(second.getObject(0));
+    second.rollback();
+    first.rollback();
+  }
+
+  private Future<Object> getInNewTransaction(final Cache cache, final Object key) {
+    return executor.submit(new Callable<Object>() {
+      public Object call() {
+        TransactionalCache transaction = new TransactionalCache(cache);
+        try {
+          return transaction.getObject(key);
+        } finally {
+          transaction.rollback();
+        }
+      }
+    });
+  }
+
+}
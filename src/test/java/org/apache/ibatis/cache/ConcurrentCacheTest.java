@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.Test;
+
+public class ConcurrentCacheTest {
+
+  @Test
+  public void shouldEvictAnEntryThatWasNotReadBeyondFiveEntries() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(5);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(5, 5);
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  public void shouldReplaceAndRemoveItemsOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    cache.putObject(0, 0);
+    cache.putObject(0, 1);
+    assertEquals(1, cache.getSize());
+    assertEquals(1, cache.getObject(0));
+    assertEquals(1, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void shouldSkipRemovedEntriesWhenEvicting() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+      if (i < 95) {
+        cache.removeObject(i);
+      }
+    }
+    assertEquals(5, cache.getSize());
+    cache.putObject(100, 100);
+    // the oldest live entry is evicted, not one that was already removed
+    assertNull(cache.getObject(95));
+    assertEquals(96, cache.getObject(96));
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  public void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void shouldStayWithinItsSizeUnderConcurrentWrites() throws Exception {
+    final ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(100);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Object>> results = new ArrayList<Future<Object>>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t * 10000;
+        results.add(executor.submit(new Callable<Object>() {
+          public Object call() {
+            for (int i = 0; i < 10000; i++) {
+              cache.putObject(offset + i, i);
+              cache.getObject(offset + i / 2);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Object> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    cache.putObject(-1, -1);
+    assertEquals(100, cache.getSize());
+  }
+
+  @Test
+  public void shouldNotBeSynchronizedByTheCacheBuilder() {
+    Cache cache = new CacheBuilder("concurrent").implementation(ConcurrentCache.class).clearInterval(60000L).size(10).build();
+    assertTrue(cache instanceof LoggingCache);
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(10, cache.getSize());
+    cache = new CacheBuilder("concurrent").implementation(ConcurrentCache.class).clearInterval(60000L).build();
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.Test;
+
+public class ExpiringCacheTest {
+
+  @Test
+  public void shouldExpireEachEntryOnItsOwn() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(300);
+    cache.putObject(0, 0);
+    Thread.sleep(200);
+    cache.putObject(1, 1);
+    Thread.sleep(200);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  public void shouldLetOneReaderRefreshAnEntryAboutToExpire() throws Exception {
+    final ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(60000);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, "old");
+    assertNull(cache.getObject(0));
+    // the refreshing thread keeps missing until it puts the new value
+    assertNull(cache.getObject(0));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertEquals("old", executor.submit(new Callable<Object>() {
+        public Object call() {
+          return cache.getObject(0);
+        }
+      }).get());
+    } finally {
+      executor.shutdown();
+    }
+    cache.setRefreshAhead(0);
+    cache.putObject(0, "new");
+    assertEquals("new", cache.getObject(0));
+  }
+
+  @Test
+  public void shouldRemoveItemOnDemand() {
+    Cache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, 0);
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.Test;
+
+public class OffHeapCacheTest {
+
+  @Test
+  public void shouldReturnCopiesOfTheCachedValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<String> value = names(3);
+    cache.putObject(0, value);
+    assertEquals(value, cache.getObject(0));
+    assertNotSame(cache.getObject(0), cache.getObject(0));
+    cache.putObject(0, names(1));
+    assertEquals(names(1), cache.getObject(0));
+    assertEquals(1, cache.getSize());
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void shouldEvictTheLeastRecentlyUsedEntriesWhenFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(4096);
+    cache.setCapacity(4096);
+    int count = 0;
+    while (cache.getSize() == count) {
+      cache.putObject(count, names(1));
+      // keep the first entry in use
+      assertNotNull(cache.getObject(0));
+      count++;
+    }
+    assertEquals(4096, cache.getAllocatedBytes());
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(count - 1));
+  }
+
+  @Test
+  public void shouldReuseTheSlabsOfEvictedEntriesForOtherSizes() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(4096);
+    cache.setCapacity(2 * 4096);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, names(1));
+    }
+    cache.putObject("large", names(200));
+    assertEquals(names(200), cache.getObject("large"));
+    // larger than a slab
+    cache.putObject("huge", names(1000));
+    assertNull(cache.getObject("huge"));
+    assertEquals(2 * 4096, cache.getAllocatedBytes());
+  }
+
+  @Test
+  public void shouldFlushAllItemsOnDemand() {
+    OffHeapCache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, names(i));
+    }
+    long allocated = cache.getAllocatedBytes();
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, names(i));
+    }
+    assertEquals(allocated, cache.getAllocatedBytes());
+  }
+
+  @Test
+  public void shouldStoreValuesInAMappedFile() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(4096);
+    cache.setDirectory(new File(System.getProperty("java.io.tmpdir")).getAbsolutePath());
+    for (int i = 0; i < 50; i++) {
+      cache.putObject(i, names(i));
+    }
+    for (int i = 0; i < 50; i++) {
+      assertEquals(names(i), cache.getObject(i));
+    }
+  }
+
+  @Test(expected = CacheException.class)
+  public void shouldRejectNonSerializableValues() {
+    new OffHeapCache("default").putObject(0, new Object());
+  }
+
+  @Test
+  public void shouldNotBeWrappedInSerializedNorSynchronizedCache() {
+    Cache cache = new CacheBuilder("offheap").implementation(OffHeapCache.class).readWrite(true).build();
+    assertTrue(cache instanceof LoggingCache);
+    cache.putObject(0, names(2));
+    assertEquals(names(2), cache.getObject(0));
+  }
+
+  @Test
+  public void shouldExpireEntriesAfterTheirTimeToLive() throws Exception {
+    Cache cache = new CacheBuilder("offheap").implementation(OffHeapCache.class).timeToLive(100L).build();
+    cache.putObject(0, names(2));
+    assertEquals(names(2), cache.getObject(0));
+    Thread.sleep(200);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  public void shouldLetOneThreadRefreshAhead() throws Exception {
+    final Cache cache = new CacheBuilder("offheap").implementation(OffHeapCache.class).timeToLive(60000L).refreshAhead(60000L).build();
+    cache.putObject(0, names(2));
+    // every read returns a new copy of the entry, the refreshing thread is remembered by the cache
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(0));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> other = executor.submit(new Callable<Object>() {
+        public Object call() {
+          return cache.getObject(0);
+        }
+      });
+      assertEquals(names(2), other.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = CacheException.class)
+  public void shouldRejectMaxWeight() {
+    new CacheBuilder("offheap").implementation(OffHeapCache.class).maxWeight(1024L).build();
+  }
+
+  private List<String> names(int count) {
+    List<String> names = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      names.add("name" + i);
+    }
+    return names;
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.Test;
+
+import domain.blog.Author;
+import domain.blog.Section;
+
+public class WeightedCacheTest {
+
+  @Test
+  public void shouldWeighResultListsByTheirObjects() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, authors(1));
+    long one = cache.getWeight();
+    cache.putObject(1, authors(10));
+    long ten = cache.getWeight() - one;
+    assertTrue(one > 100);
+    // the password and bio literals are shared by all authors and only counted once
+    assertTrue(ten > 5 * one);
+    cache.putObject(1, authors(1));
+    assertEquals(2 * one, cache.getWeight());
+  }
+
+  @Test
+  public void shouldEvictTheOldestEntriesBeyondTheMaximumWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, authors(1));
+    long one = cache.getWeight();
+    cache.setMaxWeight(3 * one);
+    for (int i = 1; i < 5; i++) {
+      cache.putObject(i, authors(1));
+    }
+    assertEquals(3, cache.getSize());
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(4));
+    // too large to be cached at all
+    cache.putObject(5, authors(10));
+    assertNull(cache.getObject(5));
+    assertEquals(3 * one, cache.getWeight());
+  }
+
+  @Test
+  public void shouldEvictTheLeastRecentlyUsedEntries() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("DefaultCache"));
+    cache.putObject(0, authors(1));
+    cache.setMaxWeight(3 * cache.getWeight());
+    cache.putObject(1, authors(1));
+    cache.putObject(2, authors(1));
+    cache.getObject(0);
+    cache.putObject(3, authors(1));
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+  }
+
+  @Test
+  public void shouldBoundTheNumberOfEntries() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("DefaultCache"));
+    cache.setSize(2);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, authors(1));
+    }
+    assertEquals(2, cache.getSize());
+    assertNotNull(cache.getObject(4));
+  }
+
+  @Test
+  public void shouldForgetTheWeightOfEntriesRemovedBelow() {
+    Cache perpetual = new PerpetualCache("DefaultCache");
+    WeightedCache cache = new WeightedCache(perpetual);
+    cache.putObject(0, authors(1));
+    long one = cache.getWeight();
+    cache.putObject(1, authors(1));
+    // expired or evicted by a decorator below
+    perpetual.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(one, cache.getWeight());
+  }
+
+  @Test
+  public void shouldKeepTheWeightOfAValuePutDuringAMiss() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final WeightedCache[] cache = new WeightedCache[1];
+    // another thread puts the value after this one missed it
+    Cache perpetual = new PerpetualCache("DefaultCache") {
+      private boolean missed;
+
+      @Override
+      public Object getObject(Object key) {
+        final Object value = super.getObject(key);
+        if (!missed) {
+          missed = true;
+          try {
+            executor.submit(new Callable<Object>() {
+              public Object call() {
+                cache[0].putObject(0, authors(1));
+                return null;
+              }
+            }).get();
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        return value;
+      }
+    };
+    cache[0] = new WeightedCache(perpetual);
+    try {
+      assertNull(cache[0].getObject(0));
+      assertNotNull(cache[0].getObject(0));
+      assertTrue(cache[0].getWeight() > 0);
+      cache[0].removeObject(0);
+      assertEquals(0, cache[0].getWeight());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldReplaceTheLruEviction() {
+    Cache cache = new CacheBuilder("weighted").addDecorator(LruCache.class).size(2).maxWeight(1024L * 1024).build();
+    cache.putObject(0, authors(1));
+    cache.putObject(1, authors(1));
+    cache.getObject(0);
+    cache.putObject(2, authors(1));
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  public void shouldWeighTheSerializedBytesOfAReadWriteCache() {
+    Cache cache = new CacheBuilder("weighted").maxWeight(1024L).readWrite(true).build();
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, authors(1));
+    }
+    assertTrue(cache.getSize() < 20);
+    List<?> authors = (List<?>) cache.getObject(19);
+    assertEquals("author0", ((Author) authors.get(0)).getUsername());
+  }
+
+  private List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<Author>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "author" + i, "password", "author" + i + "@example.com", "bio", Section.NEWS));
+    }
+    return authors;
+  }
+
+}
@@ -0,0 +1,77 @@
+/*-
+ *    Copyright 2009-2013 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldReportPercentilesWithinTheBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10000; i++) {
+      histogram.recordValue(i);
+    }
+    assertEquals(10000, histogram.getCount());
+    assertEquals(10000, histogram.getMaxValue());
+    assertEquals(5000, histogram.getMean());
+    assertWithinPrecision(5000, histogram.getValueAtPercentile(50));
+    assertWithinPrecision(9900, histogram.getValueAtPercentile(99));
+    assertEquals(10000, histogram.getValueAtPercentile(100));
+    assertEquals(1, histogram.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void shouldCountSmallValuesExactly() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordValue(3);
+    histogram.recordValue(3);
+    histogram.recordValue(7);
+    histogram.recordValue(-1);
+    assertEquals(0, histogram.getValueAtPercentile(25));
+    assertEquals(3, histogram.getValueAtPercentile(50));
+    assertEquals(7, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void shouldCoverEveryLongWithContiguousBuckets() {
+    for (int i = 0; i < 959; i++) {
+      long highest = LatencyHistogram.highestValueOf(i);
+      assertEquals(i, LatencyHistogram.indexOf(highest));
+      assertEquals(i + 1, LatencyHistogram.indexOf(highest + 1));
+    }
+    assertEquals(959, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(959));
+  }
+
+  @Test
+  public void shouldReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordValue(100);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMaxValue());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  private void assertWithinPrecision(long expected, long actual) {
+    assertTrue("expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+  }
+
+}
@@ -0,0 +1,70 @@
+/*-
+ *    Copyright 2009-2013 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.Test;
+
+public class PoolHousekeeperTest extends BaseDataTest {
+
+  @Test
+  public void shouldOnlyTakeOutIdleConnectionsDueForAPing() throws Exception {
+    PooledDataSource pooled = createPooledDataSource(JPETSTORE_PROPERTIES);
+    PingCountingDataSource ds = new PingCountingDataSource();
+    ds.setDriver(pooled.getDriver());
+    ds.setUrl(pooled.getUrl());
+    ds.setUsername(pooled.getUsername());
+    ds.setPassword(pooled.getPassword());
+    try {
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+      ds.setPoolPingConnectionsNotUsedFor(200);
+      Connection first = ds.getConnection();
+      Connection second = ds.getConnection();
+      first.close();
+      second.close();
+      ds.pings.set(0);
+      ds.housekeep();
+      // not due for a ping, they stayed in the idle queue
+      assertEquals(0, ds.pings.get());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      Thread.sleep(250);
+      ds.housekeep();
+      assertEquals(2, ds.pings.get());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  private static class PingCountingDataSource extends PooledDataSource {
+
+    private final AtomicInteger pings = new AtomicInteger();
+
+    @Override
+    protected boolean pingConnection(PooledConnection conn) {
+      pings.incrementAndGet();
+      return super.pingConnection(conn);
+    }
+
+  }
+
+}
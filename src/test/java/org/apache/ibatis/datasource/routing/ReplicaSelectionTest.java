@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.junit.Test;
+
+public class ReplicaSelectionTest {
+
+  @Test
+  public void shouldChooseReplicasInProportionToTheirWeight() {
+    RoutingDataSource ds = newRoutingDataSource();
+    int[] counts = choose(ds, 10000);
+    assertTrue(counts[1] > counts[0] * 2);
+    assertTrue(counts[1] < counts[0] * 4);
+  }
+
+  @Test
+  public void shouldSendFewerReadsToASlowerReplica() {
+    RoutingDataSource ds = newRoutingDataSource();
+    // the heavier replica answers ten times slower
+    ds.getReplicas().get(0).recordLatency(1000000L);
+    ds.getReplicas().get(1).recordLatency(10000000L);
+    int[] counts = choose(ds, 10000);
+    assertTrue(counts[0] > counts[1] * 2);
+  }
+
+  @Test
+  public void shouldLeaveOutUnavailableReplicas() {
+    RoutingDataSource ds = newRoutingDataSource();
+    ds.getReplicas().get(1).recordFailure(60000);
+    assertEquals(10000, choose(ds, 10000)[0]);
+    ds.getReplicas().get(0).recordFailure(60000);
+    assertNull(ds.chooseReplica());
+    assertEquals(1, ds.getReplicas().get(0).getFailureCount());
+  }
+
+  private RoutingDataSource newRoutingDataSource() {
+    RoutingDataSource ds = new RoutingDataSource(new UnpooledDataSource());
+    ds.addReplica("light", new UnpooledDataSource(), 1);
+    ds.addReplica("heavy", new UnpooledDataSource(), 3);
+    return ds;
+  }
+
+  private int[] choose(RoutingDataSource ds, int times) {
+    int[] counts = new int[2];
+    for (int i = 0; i < times; i++) {
+      counts[ds.getReplicas().indexOf(ds.chooseReplica())]++;
+    }
+    return counts;
+  }
+
+}
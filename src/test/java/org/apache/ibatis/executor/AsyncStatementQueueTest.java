@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2009-2012 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AsyncStatementQueueTest {
+
+  @Test
+  public void shouldQueueStatementsOverTheLimitWithoutHoldingThreads() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      AsyncStatementQueue queue = new AsyncStatementQueue(executor, 2);
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch started = new CountDownLatch(2);
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+      for (int i = 0; i < 6; i++) {
+        final int value = i;
+        results.add(queue.submit(new Callable<Integer>() {
+          public Integer call() throws Exception {
+            int now = running.incrementAndGet();
+            synchronized (maxRunning) {
+              maxRunning.set(Math.max(maxRunning.get(), now));
+            }
+            started.countDown();
+            release.await();
+            running.decrementAndGet();
+            return value;
+          }
+        }));
+      }
+      assertEquals(2, queue.getRunning());
+      assertEquals(4, queue.getPending());
+      assertFalse(results.get(5).isDone());
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      release.countDown();
+      for (int i = 0; i < 6; i++) {
+        assertEquals(Integer.valueOf(i), results.get(i).get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(2, maxRunning.get());
+      assertEquals(0, queue.getPending());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldRunEverythingAtOnceWithoutLimit() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      AsyncStatementQueue queue = new AsyncStatementQueue(executor, 0);
+      final CountDownLatch started = new CountDownLatch(5);
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < 5; i++) {
+        results.add(queue.submit(new Callable<Boolean>() {
+          public Boolean call() throws Exception {
+            started.countDown();
+            return started.await(5, TimeUnit.SECONDS);
+          }
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldCancelQueuedStatementsWhenTheExecutorIsShutDown() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    AsyncStatementQueue queue = new AsyncStatementQueue(executor, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Future<Object> first = queue.submit(new Callable<Object>() {
+      public Object call() throws Exception {
+        release.await();
+        return null;
+      }
+    });
+    Future<Object> second = queue.submit(new Callable<Object>() {
+      public Object call() {
+        return null;
+      }
+    });
+    executor.shutdown();
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+    assertTrue(second.isCancelled());
+    assertEquals(0, queue.getRunning());
+  }
+
+}
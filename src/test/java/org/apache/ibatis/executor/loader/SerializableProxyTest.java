@@ -31,6 +31,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.io.BeanSerializer;
+import org.apache.ibatis.io.Serializers;
 import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.junit.Test;
@@ -179,6 +181,21 @@ public abstract class SerializableProxyTest {
     assertEquals(999, author2.getId());
   }
 
+  @Test(expected = ExecutorException.class)
+  public void shouldSerializeAProxyWithTheBeanSerializer() throws Exception {
+    Serializers.setDefault(new BeanSerializer());
+    try {
+      ResultLoaderMap loader = new ResultLoaderMap();
+      loader.addLoader("id", null, null);
+      Object proxy = proxyFactory.createProxy(author, loader, new Configuration(), new DefaultObjectFactory(), new ArrayList<Class<?>>(), new ArrayList<Object>());
+      Author author2 = (Author) deserialize(serialize((Serializable) proxy));
+      assertEquals("someone", author2.getUsername());
+      author2.getId();
+    } finally {
+      Serializers.setDefault(null);
+    }
+  }
+
   protected byte[] serialize(Serializable value) throws Exception {
     ByteArrayOutputStream bos = new ByteArrayOutputStream();
     ObjectOutputStream oos = new ObjectOutputStream(bos);
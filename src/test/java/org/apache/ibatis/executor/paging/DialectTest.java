@@ -0,0 +1,136 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.paging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Test;
+
+public class DialectTest {
+
+  private static final String SQL = "select * from items order by id";
+
+  @Test
+  public void shouldAppendLimitAndOffset() {
+    Dialect dialect = new LimitOffsetDialect();
+    List<Object> parameters = new ArrayList<Object>();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPagingSql(SQL, 20, 10, parameters));
+    assertEquals(Arrays.<Object>asList(10, 20), parameters);
+    parameters.clear();
+    assertEquals(SQL + " LIMIT ?", dialect.getPagingSql(SQL, 0, 10, parameters));
+    assertEquals(Arrays.<Object>asList(10), parameters);
+    parameters.clear();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPagingSql(SQL, 20, RowBounds.NO_ROW_LIMIT, parameters));
+    assertEquals(Arrays.<Object>asList(Long.MAX_VALUE, 20), parameters);
+  }
+
+  @Test
+  public void shouldWriteTheSameSqlForEveryPage() {
+    Dialect dialect = new LimitOffsetDialect();
+    assertEquals(dialect.getPagingSql(SQL, 20, 10, new ArrayList<Object>()), dialect.getPagingSql(SQL, 30, 10, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldRemoveTrailingSemicolonsBeforeTheLimit() {
+    Dialect dialect = new LimitOffsetDialect();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPagingSql(SQL + " ; ", 20, 10, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldRemoveTrailingCommentsBeforeTheLimit() {
+    Dialect dialect = new LimitOffsetDialect();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPagingSql(SQL + " -- newest first\n", 20, 10, new ArrayList<Object>()));
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPagingSql(SQL + "; -- newest first", 20, 10, new ArrayList<Object>()));
+    assertEquals("select * from items\n-- keep\norder by id LIMIT ?", dialect.getPagingSql("select * from items\n-- keep\norder by id", 0, 10, new ArrayList<Object>()));
+    assertEquals("select '--;' from items LIMIT ?", dialect.getPagingSql("select '--;' from items", 0, 10, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldLimitBeforeForUpdate() {
+    Dialect dialect = new LimitOffsetDialect();
+    assertEquals(SQL + " LIMIT ? OFFSET ? for update", dialect.getPagingSql(SQL + " for update", 20, 10, new ArrayList<Object>()));
+    assertEquals(SQL + " LIMIT ? FOR UPDATE NOWAIT", dialect.getPagingSql(SQL + " FOR UPDATE NOWAIT;", 0, 10, new ArrayList<Object>()));
+    String subquery = "select * from (select * from items for update) t";
+    assertEquals(subquery + " LIMIT ?", dialect.getPagingSql(subquery, 0, 10, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldLimitBeforeLockInShareMode() {
+    Dialect dialect = new LimitOffsetDialect();
+    assertEquals(SQL + " LIMIT ? OFFSET ? LOCK IN SHARE MODE", dialect.getPagingSql(SQL + " LOCK IN SHARE MODE -- reads", 20, 10, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldFetchBeforeForUpdate() {
+    Dialect dialect = new OffsetFetchDialect();
+    assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY FOR UPDATE", dialect.getPagingSql(SQL + " FOR UPDATE;", 20, 10, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldAppendOffsetFetch() {
+    Dialect dialect = new OffsetFetchDialect();
+    List<Object> parameters = new ArrayList<Object>();
+    assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", dialect.getPagingSql(SQL, 20, 10, parameters));
+    assertEquals(Arrays.<Object>asList(20, 10), parameters);
+    parameters.clear();
+    assertEquals(SQL + " OFFSET ? ROWS", dialect.getPagingSql(SQL, 20, RowBounds.NO_ROW_LIMIT, parameters));
+    assertEquals(Arrays.<Object>asList(20), parameters);
+  }
+
+  @Test
+  public void shouldFilterByRowNum() {
+    Dialect dialect = new RowNumDialect();
+    List<Object> parameters = new ArrayList<Object>();
+    assertFalse(dialect.supportsOffset());
+    assertEquals("SELECT MYBATIS_PAGE_.* FROM (" + SQL + ") MYBATIS_PAGE_ WHERE ROWNUM <= ?", dialect.getPagingSql(SQL, 0, 30, parameters));
+    assertEquals(Arrays.<Object>asList(30), parameters);
+  }
+
+  @Test
+  public void shouldNotFilterLockedSelectByRowNum() {
+    Dialect dialect = new RowNumDialect();
+    assertNull(dialect.getPagingSql(SQL + " FOR UPDATE", 0, 10, new ArrayList<Object>()));
+    assertNull(dialect.getPagingSql(SQL, 0, RowBounds.NO_ROW_LIMIT, new ArrayList<Object>()));
+  }
+
+  @Test
+  public void shouldFindDialectByAliasOrProductName() {
+    DialectRegistry registry = new DialectRegistry();
+    assertTrue(registry.getDialect("mysql") instanceof LimitOffsetDialect);
+    assertTrue(registry.getDialect("HSQL Database Engine") instanceof LimitOffsetDialect);
+    assertTrue(registry.getDialect("DB2/LINUXX8664") instanceof OffsetFetchDialect);
+    assertTrue(registry.getDialect("Oracle") instanceof RowNumDialect);
+    assertNull(registry.getDialect("informix"));
+    assertNull(registry.getDialect(null));
+  }
+
+  @Test
+  public void shouldRegisterCustomDialect() {
+    DialectRegistry registry = new DialectRegistry();
+    Dialect dialect = new OffsetFetchDialect();
+    registry.register("Informix", dialect);
+    assertEquals(dialect, registry.getDialect("informix"));
+  }
+
+}
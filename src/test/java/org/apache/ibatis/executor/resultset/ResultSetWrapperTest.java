@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.ObjectTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResultSetWrapperTest {
+
+  @Mock
+  private ResultSet rs;
+  @Mock
+  private ResultSetMetaData rsmd;
+
+  @Test
+  public void shouldFindTheFirstOfDuplicateColumnLabels() throws Exception {
+    ResultSetWrapper rsw = wrap("ID", "NAME", "id", "Name");
+    assertEquals(1, rsw.getColumnIndex("ID"));
+    assertEquals(1, rsw.getColumnIndex("id"));
+    assertEquals(2, rsw.getColumnIndex("NAME"));
+    assertEquals(2, rsw.getColumnIndex("Name"));
+    assertEquals(2, rsw.getColumnIndex("nAmE"));
+  }
+
+  @Test
+  public void shouldNotFindMissingColumns() throws Exception {
+    ResultSetWrapper rsw = wrap("ID", "CHILD_ID");
+    assertEquals(2, rsw.getColumnIndex("child_id"));
+    assertEquals(0, rsw.getColumnIndex("CHILD"));
+    assertEquals(0, rsw.getColumnIndex(null));
+  }
+
+  @Test
+  public void shouldMatchMappedColumnsIgnoringCase() throws Exception {
+    Configuration config = new Configuration();
+    List<ResultMapping> mappings = new ArrayList<ResultMapping>();
+    mappings.add(new ResultMapping.Builder(config, "id", "Id", new IntegerTypeHandler()).build());
+    mappings.add(new ResultMapping.Builder(config, "name", "name", new StringTypeHandler()).build());
+    ResultMap resultMap = new ResultMap.Builder(config, "testMap", HashMap.class, mappings).build();
+    ResultSetWrapper rsw = wrap("ID", "Name", "Extra_Column");
+
+    Set<String> mapped = rsw.getMappedColumnNames(resultMap, null);
+    assertEquals(2, mapped.size());
+    assertTrue(mapped.contains("ID"));
+    assertTrue(mapped.contains("NAME"));
+    // unmapped columns keep the case of the driver, they become property names
+    assertEquals(Arrays.asList("Extra_Column"), rsw.getUnmappedColumnNames(resultMap, null));
+
+    ResultSetWrapper prefixed = wrap("ID", "Child_Id", "child_NAME");
+    assertEquals(2, prefixed.getMappedColumnNames(resultMap, "child_").size());
+    assertTrue(prefixed.getMappedColumnNames(resultMap, "child_").contains("CHILD_ID"));
+    assertEquals(Arrays.asList("ID"), prefixed.getUnmappedColumnNames(resultMap, "child_"));
+  }
+
+  @Test
+  public void shouldFallBackWhenLookingUpTheTypeHandlerOfAnUnknownColumn() throws Exception {
+    ResultSetWrapper rsw = wrap("ID");
+    // the column type decides when the property type does not
+    assertTrue(rsw.getTypeHandler(Object.class, "id") instanceof IntegerTypeHandler);
+    assertSame(rsw.getTypeHandler(Object.class, "id"), rsw.getTypeHandler(Object.class, "ID"));
+    // unknown columns use the property type, then ObjectTypeHandler
+    assertTrue(rsw.getTypeHandler(String.class, "MISSING") instanceof StringTypeHandler);
+    assertTrue(rsw.getTypeHandler(Object.class, "MISSING") instanceof ObjectTypeHandler);
+    assertTrue(rsw.getTypeHandler(Object.class, null) instanceof ObjectTypeHandler);
+  }
+
+  private ResultSetWrapper wrap(String... labels) throws Exception {
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rsmd.getColumnCount()).thenReturn(labels.length);
+    for (int i = 0; i < labels.length; i++) {
+      when(rsmd.getColumnLabel(i + 1)).thenReturn(labels[i]);
+      when(rsmd.getColumnType(i + 1)).thenReturn(Types.INTEGER);
+      when(rsmd.getColumnClassName(i + 1)).thenReturn(Integer.class.getName());
+    }
+    return new ResultSetWrapper(rs, new Configuration());
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RowKeyTest {
+
+  @Test
+  public void shouldCompareKeyColumnValues() {
+    RowKey key1 = new RowKey("blogMap", null, new Object[] { 1, "hello", null });
+    RowKey key2 = new RowKey("blogMap", null, new Object[] { 1, "hello", null });
+    assertTrue(key1.equals(key2));
+    assertTrue(key1.hashCode() == key2.hashCode());
+    assertEquals(2, key1.getValueCount());
+    assertFalse(key1.equals(new RowKey("blogMap", null, new Object[] { 1, null, "hello" })));
+  }
+
+  @Test
+  public void shouldCompareArrayValuesByContent() {
+    RowKey key1 = new RowKey("blobMap", null, new Object[] { new byte[] { 1, 2, 3 } });
+    RowKey key2 = new RowKey("blobMap", null, new Object[] { new byte[] { 1, 2, 3 } });
+    assertTrue(key1.equals(key2));
+    assertTrue(key1.hashCode() == key2.hashCode());
+  }
+
+  @Test
+  public void shouldNotMatchSameResultMapWithAnotherPrefix() {
+    RowKey author = new RowKey("authorMap", "AUTHOR_", new Object[] { 101 });
+    RowKey coAuthor = new RowKey("authorMap", "COAUTHOR_", new Object[] { 101 });
+    assertFalse(author.equals(coAuthor));
+  }
+
+  @Test
+  public void shouldIncludeParentKey() {
+    RowKey post = new RowKey("postMap", null, new Object[] { 1 });
+    RowKey blog1 = new RowKey("blogMap", null, new Object[] { 1 });
+    RowKey blog2 = new RowKey("blogMap", null, new Object[] { 2 });
+    assertTrue(new RowKey(post, blog1).equals(new RowKey(post, blog1)));
+    assertFalse(new RowKey(post, blog1).equals(new RowKey(post, blog2)));
+    assertFalse(new RowKey(post, blog1).equals(post));
+  }
+
+}
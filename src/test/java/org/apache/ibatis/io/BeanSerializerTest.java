@@ -0,0 +1,253 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import domain.blog.Author;
+import domain.blog.Section;
+
+public class BeanSerializerTest {
+
+  private final Serializer serializer = new BeanSerializer();
+
+  @Test
+  public void shouldCopyAListOfBeansInLessSpaceThanJavaSerialization() throws Exception {
+    List<Author> authors = new ArrayList<Author>();
+    for (int i = 0; i < 100; i++) {
+      // like the drivers, a new string for every row
+      authors.add(new Author(i, "author" + i, new String("password"), "author" + i + "@example.com", new String("bio é中"), Section.NEWS));
+    }
+    byte[] bytes = serializer.serialize(authors);
+    assertEquals(authors, serializer.deserialize(bytes));
+    assertTrue(bytes.length < new JavaSerializer().serialize(authors).length);
+  }
+
+  @Test
+  public void shouldCopyValueTypes() throws Exception {
+    Timestamp timestamp = new Timestamp(1234567890123L);
+    timestamp.setNanos(123456789);
+    Map<String, Object> row = new HashMap<String, Object>();
+    row.put("int", -42);
+    row.put("long", Long.MIN_VALUE);
+    row.put("short", (short) -7);
+    row.put("byte", (byte) 200);
+    row.put("boolean", true);
+    row.put("char", '中');
+    row.put("float", 1.5f);
+    row.put("double", -0.25d);
+    row.put("decimal", new BigDecimal("-12345678901234567890.0123"));
+    row.put("integer", new BigInteger("123456789012345678901234567890"));
+    row.put("date", new Date(-1000L));
+    row.put("sqlDate", new java.sql.Date(86400000L));
+    row.put("time", new java.sql.Time(3600000L));
+    row.put("timestamp", timestamp);
+    row.put("enum", Section.VIDEOS);
+    row.put("class", int.class);
+    row.put("null", null);
+    row.put("sorted", new TreeMap<String, String>());
+    @SuppressWarnings("unchecked")
+    Map<String, Object> copy = (Map<String, Object>) serializer.deserialize(serializer.serialize(row));
+    assertEquals(row, copy);
+    assertEquals(123456789, ((Timestamp) copy.get("timestamp")).getNanos());
+    assertTrue(copy.containsKey("null"));
+
+    byte[] bytes = new byte[] { 1, 2, 3 };
+    Object[] array = new String[] { "a", null, "b" };
+    Object[] arrays = (Object[]) serializer.deserialize(serializer.serialize(new Object[] { bytes, array }));
+    assertTrue(Arrays.equals(bytes, (byte[]) arrays[0]));
+    assertEquals(String[].class, arrays[1].getClass());
+    assertTrue(Arrays.equals(array, (Object[]) arrays[1]));
+  }
+
+  @Test
+  public void shouldCopyStringsOfMixedWidthAtTheEndOfTheBuffer() throws Exception {
+    // the wide chars fill the buffer almost to its end, the ascii chars that follow run over it
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 82; i++) {
+      builder.append('中');
+    }
+    for (int i = 0; i < 38; i++) {
+      builder.append('x');
+    }
+    for (int length = 1; length <= builder.length(); length++) {
+      String value = builder.substring(builder.length() - length);
+      assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+    }
+    assertEquals(builder.toString(), serializer.deserialize(serializer.serialize(builder.toString())));
+  }
+
+  @Test
+  public void shouldKeepSharedAndCircularReferences() throws Exception {
+    Node parent = new Node();
+    parent.setName("parent");
+    for (int i = 0; i < 3; i++) {
+      Node child = new Node();
+      child.setName("child" + i);
+      child.setParent(parent);
+      parent.getChildren().add(child);
+    }
+    Node copy = (Node) serializer.deserialize(serializer.serialize(parent));
+    assertEquals("parent", copy.getName());
+    assertEquals(3, copy.getChildren().size());
+    for (Node child : copy.getChildren()) {
+      assertSame(copy, child.getParent());
+    }
+    assertEquals("child2", copy.getChildren().get(2).getName());
+  }
+
+  @Test
+  public void shouldUseJavaSerializationForObjectsThatAreNotBeans() throws Exception {
+    Point point = new Point(1, 2);
+    Node node = new Node();
+    node.setName("point");
+    node.setValue(point);
+    Node copy = (Node) serializer.deserialize(serializer.serialize(node));
+    assertEquals(point, copy.getValue());
+  }
+
+  @Test
+  public void shouldCopyTheValuesOfASerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+    Author author = new Author(1, "author", "password", "author@example.com", "bio", Section.NEWS);
+    cache.putObject(0, author);
+    Object copy = cache.getObject(0);
+    assertEquals(author, copy);
+    assertNotSame(author, copy);
+  }
+
+  @Test
+  public void shouldBeUsedByTheCachesOfItsConfigurationOnly() {
+    CountingSerializer counting = new CountingSerializer();
+    Configuration configuration = new Configuration();
+    configuration.setSerializer(counting);
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "resource");
+    assistant.setCurrentNamespace("readWrite");
+    Cache readWrite = assistant.useNewCache(PerpetualCache.class, LruCache.class, null, null, true, null);
+    assistant = new MapperBuilderAssistant(configuration, "resource");
+    assistant.setCurrentNamespace("offHeap");
+    Cache offHeap = assistant.useNewCache(OffHeapCache.class, null, null, null, false, null);
+    Author author = new Author(1, "author", "password", "author@example.com", "bio", Section.NEWS);
+    readWrite.putObject(0, author);
+    offHeap.putObject(0, author);
+    assertEquals(2, counting.count);
+    assertEquals(author, readWrite.getObject(0));
+    assertEquals(author, offHeap.getObject(0));
+    assertTrue(Serializers.getDefault() instanceof JavaSerializer);
+  }
+
+  static class CountingSerializer extends BeanSerializer {
+
+    private int count;
+
+    @Override
+    public byte[] serialize(Object object) throws IOException {
+      count++;
+      return super.serialize(object);
+    }
+
+  }
+
+  public static class Node implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private String name;
+    private Node parent;
+    private List<Node> children = new ArrayList<Node>();
+    private Object value;
+    private transient String cached;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+      this.cached = name;
+    }
+
+    public Node getParent() {
+      return parent;
+    }
+
+    public void setParent(Node parent) {
+      this.parent = parent;
+    }
+
+    public List<Node> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Node> children) {
+      this.children = children;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public void setValue(Object value) {
+      this.value = value;
+    }
+
+  }
+
+  public static class Point implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int x;
+    private final int y;
+
+    public Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * x + y;
+    }
+
+  }
+
+}
@@ -16,17 +16,33 @@
 package org.apache.ibatis.jdbc;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PoolMetricsListener;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.hsqldb.jdbc.JDBCConnection;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 public class PooledDataSourceTest extends BaseDataTest {
 
@@ -85,4 +101,338 @@ public class PooledDataSourceTest extends BaseDataTest {
     Connection c = ds.getConnection();
     JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
   }
+
+  @Test
+  public void shouldWakeUpAWaitingThreadWhenAConnectionIsReturned() throws Exception {
+    final PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumCheckoutTime(60000);
+      ds.setPoolTimeToWait(60000);
+      Connection connection = ds.getConnection();
+      Future<Long> waited = executor.submit(new Callable<Long>() {
+        public Long call() throws Exception {
+          long start = System.currentTimeMillis();
+          ds.getConnection().close();
+          return System.currentTimeMillis() - start;
+        }
+      });
+      while (ds.getPoolState().getHadToWaitCount() == 0) {
+        Thread.sleep(10);
+      }
+      connection.close();
+      assertTrue(waited.get(10, TimeUnit.SECONDS) < 10000);
+      assertEquals(1, ds.getPoolState().getHadToWaitCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldShareFewConnectionsBetweenManyThreads() throws Exception {
+    final PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      ds.setPoolMaximumActiveConnections(2);
+      ds.setPoolMaximumIdleConnections(2);
+      List<Future<Object>> results = new ArrayList<Future<Object>>();
+      for (int i = 0; i < 16; i++) {
+        results.add(executor.submit(new Callable<Object>() {
+          public Object call() throws Exception {
+            for (int j = 0; j < 50; j++) {
+              ds.getConnection().close();
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Object> result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(800, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(0, ds.getPoolState().getClaimedOverdueConnectionCount());
+      assertTrue(ds.getPoolState().getIdleConnectionCount() <= 2);
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldHandBackTheConnectionThisThreadReturnedLast() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      Connection first = ds.getConnection();
+      Connection second = ds.getConnection();
+      Connection secondReal = PooledDataSource.unwrapConnection(second);
+      second.close();
+      first.close();
+      Connection again = ds.getConnection();
+      assertSame(PooledDataSource.unwrapConnection(first), PooledDataSource.unwrapConnection(again));
+      // the other idle connection is still taken from the shared queue
+      Connection other = ds.getConnection();
+      assertSame(secondReal, PooledDataSource.unwrapConnection(other));
+      assertEquals(2, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+      again.close();
+      other.close();
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldKeepCountsWhenClaimingAnOverdueConnection() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumCheckoutTime(50);
+      Connection overdue = ds.getConnection();
+      Thread.sleep(100);
+      Connection claimed = ds.getConnection();
+      assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      overdue.close();
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      claimed.close();
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldOpenTheMinimumNumberOfIdleConnectionsInTheBackground() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMinimumIdleConnections(3);
+      ds.setPoolHousekeepingInterval(20);
+      waitForIdleConnections(ds, 3);
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldRetireIdleConnectionsPastTheirLifetime() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumLifetime(50);
+      ds.setPoolHousekeepingInterval(20);
+      ds.getConnection().close();
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      waitForIdleConnections(ds, 0);
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldReclaimLeakedConnections() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolLeakedConnectionTimeout(50);
+      ds.setPoolHousekeepingInterval(20);
+      Connection leaked = ds.getConnection();
+      long deadline = System.currentTimeMillis() + 10000;
+      while (ds.getPoolState().getActiveConnectionCount() > 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      leaked.close();
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldNotPingOnCheckoutWhileHousekeeping() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("NOT A VALID QUERY");
+      ds.setPoolHousekeepingInterval(60000);
+      ds.getConnection().close();
+      ds.getConnection().close();
+      assertEquals(2, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  private void waitForIdleConnections(PooledDataSource ds, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (ds.getPoolState().getIdleConnectionCount() != count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  public void shouldReportLatenciesToTheMetricsListener() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      final AtomicInteger acquired = new AtomicInteger();
+      final AtomicInteger returned = new AtomicInteger();
+      final AtomicInteger created = new AtomicInteger();
+      ds.setPoolMetricsListener(new PoolMetricsListener() {
+        public void connectionAcquired(long waitNanos) {
+          acquired.incrementAndGet();
+        }
+
+        public void connectionReturned(long checkoutNanos) {
+          returned.incrementAndGet();
+        }
+
+        public void connectionPinged(long pingNanos, boolean success) {
+        }
+
+        public void connectionCreated(long creationNanos) {
+          created.incrementAndGet();
+        }
+      });
+      ds.getConnection().close();
+      ds.getConnection().close();
+      assertEquals(2, acquired.get());
+      assertEquals(2, returned.get());
+      assertEquals(1, created.get());
+      assertEquals(2, ds.getPoolState().getWaitTimeHistogram().getCount());
+      assertEquals(2, ds.getPoolState().getCheckoutTimeHistogram().getCount());
+      assertEquals(1, ds.getPoolState().getCreationTimeHistogram().getCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldRegisterThePoolStatisticsInJmx() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("org.apache.ibatis.datasource:type=PooledDataSource,name=" + ObjectName.quote("jpetstore"));
+    try {
+      ds.setPoolJmxName("jpetstore");
+      ds.getConnection().close();
+      assertEquals(1L, server.getAttribute(name, "RequestCount"));
+      assertEquals(1, server.getAttribute(name, "IdleConnectionCount"));
+      assertTrue((Long) server.getAttribute(name, "WaitTimeMax") > 0);
+    } finally {
+      ds.setPoolJmxName(null);
+      ds.forceCloseAll();
+    }
+    assertFalse(server.isRegistered(name));
+  }
+
+  @Test
+  public void shouldReusePreparedStatementsAcrossCheckouts() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatementCacheSize(2);
+      final String sql = "select ? from INFORMATION_SCHEMA.SYSTEM_USERS";
+      Connection conn = ds.getConnection();
+      PreparedStatement stmt = conn.prepareStatement(sql);
+      stmt.setInt(1, 1);
+      stmt.setMaxRows(5);
+      PreparedStatement real = stmt.unwrap(PreparedStatement.class);
+      stmt.close();
+      assertTrue(stmt.isClosed());
+      conn.close();
+
+      conn = ds.getConnection();
+      stmt = conn.prepareStatement(sql);
+      assertSame(real, stmt.unwrap(PreparedStatement.class));
+      assertEquals(0, stmt.getMaxRows());
+      stmt.setInt(1, 7);
+      ResultSet rs = stmt.executeQuery();
+      assertTrue(rs.next());
+      assertEquals(7, rs.getInt(1));
+      rs.close();
+      // a statement in use is not shared
+      PreparedStatement other = conn.prepareStatement(sql);
+      assertFalse(real == other.unwrap(PreparedStatement.class));
+      other.close();
+      stmt.close();
+      conn.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldCloseTheLeastRecentlyUsedPreparedStatement() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatementCacheSize(2);
+      Connection conn = ds.getConnection();
+      List<PreparedStatement> statements = new ArrayList<PreparedStatement>();
+      for (int i = 0; i < 3; i++) {
+        PreparedStatement stmt = conn.prepareStatement("select " + i + " from INFORMATION_SCHEMA.SYSTEM_USERS");
+        statements.add(stmt.unwrap(PreparedStatement.class));
+        stmt.close();
+      }
+      assertTrue(statements.get(0).isClosed());
+      assertFalse(statements.get(1).isClosed());
+      assertFalse(statements.get(2).isClosed());
+      conn.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldWarmUpThePoolEagerly() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumIdleConnections(3);
+      ds.setPoolInitialConnections(5);
+      assertEquals(3, ds.warmUp());
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(0, ds.warmUp());
+      ds.getConnection().close();
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldWarmUpOnTheFirstCheckoutAndAfterAReset() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolInitialConnections(3);
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+      // the checkout may take one of the connections opened in the background
+      Connection conn = ds.getConnection();
+      conn.close();
+      awaitIdleConnections(ds, 3);
+      ds.forceCloseAll();
+      awaitIdleConnections(ds, 3);
+    } finally {
+      ds.setPoolInitialConnections(0);
+    }
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  private static void awaitIdleConnections(PooledDataSource ds, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (ds.getPoolState().getIdleConnectionCount() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(ds.getPoolState().getIdleConnectionCount() >= count);
+  }
+
 }
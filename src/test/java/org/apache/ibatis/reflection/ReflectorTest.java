@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.reflection;
 
+import org.apache.ibatis.reflection.invoker.AccessorInvoker;
+import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
+import org.apache.ibatis.session.Configuration;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -38,6 +41,63 @@ public class ReflectorTest {
     Assert.assertFalse(reflector.hasGetter("class"));
   }
 
+  @Test
+  public void shouldUseGeneratedAccessorsForPublicMethods() throws Exception {
+    Reflector reflector = new BytecodeReflectorFactory().findForClass(Account.class);
+    Assert.assertTrue(reflector.getSetInvoker("balance") instanceof AccessorInvoker);
+    Assert.assertTrue(reflector.getGetInvoker("owner") instanceof AccessorInvoker);
+    Assert.assertTrue(reflector.getGetInvoker("secret") instanceof GetFieldInvoker);
+    Assert.assertEquals(long.class, reflector.getSetterType("balance"));
+
+    Account account = new Account();
+    reflector.getSetInvoker("balance").invoke(account, new Object[] { 100L });
+    reflector.getSetInvoker("owner").invoke(account, new Object[] { "John" });
+    Assert.assertEquals(100L, reflector.getGetInvoker("balance").invoke(account, null));
+    Assert.assertEquals("John", reflector.getGetInvoker("owner").invoke(account, null));
+
+    Assert.assertFalse(Reflector.forClass(Account.class).getSetInvoker("balance") instanceof AccessorInvoker);
+  }
+
+  @Test
+  public void shouldChooseAccessorsPerConfiguration() throws Exception {
+    Configuration bytecode = new Configuration();
+    bytecode.setUseBytecodeAccessors(true);
+    Configuration reflective = new Configuration();
+
+    Account account = new Account();
+    MetaObject metaAccount = bytecode.newMetaObject(account);
+    metaAccount.setValue("balance", 100L);
+    Assert.assertEquals(100L, reflective.newMetaObject(account).getValue("balance"));
+    Assert.assertTrue(bytecode.getReflectorFactory().findForClass(Account.class).getSetInvoker("balance") instanceof AccessorInvoker);
+    Assert.assertFalse(reflective.getReflectorFactory().findForClass(Account.class).getSetInvoker("balance") instanceof AccessorInvoker);
+
+    bytecode.setUseBytecodeAccessors(false);
+    Assert.assertFalse(bytecode.getReflectorFactory().findForClass(Account.class).getSetInvoker("balance") instanceof AccessorInvoker);
+  }
+
+  public static class Account {
+
+    private long balance;
+    private String owner;
+    private String secret;
+
+    public long getBalance() {
+      return balance;
+    }
+
+    public void setBalance(long balance) {
+      this.balance = balance;
+    }
+
+    public String getOwner() {
+      return owner;
+    }
+
+    public void setOwner(String owner) {
+      this.owner = owner;
+    }
+  }
+
   static interface Entity<T> {
     T getId();
     void setId(T id);
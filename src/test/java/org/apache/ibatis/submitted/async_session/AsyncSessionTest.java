@@ -0,0 +1,165 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncSessionTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private AsyncSqlSession asyncSqlSession;
+
+  @Before
+  public void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+
+    asyncSqlSession = new DefaultAsyncSqlSession(sqlSessionFactory);
+  }
+
+  @Test
+  public void shouldSelectInTheBackground() throws Exception {
+    Future<List<User>> users = asyncSqlSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsers");
+    Future<User> user = asyncSqlSession.selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 2);
+    Assert.assertEquals(3, users.get().size());
+    Assert.assertEquals("User2", user.get().getName());
+  }
+
+  @Test
+  public void shouldFanOutMapperCalls() throws Exception {
+    Assert.assertEquals(2, asyncSqlSession.getConfiguration().getAsyncConcurrency());
+    Mapper mapper = asyncSqlSession.getMapper(Mapper.class);
+    List<Future<User>> users = new ArrayList<Future<User>>();
+    for (int i = 0; i < 10; i++) {
+      users.add(i % 2 == 0 ? mapper.getUser(i % 3 + 1) : mapper.getUserAnnotated(i % 3 + 1));
+    }
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals("User" + (i % 3 + 1), users.get(i).get().getName());
+    }
+    Assert.assertEquals(3, mapper.getUsers().get().size());
+    // methods not returning a Future run in the calling thread
+    Assert.assertEquals(3, mapper.countUsers());
+  }
+
+  @Test
+  public void shouldCommitUpdates() throws Exception {
+    Mapper mapper = asyncSqlSession.getMapper(Mapper.class);
+    Assert.assertEquals(Integer.valueOf(1), mapper.renameUser(1, "Renamed").get());
+    Assert.assertEquals(Integer.valueOf(1), asyncSqlSession.update("org.apache.ibatis.submitted.async_session.Mapper.renameUser", user(2, "Renamed2")).get());
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsers");
+      Assert.assertEquals("Renamed", users.get(0).getName());
+      Assert.assertEquals("Renamed2", users.get(1).getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReportFailuresThroughTheFuture() throws Exception {
+    Future<List<User>> users = asyncSqlSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getMissingColumn");
+    try {
+      users.get();
+      Assert.fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof PersistenceException);
+    }
+  }
+
+  @Test
+  public void shouldRunFutureMethodsOfASqlSessionInTheCallingThread() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Future<List<User>> users = mapper.getUsers();
+      Assert.assertTrue(users.isDone());
+      Assert.assertEquals(3, users.get().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRejectCursorsOfSessionsClosedByTheCall() {
+    Mapper mapper = asyncSqlSession.getMapper(Mapper.class);
+    try {
+      mapper.getUserCursor();
+      Assert.fail("Expected a SqlSessionException");
+    } catch (SqlSessionException e) {
+      Assert.assertTrue(e.getMessage().contains("No managed session is started"));
+    }
+    try {
+      mapper.getUserCursorInTheBackground();
+      Assert.fail("Expected a BindingException");
+    } catch (BindingException e) {
+      Assert.assertTrue(e.getMessage().contains("getUserCursorInTheBackground"));
+    }
+  }
+
+  @Test
+  public void shouldReadCursorOfManagedSession() {
+    SqlSessionManager manager = SqlSessionManager.newInstance(sqlSessionFactory);
+    manager.startManagedSession();
+    try {
+      Cursor<User> users = manager.getMapper(Mapper.class).getUserCursor();
+      Assert.assertEquals("User1", users.iterator().next().getName());
+    } finally {
+      manager.close();
+    }
+  }
+
+  private static User user(Integer id, String name) {
+    User user = new User();
+    user.setId(id);
+    user.setName(name);
+    return user;
+  }
+
+}
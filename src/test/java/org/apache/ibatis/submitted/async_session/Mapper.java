@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+public interface Mapper {
+  Future<List<User>> getUsers();
+
+  Future<User> getUser(Integer id);
+
+  @Select("select id, name from users where id = #{id}")
+  Future<User> getUserAnnotated(Integer id);
+
+  @Select("select count(*) from users")
+  int countUsers();
+
+  @Select("select id, name from users order by id")
+  Cursor<User> getUserCursor();
+
+  @Select("select id, name from users order by id")
+  Future<Cursor<User>> getUserCursorInTheBackground();
+
+  Future<Integer> renameUser(@Param("id") Integer id, @Param("name") String name);
+}
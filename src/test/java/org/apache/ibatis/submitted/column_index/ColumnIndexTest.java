@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.column_index;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ColumnIndexTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/column_index/Config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/column_index/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldReadThePrefixedColumnsForANestedResultMap() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Parent> parents = sqlSession.selectList("org.apache.ibatis.submitted.column_index.Mapper.selectParentsWithPrefixedChild");
+      assertEquals(2, parents.size());
+      assertEquals(Integer.valueOf(1), parents.get(0).getId());
+      assertEquals("Parent1", parents.get(0).getName());
+      assertEquals(Integer.valueOf(11), parents.get(0).getChild().getId());
+      assertEquals("Child11", parents.get(0).getChild().getName());
+      assertEquals(Integer.valueOf(12), parents.get(1).getChild().getId());
+      assertEquals("Child12", parents.get(1).getChild().getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReadTheFirstOfColumnsWithTheSameLabel() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Parent> parents = sqlSession.selectList("org.apache.ibatis.submitted.column_index.Mapper.selectParentsWithDuplicateLabels");
+      assertEquals(2, parents.size());
+      assertEquals(Integer.valueOf(1), parents.get(0).getId());
+      assertEquals("Child11", parents.get(0).getName());
+      assertEquals(Integer.valueOf(2), parents.get(1).getId());
+      assertEquals("Child12", parents.get(1).getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
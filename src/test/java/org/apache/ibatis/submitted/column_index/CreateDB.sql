@@ -0,0 +1,34 @@
+--
+--    Copyright 2009-2014 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table child if exists;
+drop table parent if exists;
+
+create table child (
+  id int,
+  name varchar(20)
+);
+
+create table parent (
+  id int,
+  name varchar(20),
+  child_id int
+);
+
+insert into child (id, name) values (11, 'Child11');
+insert into child (id, name) values (12, 'Child12');
+insert into parent (id, name, child_id) values (1, 'Parent1', 11);
+insert into parent (id, name, child_id) values (2, 'Parent2', 12);
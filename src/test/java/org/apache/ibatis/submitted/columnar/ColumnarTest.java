@@ -0,0 +1,182 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+
+import org.apache.ibatis.columnar.ColumnarResult;
+import org.apache.ibatis.columnar.IntColumn;
+import org.apache.ibatis.columnar.ObjectColumn;
+import org.apache.ibatis.columnar.StringColumn;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ColumnarTest {
+
+  private static final int ROW_COUNT = 1000;
+  private static final long BASE_TIME = 1400000000000L;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/columnar/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/columnar/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    PreparedStatement ps = conn.prepareStatement("insert into measurements (id, sensor, reading, total, amount, taken) values (?, ?, ?, ?, ?, ?)");
+    for (int i = 1; i <= ROW_COUNT; i++) {
+      ps.setInt(1, i);
+      ps.setString(2, "sensor" + (i % 3));
+      if (i % 100 == 0) {
+        ps.setNull(3, Types.DOUBLE);
+      } else {
+        ps.setDouble(3, i / 4.0);
+      }
+      ps.setLong(4, i * 10000000000L);
+      ps.setBigDecimal(5, new BigDecimal(i).movePointLeft(2));
+      ps.setDate(6, new Date(BASE_TIME));
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    ps.close();
+    conn.commit();
+    session.close();
+  }
+
+  @Test
+  public void shouldReadColumnsIntoPrimitiveArrays() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      ColumnarResult result = sqlSession.getMapper(Mapper.class).getMeasurements();
+      Assert.assertEquals(ROW_COUNT, result.getRowCount());
+      Assert.assertEquals(6, result.getColumnCount());
+      int[] ids = result.getInts("id");
+      double[] readings = result.getDoubles("READING");
+      long[] totals = result.getLongs("total");
+      Assert.assertEquals(ROW_COUNT, ids.length);
+      for (int i = 0; i < ROW_COUNT; i++) {
+        int id = i + 1;
+        Assert.assertEquals(id, ids[i]);
+        Assert.assertEquals(id * 10000000000L, totals[i]);
+        if (id % 100 == 0) {
+          Assert.assertTrue(result.getColumn("reading").isNull(i));
+          Assert.assertNull(result.getColumn("reading").getValue(i));
+        } else {
+          Assert.assertFalse(result.getColumn("reading").isNull(i));
+          Assert.assertEquals(id / 4.0, readings[i], 0);
+        }
+      }
+      Assert.assertTrue(result.getColumn("amount") instanceof ObjectColumn);
+      Assert.assertEquals(new BigDecimal("1.23"), result.getColumn("amount").getValue(122));
+      Assert.assertEquals(new Date(BASE_TIME).toString(), result.getColumn("taken").getValue(0).toString());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldDictionaryEncodeStrings() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      ColumnarResult result = sqlSession.getMapper(Mapper.class).getMeasurements();
+      StringColumn sensors = result.getStrings("sensor");
+      Assert.assertEquals(3, sensors.getDictionary().size());
+      Assert.assertEquals(ROW_COUNT, sensors.getCodes().length);
+      for (int i = 0; i < ROW_COUNT; i++) {
+        Assert.assertEquals("sensor" + ((i + 1) % 3), sensors.getString(i));
+      }
+      Assert.assertEquals(sensors.getCode(0), sensors.getCode(3));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldApplyRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<ColumnarResult> results = sqlSession.getMapper(Mapper.class).getMeasurements(new RowBounds(100, 50));
+      Assert.assertEquals(1, results.size());
+      ColumnarResult result = results.get(0);
+      Assert.assertEquals(50, result.getRowCount());
+      Assert.assertEquals(101, result.getInts("id")[0]);
+      Assert.assertEquals(150, ((IntColumn) result.getColumn(0)).getInt(49));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReturnEmptyColumnsForNoRows() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      ColumnarResult result = sqlSession.getMapper(Mapper.class).getNoMeasurements();
+      Assert.assertEquals(0, result.getRowCount());
+      Assert.assertEquals(0, result.getInts("id").length);
+      Assert.assertEquals(0, result.getDoubles("reading").length);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectWrongColumnKind() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getMeasurements().getDoubles("id");
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRejectACursor() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.selectCursor("org.apache.ibatis.submitted.columnar.Mapper.getMeasurements");
+      Assert.fail("a columnar statement cannot be read with a Cursor");
+    } catch (PersistenceException e) {
+      Assert.assertTrue(e.getMessage().contains("cannot be used with a Cursor"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
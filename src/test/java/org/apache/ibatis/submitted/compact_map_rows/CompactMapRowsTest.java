@@ -0,0 +1,139 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compact_map_rows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CompactMapRowsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compact_map_rows/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compact_map_rows/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldReturnRowsEqualToHashMaps() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Map<String, Object>> users = mapper.getUsers();
+      List<HashMap<String, Object>> hashMaps = mapper.getUsersAsHashMaps();
+      Assert.assertEquals(3, users.size());
+      Assert.assertFalse(users.get(0) instanceof HashMap);
+      Assert.assertTrue(hashMaps.get(0) instanceof HashMap);
+      for (int i = 0; i < users.size(); i++) {
+        Assert.assertEquals(hashMaps.get(i), users.get(i));
+        Assert.assertEquals(users.get(i), hashMaps.get(i));
+        Assert.assertEquals(hashMaps.get(i).hashCode(), users.get(i).hashCode());
+      }
+      Assert.assertEquals("User1", users.get(0).get("NAME"));
+      Assert.assertEquals(3, users.get(0).size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldLeaveOutNullColumns() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsers();
+      Map<String, Object> user = users.get(1);
+      Assert.assertEquals(2, user.size());
+      Assert.assertFalse(user.containsKey("EMAIL"));
+      Assert.assertNull(user.get("EMAIL"));
+      Assert.assertNull(user.get("unknown"));
+      Assert.assertEquals(1, users.get(2).size());
+      Assert.assertEquals(users.get(0).keySet().size(), 3);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapRepeatedColumnLikeHashMaps() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Map<String, Object>> users = mapper.getUsersWithRepeatedColumn();
+      List<HashMap<String, Object>> hashMaps = mapper.getUsersWithRepeatedColumnAsHashMaps();
+      Assert.assertEquals(hashMaps, users);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldBeReadOnly() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getUsers().get(0).put("NAME", "changed");
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldSerializeRows() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsers();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(users);
+      out.close();
+      ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+      Object copy = in.readObject();
+      in.close();
+      Assert.assertEquals(users, copy);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
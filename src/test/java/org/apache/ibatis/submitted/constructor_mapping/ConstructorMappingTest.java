@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.constructor_mapping;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ConstructorMappingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/constructor_mapping/Config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/constructor_mapping/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldInstantiateEachRowWithItsOwnValues() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Player> players = sqlSession.selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayers");
+      assertPlayers(players);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReadTheConstructorColumnsOfEachStatement() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertPlayers(sqlSession.<Player> selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayers"));
+      assertPlayers(sqlSession.<Player> selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayersInAnotherColumnOrder"));
+      assertPlayers(sqlSession.<Player> selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayersWithTeam"));
+    } finally {
+      sqlSession.close();
+    }
+    sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertPlayers(sqlSession.<Player> selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayersInAnotherColumnOrder"));
+      assertPlayers(sqlSession.<Player> selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayers"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldPassTheResultOfANestedSelectToTheConstructor() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Player> players = sqlSession.selectList("org.apache.ibatis.submitted.constructor_mapping.Mapper.selectPlayersWithTeam");
+      assertPlayers(players);
+      assertEquals(Integer.valueOf(1), players.get(0).getTeam().getId());
+      assertEquals("Team1", players.get(0).getTeam().getName());
+      assertEquals(Integer.valueOf(2), players.get(1).getTeam().getId());
+      assertEquals("Team2", players.get(1).getTeam().getName());
+      assertEquals("Team1", players.get(2).getTeam().getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  private void assertPlayers(List<Player> players) {
+    assertEquals(3, players.size());
+    assertEquals(Integer.valueOf(1), players.get(0).getId());
+    assertEquals("Player1", players.get(0).getName());
+    assertEquals("Nick1", players.get(0).getNickname());
+    assertEquals(Integer.valueOf(2), players.get(1).getId());
+    assertEquals("Player2", players.get(1).getName());
+    assertNull(players.get(1).getNickname());
+    assertEquals(Integer.valueOf(3), players.get(2).getId());
+    assertEquals("Player3", players.get(2).getName());
+    assertEquals("Nick3", players.get(2).getNickname());
+  }
+
+}
@@ -0,0 +1,37 @@
+--
+--    Copyright 2009-2014 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table player if exists;
+drop table team if exists;
+
+create table team (
+  id int,
+  name varchar(20)
+);
+
+create table player (
+  id int,
+  name varchar(20),
+  nickname varchar(20),
+  team_id int
+);
+
+insert into team (id, name) values(1, 'Team1');
+insert into team (id, name) values(2, 'Team2');
+
+insert into player (id, name, nickname, team_id) values(1, 'Player1', 'Nick1', 1);
+insert into player (id, name, nickname, team_id) values(2, 'Player2', null, 2);
+insert into player (id, name, nickname, team_id) values(3, 'Player3', 'Nick3', 1);
@@ -0,0 +1,52 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.constructor_mapping;
+
+public class Player {
+
+  private final Integer id;
+  private final String name;
+  private final String nickname;
+  private final Team team;
+
+  public Player(Integer id, String name, String nickname) {
+    this(id, name, nickname, null);
+  }
+
+  public Player(Integer id, String name, String nickname, Team team) {
+    this.id = id;
+    this.name = name;
+    this.nickname = nickname;
+    this.team = team;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getNickname() {
+    return nickname;
+  }
+
+  public Team getTeam() {
+    return team;
+  }
+
+}
@@ -0,0 +1,182 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CursorTest {
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldFetchItemsOneByOne() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems();
+      Assert.assertFalse(items.isOpen());
+      Assert.assertEquals(-1, items.getCurrentIndex());
+
+      Iterator<Item> iterator = items.iterator();
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals("book", iterator.next().getName());
+      Assert.assertTrue(items.isOpen());
+      Assert.assertEquals(0, items.getCurrentIndex());
+      Assert.assertEquals("tv", iterator.next().getName());
+      Assert.assertEquals("shoes", iterator.next().getName());
+      Assert.assertEquals("car", iterator.next().getName());
+      Assert.assertEquals("phone", iterator.next().getName());
+      Assert.assertEquals(4, items.getCurrentIndex());
+      Assert.assertFalse(iterator.hasNext());
+      Assert.assertTrue(items.isConsumed());
+      Assert.assertFalse(items.isOpen());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldApplyRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems(new RowBounds(1, 2));
+      Iterator<Item> iterator = items.iterator();
+      Assert.assertEquals("tv", iterator.next().getName());
+      Assert.assertEquals(1, items.getCurrentIndex());
+      Assert.assertEquals("shoes", iterator.next().getName());
+      Assert.assertFalse(iterator.hasNext());
+      Assert.assertTrue(items.isConsumed());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldGroupNestedResultsWhenResultOrdered() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Person> persons = sqlSession.getMapper(Mapper.class).getPersonsWithItems();
+      Iterator<Person> iterator = persons.iterator();
+
+      Person person = iterator.next();
+      Assert.assertEquals("grandma", person.getName());
+      Assert.assertTrue(person.owns("book"));
+      Assert.assertTrue(person.owns("tv"));
+      Assert.assertEquals(2, person.getItems().size());
+
+      person = iterator.next();
+      Assert.assertEquals("sister", person.getName());
+      Assert.assertTrue(person.owns("shoes"));
+      Assert.assertTrue(person.owns("phone"));
+      Assert.assertEquals(2, person.getItems().size());
+
+      person = iterator.next();
+      Assert.assertEquals("brother", person.getName());
+      Assert.assertTrue(person.owns("car"));
+      Assert.assertEquals(1, person.getItems().size());
+
+      Assert.assertFalse(iterator.hasNext());
+      Assert.assertTrue(persons.isConsumed());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = PersistenceException.class)
+  public void shouldRejectUnorderedNestedResults() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.selectCursor("org.apache.ibatis.submitted.cursor.Mapper.getPersonsWithItemsUnordered");
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCloseCursorWhenSessionIsClosed() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    Cursor<Item> items;
+    Iterator<Item> iterator;
+    try {
+      items = sqlSession.getMapper(Mapper.class).getItems();
+      iterator = items.iterator();
+      Assert.assertEquals("book", iterator.next().getName());
+      Assert.assertTrue(items.isOpen());
+    } finally {
+      sqlSession.close();
+    }
+    Assert.assertFalse(items.isOpen());
+    Assert.assertFalse(items.isConsumed());
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotOpenTwoIterators() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems();
+      items.iterator();
+      items.iterator();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void shouldFailPastTheLastElement() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems(new RowBounds(0, 1));
+      Iterator<Item> iterator = items.iterator();
+      iterator.next();
+      iterator.next();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
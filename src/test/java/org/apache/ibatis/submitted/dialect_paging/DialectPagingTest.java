@@ -0,0 +1,186 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.dialect_paging;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DialectPagingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/dialect_paging/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/dialect_paging/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    PreparedStatement ps = conn.prepareStatement("insert into items (id, name) values (?, ?)");
+    for (int i = 1; i <= 100; i++) {
+      ps.setInt(1, i);
+      ps.setString(2, (i % 2 == 0 ? "even" : "odd") + i);
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    ps.close();
+    conn.commit();
+    session.close();
+  }
+
+  @Test
+  public void shouldReturnRequestedPage() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Item> items = sqlSession.getMapper(Mapper.class).getItems(null, new RowBounds(40, 10));
+      Assert.assertEquals(10, items.size());
+      for (int i = 0; i < items.size(); i++) {
+        Assert.assertEquals(Integer.valueOf(41 + i), items.get(i).getId());
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldKeepParametersOfPagedStatement() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Item> items = sqlSession.getMapper(Mapper.class).getItems("even%", new RowBounds(45, 10));
+      Assert.assertEquals(5, items.size());
+      Assert.assertEquals(Integer.valueOf(92), items.get(0).getId());
+      Assert.assertEquals(Integer.valueOf(100), items.get(4).getId());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCountCursorIndexFromTheOffset() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Map<String, Object> param = new HashMap<String, Object>();
+      param.put("name", null);
+      Cursor<Item> items = sqlSession.selectCursor(Mapper.class.getName() + ".getItems", param, new RowBounds(40, 10));
+      Iterator<Item> iterator = items.iterator();
+      Assert.assertEquals(Integer.valueOf(41), iterator.next().getId());
+      Assert.assertEquals(40, items.getCurrentIndex());
+      items.close();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldNotReuseStatementOfOpenPagedCursor() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/dialect_paging/mybatis-config.xml");
+    SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+    StatementRecorder recorder = new StatementRecorder();
+    factory.getConfiguration().addInterceptor(recorder);
+    SqlSession sqlSession = factory.openSession(ExecutorType.REUSE);
+    try {
+      Map<String, Object> param = new HashMap<String, Object>();
+      param.put("name", null);
+      Assert.assertEquals(10, sqlSession.getMapper(Mapper.class).getItems(null, new RowBounds(40, 10)).size());
+      Cursor<Item> items = sqlSession.selectCursor(Mapper.class.getName() + ".getItems", param, new RowBounds(40, 10));
+      Assert.assertEquals(Integer.valueOf(41), items.iterator().next().getId());
+      // closes the reused statements, the cursor took its statement out of them
+      sqlSession.flushStatements();
+      Assert.assertEquals(1, recorder.statements.size());
+      Assert.assertFalse(recorder.statements.get(0).isClosed());
+      items.close();
+      Assert.assertTrue(recorder.statements.get(0).isClosed());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = Connection.class))
+  public static class StatementRecorder implements Interceptor {
+
+    private final List<Statement> statements = new ArrayList<Statement>();
+
+    public Object intercept(Invocation invocation) throws Throwable {
+      Statement statement = (Statement) invocation.proceed();
+      statements.add(statement);
+      return statement;
+    }
+
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+  @Test
+  public void shouldRewriteSqlWithDialectOfDatabaseId() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Assert.assertEquals("hsqldb", configuration.getDatabaseId());
+    MappedStatement ms = configuration.getMappedStatement(Mapper.class.getName() + ".getItems");
+    Map<String, Object> param = new HashMap<String, Object>();
+    param.put("name", null);
+
+    StatementHandler paged = configuration.newStatementHandler(null, ms, param, new RowBounds(20, 10), null, null);
+    Assert.assertTrue(paged.getBoundSql().getSql().endsWith(" LIMIT ? OFFSET ?"));
+
+    StatementHandler nextPage = configuration.newStatementHandler(null, ms, param, new RowBounds(30, 10), null, null);
+    Assert.assertEquals(paged.getBoundSql().getSql(), nextPage.getBoundSql().getSql());
+
+    StatementHandler notPaged = configuration.newStatementHandler(null, ms, param, RowBounds.DEFAULT, null, null);
+    Assert.assertFalse(notPaged.getBoundSql().getSql().contains("LIMIT"));
+  }
+
+}
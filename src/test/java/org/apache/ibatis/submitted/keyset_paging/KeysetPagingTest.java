@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_paging;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetPage;
+import org.apache.ibatis.session.KeysetToken;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class KeysetPagingTest {
+
+  private static final int ITEM_COUNT = 95;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_paging/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_paging/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    PreparedStatement ps = conn.prepareStatement("insert into items (id, category, name) values (?, ?, ?)");
+    for (int i = 1; i <= ITEM_COUNT; i++) {
+      ps.setInt(1, i);
+      ps.setInt(2, i % 5);
+      ps.setString(3, (i % 2 == 0 ? "even" : "odd") + i);
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    ps.close();
+    conn.commit();
+    session.close();
+  }
+
+  @Test
+  public void shouldWalkAllPagesInKeysetOrder() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Integer> ids = new ArrayList<Integer>();
+      int pages = 0;
+      KeysetPage<Item> page = mapper.getItems(null, new KeysetToken(10));
+      while (true) {
+        pages++;
+        for (Item item : page.getItems()) {
+          ids.add(item.getId());
+        }
+        if (!page.hasNext()) {
+          break;
+        }
+        Assert.assertEquals(10, page.getItems().size());
+        page = mapper.getItems(null, page.getNextToken());
+      }
+      Assert.assertEquals(10, pages);
+      Assert.assertEquals(expectedIds(false), ids);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldKeepStatementParameters() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Integer> ids = new ArrayList<Integer>();
+      KeysetToken token = new KeysetToken(7);
+      while (token != null) {
+        KeysetPage<Item> page = mapper.getItems("even%", token);
+        for (Item item : page.getItems()) {
+          ids.add(item.getId());
+        }
+        token = page.getNextToken();
+      }
+      Assert.assertEquals(expectedIds(true), ids);
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldPageMapsOfAnnotatedStatement() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      KeysetPage<Map<String, Object>> page = mapper.getItemMaps(new KeysetToken(40));
+      page = mapper.getItemMaps(page.getNextToken());
+      Assert.assertEquals(40, page.getItems().size());
+      Assert.assertEquals(41, ((Number) page.getItems().get(0).get("ID")).intValue());
+      Assert.assertArrayEquals(new Object[] { 80 }, page.getNextToken().getLastKeys());
+      page = mapper.getItemMaps(page.getNextToken());
+      Assert.assertEquals(15, page.getItems().size());
+      Assert.assertFalse(page.hasNext());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldLimitPagesOnDatabaseWithDialectPaging() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setUseDialectPaging(true);
+    configuration.setDatabaseId("hsqldb");
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      KeysetPage<Item> page = mapper.getItems(null, new KeysetToken(30));
+      page = mapper.getItems(null, page.getNextToken());
+      Assert.assertEquals(expectedIds(false).subList(30, 60), idsOf(page.getItems()));
+    } finally {
+      sqlSession.close();
+      configuration.setUseDialectPaging(false);
+      configuration.setDatabaseId(null);
+    }
+  }
+
+  @Test(expected = PersistenceException.class)
+  public void shouldFailForStatementWithoutKeyset() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getAllItems(new KeysetToken(10));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  private List<Integer> expectedIds(boolean evenOnly) {
+    List<Integer> ids = new ArrayList<Integer>();
+    for (int category = 4; category >= 0; category--) {
+      for (int id = 1; id <= ITEM_COUNT; id++) {
+        if (id % 5 == category && (!evenOnly || id % 2 == 0)) {
+          ids.add(id);
+        }
+      }
+    }
+    return ids;
+  }
+
+  private List<Integer> idsOf(List<Item> items) {
+    List<Integer> ids = new ArrayList<Integer>();
+    for (Item item : items) {
+      ids.add(item.getId());
+    }
+    return ids;
+  }
+
+}
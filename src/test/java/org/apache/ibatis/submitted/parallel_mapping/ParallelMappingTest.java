@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_mapping;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelMappingTest {
+
+  private static final int PRODUCT_COUNT = 1500;
+  private static final long BASE_TIME = 1400000000000L;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_mapping/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_mapping/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    PreparedStatement ps = conn.prepareStatement("insert into products (id, name, price, created) values (?, ?, ?, ?)");
+    for (int i = 1; i <= PRODUCT_COUNT; i++) {
+      ps.setInt(1, i);
+      ps.setString(2, "product" + i);
+      if (i % 10 == 0) {
+        ps.setNull(3, java.sql.Types.DECIMAL);
+      } else {
+        ps.setBigDecimal(3, new BigDecimal(i).movePointLeft(2));
+      }
+      ps.setTimestamp(4, new Timestamp(BASE_TIME + i * 1000L));
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    ps.close();
+    conn.commit();
+    session.close();
+  }
+
+  @Test
+  public void shouldMapAllRowsInOrder() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Product> products = sqlSession.getMapper(Mapper.class).getProducts();
+      Assert.assertEquals(PRODUCT_COUNT, products.size());
+      for (int i = 0; i < products.size(); i++) {
+        assertProduct(i + 1, products.get(i));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMapInParallelWhenSetByAnnotation() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Assert.assertTrue(sqlSessionFactory.getConfiguration().getMappedStatement(Mapper.class.getName() + ".getProductsWithAnnotation").isParallelMapping());
+      List<Product> products = sqlSession.getMapper(Mapper.class).getProductsWithAnnotation();
+      Assert.assertEquals(PRODUCT_COUNT, products.size());
+      for (int i = 0; i < products.size(); i++) {
+        assertProduct(i + 1, products.get(i));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldApplyRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Product> products = sqlSession.getMapper(Mapper.class).getProducts(new RowBounds(300, 600));
+      Assert.assertEquals(600, products.size());
+      for (int i = 0; i < products.size(); i++) {
+        assertProduct(i + 301, products.get(i));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldPassRowsToResultHandlerInOrderUntilStopped() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      final List<Integer> ids = new ArrayList<Integer>();
+      sqlSession.getMapper(Mapper.class).getProducts(new ResultHandler() {
+        public void handleResult(ResultContext context) {
+          ids.add(((Product) context.getResultObject()).getId());
+          if (context.getResultCount() == 1000) {
+            context.stop();
+          }
+        }
+      });
+      Assert.assertEquals(1000, ids.size());
+      for (int i = 0; i < ids.size(); i++) {
+        Assert.assertEquals(Integer.valueOf(i + 1), ids.get(i));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  private void assertProduct(int id, Product product) {
+    Assert.assertEquals(Integer.valueOf(id), product.getId());
+    Assert.assertEquals("product" + id, product.getName());
+    if (id % 10 == 0) {
+      Assert.assertNull(product.getPrice());
+    } else {
+      Assert.assertEquals(new BigDecimal(id).movePointLeft(2), product.getPrice());
+    }
+    Assert.assertEquals(BASE_TIME + id * 1000L, product.getCreated().getTime());
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.routing_datasource;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.routing.Replica;
+import org.apache.ibatis.datasource.routing.RoutingContext;
+import org.apache.ibatis.datasource.routing.RoutingDataSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RoutingDataSourceTest {
+
+  private static final String GET_NAME = "org.apache.ibatis.submitted.routing_datasource.Mapper.getName";
+
+  private SqlSessionFactory sqlSessionFactory;
+  private RoutingDataSource dataSource;
+
+  @Before
+  public void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/routing_datasource/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+    dataSource = (RoutingDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+
+    // the same table in both databases, with a different name for user 1
+    createDatabase(dataSource.getPrimary(), "Primary");
+    createDatabase(dataSource.getReplicas().get(0).getDataSource(), "Replica");
+  }
+
+  private void createDatabase(DataSource ds, String name) throws Exception {
+    Connection conn = ds.getConnection();
+    try {
+      Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/routing_datasource/CreateDB.sql");
+      ScriptRunner runner = new ScriptRunner(conn);
+      runner.setLogWriter(null);
+      runner.runScript(reader);
+      reader.close();
+      Statement statement = conn.createStatement();
+      statement.executeUpdate("insert into users values (1, '" + name + "')");
+      statement.close();
+      if (!conn.getAutoCommit()) {
+        conn.commit();
+      }
+    } finally {
+      conn.close();
+    }
+  }
+
+  @Test
+  public void shouldReadFromTheReplica() {
+    SqlSession sqlSession = sqlSessionFactory.openSession(true);
+    try {
+      Assert.assertEquals("Replica", sqlSession.selectOne(GET_NAME, 1));
+      Assert.assertEquals("Primary", sqlSession.selectOne("org.apache.ibatis.submitted.routing_datasource.Mapper.getNameAndFlushCache", 1));
+    } finally {
+      sqlSession.close();
+    }
+    Replica replica = dataSource.getReplicas().get(0);
+    Assert.assertEquals("one", replica.getName());
+    Assert.assertEquals(2, replica.getWeight());
+    Assert.assertEquals(1, replica.getStatementCount());
+    Assert.assertTrue(replica.getAverageLatencyNanos() > 0);
+  }
+
+  @Test
+  public void shouldReadItsOwnWritesInATransaction() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Assert.assertEquals("Primary", sqlSession.selectOne(GET_NAME, 1));
+      Map<String, Object> param = new HashMap<String, Object>();
+      param.put("id", 1);
+      param.put("name", "Updated");
+      Assert.assertEquals(1, sqlSession.update("org.apache.ibatis.submitted.routing_datasource.Mapper.updateName", param));
+      Assert.assertEquals("Updated", sqlSession.selectOne(GET_NAME, 1));
+      sqlSession.commit();
+    } finally {
+      sqlSession.close();
+    }
+    // only auto-commit sessions read from the replica
+    sqlSession = sqlSessionFactory.openSession(true);
+    try {
+      Assert.assertEquals("Replica", sqlSession.selectOne(GET_NAME, 1));
+    } finally {
+      sqlSession.close();
+    }
+    RoutingContext.setPrimaryRequired(true);
+    sqlSession = sqlSessionFactory.openSession();
+    try {
+      Assert.assertEquals("Updated", sqlSession.selectOne(GET_NAME, 1));
+    } finally {
+      sqlSession.close();
+      RoutingContext.setPrimaryRequired(false);
+    }
+  }
+
+  @Test
+  public void shouldSkipAReplicaThatCannotBeReached() {
+    dataSource.addReplica("missing", new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:routing_missing;ifexists=true", "sa", ""), 1000);
+    Replica missing = dataSource.getReplicas().get(1);
+    for (int i = 0; i < 20; i++) {
+      SqlSession sqlSession = sqlSessionFactory.openSession(true);
+      try {
+        Assert.assertEquals("Replica", sqlSession.selectOne(GET_NAME, 1));
+      } finally {
+        sqlSession.close();
+      }
+    }
+    Assert.assertEquals(1, missing.getFailureCount());
+    Assert.assertFalse(missing.isAvailable());
+  }
+
+}